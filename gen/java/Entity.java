@@ -3,10 +3,14 @@
  */
 package planted.beetroot.handler.##entitynameplural##;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * ##Entityname##. 
@@ -15,6 +19,6 @@ public class ##Entityname## extends Model {
 
     private static final long serialVersionUID = 1L;
 	
-##beanContents##	
-	
+##beanContents##
+
 }
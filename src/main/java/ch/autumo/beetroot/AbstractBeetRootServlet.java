@@ -47,6 +47,9 @@ public class AbstractBeetRootServlet extends HttpServlet {
 	private BeetRootService beetRootService = null;
 	private Map<String, BeetRootHTTPSession> sessions = new ConcurrentHashMap<>();
 
+	// Concurrent servlet execution; requests are only serialized per session
+	private boolean concurrentExecution = true;
+
 
 	@Override
 	public void init(ServletConfig config) throws ServletException {
@@ -89,6 +92,8 @@ public class AbstractBeetRootServlet extends HttpServlet {
 			LOG.error("Configuration initialization failed !", e);
 			throw new ServletException("Configuration initialization failed !", e);
 		}
+		concurrentExecution = configMan.getYesOrNo("ws_servlet_concurrent", Constants.YES);
+		LOG.info("Servlet execution mode: {}.", concurrentExecution ? "concurrent" : "serialized");
 
 
 		// 2. Logging configuration
@@ -155,6 +160,8 @@ public class AbstractBeetRootServlet extends HttpServlet {
 
 		// Clear sessions from memory
 		sessions.clear(); // all we need to do here
+		// Stop evicting idle user sessions
+		SessionManager.getInstance().stopSweeper();
 		// Free service resource, etc.
 		beetRootService.destroy();
 		// Release database resources
@@ -174,6 +181,16 @@ public class AbstractBeetRootServlet extends HttpServlet {
 		return beetRootService;
 	}
 
+	/**
+	 * Are requests executed concurrently? If so, only requests of the
+	 * same session are serialized, otherwise all requests are.
+	 *
+	 * @return true if requests are executed concurrently
+	 */
+	protected boolean isConcurrentExecution() {
+		return concurrentExecution;
+	}
+
 	/**
 	 * Lookup an existing or a new session for the request given.
 	 *
@@ -184,16 +201,16 @@ public class AbstractBeetRootServlet extends HttpServlet {
 	protected BeetRootHTTPSession findOrCreateHttpSession(HttpServletRequest request) throws IOException {
 		// Servlet-container session ID
 		final String sessionID = request.getSession().getId();
-		BeetRootHTTPSession session = null;
-		if (sessions.containsKey(sessionID))
-			return sessions.get(sessionID); // found !
+		BeetRootHTTPSession session = sessions.get(sessionID);
+		if (session != null)
+			return session; // found !
         // Create a temporary file manager that handles the uploads within NANO-Httpd API
         final ITempFileManager tempFileManager = beetRootService.newTempFileManager();
 		// If there isn't a session yet, create one and deliver the input stream to it for parsing the body
         session = new BeetRootHTTPSession(sessionID, tempFileManager, request.getInputStream());
-        // Store it
-        sessions.put(sessionID, session);
-        return session;
+        // Store it; concurrent requests of a new session must end up with the same session
+        final BeetRootHTTPSession existing = sessions.putIfAbsent(sessionID, session);
+        return existing != null ? existing : session;
 	}
 
 }
@@ -20,13 +20,18 @@ package ch.autumo.beetroot;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
 
 import javax.sql.DataSource;
 
@@ -35,8 +40,13 @@ import org.slf4j.LoggerFactory;
 
 import com.zaxxer.hikari.HikariDataSource;
 
+import ch.autumo.beetroot.cache.EntityCacheManager;
+import ch.autumo.beetroot.cache.RoleCacheManager;
+import ch.autumo.beetroot.handler.properties.Property;
+import ch.autumo.beetroot.handler.roles.Role;
 import ch.autumo.beetroot.security.SecureApplicationHolder;
 import ch.autumo.beetroot.utils.Helper;
+import ch.autumo.beetroot.utils.bean.Beans;
 import ch.autumo.beetroot.utils.database.DB;
 import ch.autumo.beetroot.utils.database.DBField;
 import ch.autumo.beetroot.utils.database.H2Url;
@@ -80,6 +90,18 @@ public class BeetRootDatabaseManager {
 
 	private H2Url h2Url = null;
 
+	/** Properties snapshot (table 'properties'); replaced as a whole when reloaded */
+	private volatile Map<String, String> properties = null;
+	private volatile long propertiesLoaded = 0;
+	private long propertiesReload = DEFAULT_PROPERTIES_RELOAD * 1000L;
+	private final Object propertiesLock = new Object();
+
+	// Actions done when global connections are retired
+	private final Map<Connection, List<Runnable>> retireActions = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private static final int DEFAULT_PROPERTIES_RELOAD = 60; // seconds
+	private static final String PROPERTIES_TABLE = Beans.classToTable(Property.class);
+
 
 	/**
 	 * Private constructor.
@@ -222,6 +244,10 @@ public class BeetRootDatabaseManager {
 
 		this.initializePool();
 
+		// Properties snapshot
+		this.properties = null;
+		this.propertiesReload = configMan.getInt(Constants.KEY_DB_PROPERTIES_RELOAD, DEFAULT_PROPERTIES_RELOAD) * 1000L;
+
 		isInitialized = true;
 	}
 
@@ -291,6 +317,7 @@ public class BeetRootDatabaseManager {
 	 * life-cycle or a server ends!
 	 */
 	public void release() {
+		this.properties = null;
 		// close pool
 		if (dataSource != null) {
 			dataSource.close();
@@ -349,13 +376,20 @@ public class BeetRootDatabaseManager {
 	}
 
 	/**
-	 * Retire a global DB connection.
+	 * Retire a global DB connection. Caches of entities changed
+	 * within its transaction are invalidated once more.
 	 *
 	 * @see #getGlobalConnection()
 	 *
 	 * @throws SQLException SQL exception
 	 */
 	public void retireGlobalConnection(Connection conn) throws SQLException {
+		// Transaction has been committed or rolled back
+		final List<Runnable> actions = retireActions.remove(conn);
+		if (actions != null) {
+			for (Runnable action : actions)
+				action.run();
+		}
 		if (!conn.isClosed()) {
 			conn.setAutoCommit(true);
 			try {
@@ -365,6 +399,19 @@ public class BeetRootDatabaseManager {
 		}
 	}
 
+	/**
+	 * Do an action when a global DB connection is retired, hence
+	 * after its transaction has been committed or rolled back.
+	 *
+	 * @see #retireGlobalConnection(Connection)
+	 *
+	 * @param conn global DB connection
+	 * @param action action
+	 */
+	public void onRetire(Connection conn, Runnable action) {
+		retireActions.computeIfAbsent(conn, c -> Collections.synchronizedList(new ArrayList<>())).add(action);
+	}
+
 	public H2Url getH2Url() {
 		return h2Url;
 	}
@@ -412,6 +459,7 @@ public class BeetRootDatabaseManager {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE users SET lasttoken='NONE' WHERE id=" + dbId;
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate("users", dbId);
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -507,11 +555,82 @@ public class BeetRootDatabaseManager {
 	 * Get property value from database (table 'properties').
 	 * If the value isn't found, null is returned.
 	 *
+	 * Properties are served from an in-memory snapshot that is
+	 * loaded at once; it is reloaded when properties are created,
+	 * updated or deleted through beetRoot and periodically (see
+	 * 'db_properties_reload') for other changes.
+	 *
 	 * @param name name/key
 	 * @return value for name/key
 	 * @throws SQLException SQL exception
 	 */
 	public String getProperty(String name) throws SQLException {
+		if (propertiesReload <= 0)
+			return this.loadProperty(name);
+		return this.getProperties().get(name);
+	}
+
+	/**
+	 * Invalidate the properties snapshot; it is reloaded when
+	 * the next property is requested.
+	 */
+	public void invalidateProperties() {
+		synchronized (propertiesLock) {
+			this.properties = null;
+		}
+	}
+
+	/**
+	 * Invalidate the properties snapshot if the changed table holds
+	 * the properties.
+	 *
+	 * @param table changed table DB name
+	 */
+	public void invalidateProperties(String table) {
+		if (PROPERTIES_TABLE.equals(table))
+			this.invalidateProperties();
+	}
+
+	private Map<String, String> getProperties() throws SQLException {
+		Map<String, String> props = this.properties;
+		if (props != null && System.currentTimeMillis() - propertiesLoaded < propertiesReload)
+			return props;
+		synchronized (propertiesLock) {
+			// Reloaded by another thread in the meantime?
+			props = this.properties;
+			if (props != null && System.currentTimeMillis() - propertiesLoaded < propertiesReload)
+				return props;
+			props = this.loadProperties();
+			this.properties = props;
+			this.propertiesLoaded = System.currentTimeMillis();
+			return props;
+		}
+	}
+
+	private Map<String, String> loadProperties() throws SQLException {
+		final Map<String, String> props = new HashMap<>();
+		Connection conn = null;
+		Statement stmt = null;
+		ResultSet set = null;
+		try {
+			conn = instance.getConnection();
+			stmt = conn.createStatement();
+			set = stmt.executeQuery("SELECT name, value FROM properties");
+			while (set.next())
+				props.put(set.getString("name"), set.getString("value"));
+		} finally {
+			if (set != null)
+				set.close();
+			if (stmt != null)
+				stmt.close();
+			if (conn != null)
+				conn.close();
+		}
+		LOG.trace("Loaded {} properties.", props.size());
+		return Collections.unmodifiableMap(props);
+	}
+
+	private String loadProperty(String name) throws SQLException {
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null;
@@ -535,6 +654,46 @@ public class BeetRootDatabaseManager {
 		return value;
 	}
 
+	/**
+	 * Get the roles of a user with their names and permissions in
+	 * one round-trip; served from the role cache if enabled
+	 * ('db_roles_cache').
+	 *
+	 * @param userId user id
+	 * @return roles with ID, name and permissions
+	 * @throws SQLException SQL exception
+	 */
+	public List<Role> getUserRoles(int userId) throws SQLException {
+		if (RoleCacheManager.getInstance().isEnabled())
+			return RoleCacheManager.getInstance().getUserRoles(userId);
+		final List<Role> roles = new ArrayList<>();
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet set = null;
+		try {
+			conn = instance.getConnection();
+			stmt = conn.prepareStatement("SELECT r.id, r.name, r.permissions FROM users_roles ur JOIN roles r ON ur.role_id = r.id WHERE ur.user_id = ? ORDER BY r.id");
+			stmt.setInt(1, userId);
+			set = stmt.executeQuery();
+			while (set.next()) {
+				final Role role = new Role();
+				role.setId(set.getInt(1));
+				role.setName(set.getString(2));
+				role.setPermissions(set.getString(3));
+				role.setStored(true);
+				roles.add(role);
+			}
+		} finally {
+			if (set != null)
+				set.close();
+			if (stmt != null)
+				stmt.close();
+			if (conn != null)
+				conn.close();
+		}
+		return roles;
+	}
+
 	/**
 	 * Get language for user.
 	 * @param userId user id
@@ -579,6 +738,7 @@ public class BeetRootDatabaseManager {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE users SET lang='"+lang+"' WHERE id=" + dbId;
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate("users", dbId);
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -93,6 +93,9 @@ public class BeetRootHTTPSession extends HTTPSession {
 	// Download response buffer size.
 	public static final int RESPONSE_DOWNLOAD_BUFFER_SIZE;
 
+	// Response headers passed to the servlet response.
+	private static final String SERVLET_RESPONSE_HEADERS[] = new String[] {"Content-Encoding", "Vary", "ETag", "Last-Modified", "Cache-Control"};
+
     private String externalSessionId;
 
 
@@ -190,6 +193,15 @@ public class BeetRootHTTPSession extends HTTPSession {
 
                 // Everything else
             	} else {
+            		// conditional requests
+            		if (r.getStatus() == Status.NOT_MODIFIED)
+            			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            		// pre-compressed variants, validators and cache policies
+            		for (String name : SERVLET_RESPONSE_HEADERS) {
+            			final String val = r.getHeader(name);
+            			if (val != null)
+            				response.setHeader(name, val);
+            		}
             		r.sendBody(response.getOutputStream(), -1);
             	}
             }
@@ -49,15 +49,27 @@ public class BeetRootServlet extends AbstractBeetRootServlet {
 	}
 
 	@Override
-	public synchronized void service(ServletRequest req, ServletResponse res) throws ServletException, IOException {
+	public void service(ServletRequest req, ServletResponse res) throws ServletException, IOException {
 
 		final HttpServletRequest request = (HttpServletRequest) req;
 		final HttpServletResponse response = (HttpServletResponse) res;
 
 		// session management; get the right session for this service call
 		final BeetRootHTTPSession currSession = this.findOrCreateHttpSession(request);
+
 		// work !
-		currSession.executeForServlet(super.getBeetRootService(), request, response);
+		if (this.isConcurrentExecution()) {
+			// The beetRoot session holds the request state (URI, parameters, headers)
+			// of its servlet session, hence only requests of the same session are serialized
+			synchronized (currSession) {
+				currSession.executeForServlet(super.getBeetRootService(), request, response);
+			}
+		} else {
+			// Legacy mode: one request at a time
+			synchronized (this) {
+				currSession.executeForServlet(super.getBeetRootService(), request, response);
+			}
+		}
 	}
 
 }
@@ -59,7 +59,6 @@ import ch.autumo.beetroot.handler.NoContent204Handler;
 import ch.autumo.beetroot.handler.roles.Role;
 import ch.autumo.beetroot.handler.tasks.TasksIndexHandler;
 import ch.autumo.beetroot.handler.users.User;
-import ch.autumo.beetroot.handler.usersroles.UserRole;
 import ch.autumo.beetroot.mailing.MailerFactory;
 import ch.autumo.beetroot.routing.Route;
 import ch.autumo.beetroot.routing.Router;
@@ -282,6 +281,7 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 	    } catch (Exception e) {
 	    	LOG.warn("Couldn't load user sessions!", e);
 	    }
+		SessionManager.getInstance().startSweeper();
     }
 
     /**
@@ -290,6 +290,7 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 	@Override
     public void stop() {
 		super.stop();
+		SessionManager.getInstance().stopSweeper();
         try {
             SessionManager.save();
         } catch (Exception e) {
@@ -567,10 +568,10 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 			try {
 				// archives
 				if (MIME.isMimeTypeArchive(mimeType)) {
-					return fc.createResponse();
+					return fc.createResponse(session);
 				// binaries
 				} else if (MIME.isMimeTypeOctet(mimeType)) {
-					return fc.createResponse();
+					return fc.createResponse(session);
 				// text
 				} else {
 					// Special case: URL-parsed CSS within servlet context
@@ -613,7 +614,7 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 					}
 					// Everything else: Text data !
 					if (MIME.isMimeTypeText(mimeType))
-						return fc.createResponse();
+						return fc.createResponse(session);
 					// If we come here, a mime type has been requested that is not yet implemented
 					final String err = "Mime type for web resource '" + filePath + "' not implemented yet!";
 					LOG.warn(err);
@@ -752,12 +753,8 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 	            			dbTwoFa = user.getTwoFa();
 
 		            		// Roles
-		        			final List<Model> usersRoles = UserRole.where(UserRole.class, "user_id = ?", Integer.valueOf(user.getId()));
-		        			if (usersRoles == null)
-		        				throw new SQLException("no roles data!");
-		        			for (Iterator<Model> iterator = usersRoles.iterator(); iterator.hasNext();) {
-		        				final UserRole userRole = (UserRole) iterator.next();
-		        				final Role role = (Role) userRole.getAssociatedReference(Role.class);
+		        			final List<Role> usersRoles = BeetRootDatabaseManager.getInstance().getUserRoles(user.getId());
+		        			for (Role role : usersRoles) {
 		        				dbRoles += role.getName() + ",";
 		        				dbPermissions += role.getPermissions()+",";
 		        			}
@@ -1158,6 +1155,8 @@ public class BeetRootWebServer extends RouterNanoHTTPD implements BeetRootServic
 			final Route route = iterator.next();
 			addRoute(route.getRoute(), route.getPriority(), route.getHandler(), route.getInitParameter());
 		}
+		/** Compile routes for matching */
+		router.compile();
 	}
 
 	/**
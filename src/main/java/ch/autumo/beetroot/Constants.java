@@ -138,6 +138,31 @@ public class Constants {
 	 * Communication encryption mode; none|sha3|ssl
 	 */
 	public static final String KEY_ADMIN_COM_ENC = "admin_com_encrypt";
+
+	/**
+	 * Keep-alive time of idle admin server connections in seconds; 0 = one connection per command.
+	 */
+	public static final String KEY_ADMIN_COM_KEEP_ALIVE = "admin_com_keep_alive";
+
+	/**
+	 * Max. pooled idle admin server connections per server (client-side).
+	 */
+	public static final String KEY_ADMIN_COM_POOL_SIZE = "admin_com_pool_size";
+
+	/**
+	 * Admin server message format sent by clients; string|binary.
+	 */
+	public static final String KEY_ADMIN_COM_FORMAT = "admin_com_format";
+
+	/**
+	 * Compress binary admin server messages?
+	 */
+	public static final String KEY_ADMIN_COM_COMPRESS = "admin_com_compress";
+
+	/**
+	 * Max. size of binary admin server messages in MB.
+	 */
+	public static final String KEY_ADMIN_COM_MAX_MSG_SIZE = "admin_com_max_message_size";
 	
 	/**
 	 * Admin server/shutdown host.
@@ -164,6 +189,21 @@ public class Constants {
 	 */
 	public static final String KEY_ADMIN_FILE_BUF_SIZE = "admin_file_buffer_size";
 	
+	/**
+	 * Transfer files in chunks over parallel streams?
+	 */
+	public static final String KEY_ADMIN_FILE_CHUNKED = "admin_file_chunked";
+	
+	/**
+	 * Chunk size in MB for chunked file transfers.
+	 */
+	public static final String KEY_ADMIN_FILE_CHUNK_SIZE = "admin_file_chunk_size";
+	
+	/**
+	 * Parallel streams for chunked file transfers.
+	 */
+	public static final String KEY_ADMIN_FILE_STREAMS = "admin_file_streams";
+	
 	/**
 	 * File server port.
 	 */
@@ -252,6 +292,16 @@ public class Constants {
 	 */
 	public static final String KEY_WEB_MAX_RECORDS_PER_PAGE = "web_max_records_per_page";
 
+	/**
+	 * Max. records per JSON-REST index page ('fetchsize' parameter).
+	 */
+	public static final String KEY_WEB_JSON_MAX_RECORDS_PER_PAGE = "web_json_max_records_per_page";
+
+	/**
+	 * Stream JSON-REST index pages?
+	 */
+	public static final String KEY_WEB_JSON_STREAMING = "web_json_streaming";
+
 	/**
 	 * Default web handler class.
 	 */
@@ -277,6 +327,51 @@ public class Constants {
 	 */
 	public static final String KEY_WEB_MAX_REF_REC = "web_max_ref_records";
 
+	/**
+	 * Use keyset pagination on index pages?
+	 */
+	public static final String KEY_WEB_KEYSET_PAGINATION = "web_keyset_pagination";
+
+	/**
+	 * Use stateless, authenticated ID tokens instead of ID maps in the user session?
+	 */
+	public static final String KEY_WEB_STATELESS_IDS = "web_stateless_ids";
+
+	/**
+	 * Time-to-live in seconds of cached record counts.
+	 */
+	public static final String KEY_DB_COUNT_CACHE_TTL = "db_count_cache_ttl";
+
+	/**
+	 * Tables whose entities are cached when read by ID.
+	 */
+	public static final String KEY_DB_ENTITY_CACHE = "db_entity_cache";
+
+	/**
+	 * Max. amount of cached entities per table.
+	 */
+	public static final String KEY_DB_ENTITY_CACHE_SIZE = "db_entity_cache_size";
+
+	/**
+	 * Time-to-live in seconds of cached entities.
+	 */
+	public static final String KEY_DB_ENTITY_CACHE_TTL = "db_entity_cache_ttl";
+
+	/**
+	 * Reload interval in seconds of the cached application properties.
+	 */
+	public static final String KEY_DB_PROPERTIES_RELOAD = "db_properties_reload";
+
+	/**
+	 * Cache roles with their permissions?
+	 */
+	public static final String KEY_DB_ROLES_CACHE = "db_roles_cache";
+
+	/**
+	 * Reload interval in seconds of the cached roles.
+	 */
+	public static final String KEY_DB_ROLES_CACHE_RELOAD = "db_roles_cache_reload";
+
 	/**
 	 * Input map foe additional DB column - HTML input field mapping.
 	 */
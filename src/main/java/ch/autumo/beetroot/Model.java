@@ -17,7 +17,6 @@
  */
 package ch.autumo.beetroot;
 
-import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -37,6 +36,8 @@ import ch.autumo.beetroot.plant.Plant;
 import ch.autumo.beetroot.utils.UtilsException;
 import ch.autumo.beetroot.utils.bean.BeanField;
 import ch.autumo.beetroot.utils.bean.Beans;
+import ch.autumo.beetroot.utils.bean.EntityMetadata;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 import ch.autumo.beetroot.utils.common.Time;
 import ch.autumo.beetroot.utils.database.DB;
 import ch.autumo.beetroot.utils.security.Security;
@@ -88,23 +89,6 @@ public abstract class Model implements Entity {
 			dbPwEnc = BeetRootConfigurationManager.getInstance().getYesOrNo("db_pw_encoded");
 	}
 	
-	/**
-	 * Bean model map:
-	 * <pre>
-	 * 	table-name -&gt; 
-	 * 		[columnName -&gt; 
-	 * 			beanField [ 
-	 * 					columnName, 
-	 * 					beanAttributeName, 
-	 * 					javaType, 
-	 * 					nullable?, 
-	 * 					unique?
-	 *				]
-	 *			]
-	 * </pre>
-	 */
-    private static final Map<String, Map<String, BeanField>> MODEL = new HashMap<String, Map<String, BeanField>>();
-    
     /**
      * Stored in DB?
      */
@@ -143,9 +127,7 @@ public abstract class Model implements Entity {
      * @return true if so
      */
     public boolean isNullable(String beanPropertyName) {
-    	Beans.updateModel(this, MODEL);
-    	final String tableName = Beans.classToTable(modelClass());
-		final Map<String, BeanField> beanFields = MODEL.get(tableName);
+		final Map<String, BeanField> beanFields = EntityMetadata.of(getClass()).getBeanFields();
     	final BeanField field = beanFields.get(Beans.beanPropertyName2DbName(beanPropertyName));
     	return field.isNullable();
     }
@@ -157,9 +139,7 @@ public abstract class Model implements Entity {
      * @return true if so
      */
     public boolean isUnique(String beanPropertyName) {
-    	Beans.updateModel(this, MODEL);
-    	final String tableName = Beans.classToTable(modelClass());
-		final Map<String, BeanField> beanFields = MODEL.get(tableName);
+		final Map<String, BeanField> beanFields = EntityMetadata.of(getClass()).getBeanFields();
     	final BeanField field = beanFields.get(Beans.beanPropertyName2DbName(beanPropertyName));
     	return field.isUnique();
     }
@@ -177,45 +157,14 @@ public abstract class Model implements Entity {
 		if (fieldName.equals("id"))
 			return "" + this.getId();
 		
-		Method method;
-		String mName = null;
-		String val = null;
-		
-		if (fieldName.contains("_")) {
-			String newName = "";
-			boolean nextIsUpper = false;
-			for (char c : fieldName.toCharArray()) {
-				if (nextIsUpper) {
-					c = Character.toUpperCase(c);
-					nextIsUpper = false;
-				}
-			    if (c != '_')
-			    	newName += c;
-			    else
-			    	nextIsUpper = true;
-			}
-			fieldName = newName;
-		}
-		
-		// We also include super-classes!
-		Class<?> clz = modelClass();
-		while (clz != null) {
-			try {
-				mName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1, fieldName.length());
-				method = clz.getDeclaredMethod(mName);
-				if (method != null) { // good!
-					final Object oVal = method.invoke(this);
-					val = oVal.toString();
-				}
-				clz = null; // done!
-			} catch (Exception e) {
-				clz = clz.getSuperclass();
-				if (clz == null)
-					LOG.error("Couldn't get property '"+fieldName+"' from bean class '"+modelClass().getName()+"'!", e); // no value
-			}
+		// Getters are resolved once per bean class; we also include super-classes!
+		try {
+			final Object oVal = EntityMetadata.of(getClass()).getProperty(this, fieldName);
+			return oVal == null ? null : oVal.toString();
+		} catch (Exception e) {
+			LOG.error("Couldn't get property '"+fieldName+"' from bean class '"+modelClass().getName()+"'!", e); // no value
+			return null;
 		}
-		
-		return val;
 	}
 	
 	/**
@@ -452,14 +401,11 @@ public abstract class Model implements Entity {
 		} catch (Exception e) {
 			throw new CloneNotSupportedException(e.getMessage());
 		}
-		Beans.updateModel(this, MODEL);
 		try {
-			final String tableName = Beans.classToTable(modelClass());
-			final Map<String, BeanField> bean = MODEL.get(tableName);
-			for (Map.Entry<String, BeanField> entry : bean.entrySet()) {
-				BeanField beanField = entry.getValue();
-				final Object val = beanField.getGetterMethod().invoke(this);
-				beanField.getSetterMethod().invoke(clone, val);
+			final EntityMetadata metadata = EntityMetadata.of(getClass());
+			for (String dbName : metadata.getBeanFields().keySet()) {
+				final Object val = metadata.getValue(this, dbName);
+				metadata.setValue(clone, dbName, val);
 			}
 		} catch (Exception e) {
 			throw new CloneNotSupportedException(e.getMessage());
@@ -504,16 +450,14 @@ public abstract class Model implements Entity {
 	 */
 	private String[] getStatementParts(boolean insert) throws Exception {
 		
-		// Update beans model with this model if not already cached
-		Beans.updateModel(this, MODEL);
-		
 		String columns = "";
 		String values = "";
 		
-		final String tableName = Beans.classToTable(modelClass());
-		final Map<String, BeanField> beanFields = MODEL.get(tableName);
+		// Bean model of this model; built once
+		final EntityMetadata metadata = EntityMetadata.of(getClass());
+		final Map<String, BeanField> beanFields = metadata.getBeanFields();
 		
-		if (beanFields == null) {
+		if (beanFields.size() == 0) {
 			LOG.error("The bean model is corrupted; check if bean '"+modelClass()+"' has been generated by PLANT or at least it has one column ('@Column') defined!");
 		}
 		
@@ -535,8 +479,7 @@ public abstract class Model implements Entity {
 			
 			// 2. Values
 			String val = null;
-			final BeanField beanField = beanFields.get(dBname);
-			final Object oVal = beanField.getGetterMethod().invoke(this);
+			final Object oVal = metadata.getValue(this, dBname);
 			if (oVal != null)
 				val = oVal.toString();
 
@@ -590,7 +533,7 @@ public abstract class Model implements Entity {
      * @return name of corresponding table.
      */
     public String getTableName() {
-        return Beans.classToTable(modelClass());
+        return EntityMetadata.of(modelClass()).getTableName();
     }
 
     /**
@@ -768,6 +711,17 @@ public abstract class Model implements Entity {
     	return new HashMap<String, Class<?>>(); // empty map
     }
     
+    /**
+     * Get the row mapper of this entity if any, usually
+     * generated by the {@link Plant} generator; without
+     * row mapper, properties are accessed by method handles.
+     * 
+     * @return row mapper or null
+     */
+    public RowMapper<? extends Model> rowMapper() {
+    	return null;
+    }
+    
 	/**
 	 * Get model base class, usually overwritten
 	 * by the {@link Plant} generator.
@@ -29,6 +29,7 @@ import org.nanohttpd.protocols.http.content.CookieHandler;
 
 import ch.autumo.beetroot.handler.users.User;
 import ch.autumo.beetroot.utils.common.LowerCaseList;
+import ch.autumo.beetroot.utils.security.IdTokens;
 import ch.autumo.beetroot.utils.system.GUIDGenerator;
 
 /**
@@ -55,6 +56,10 @@ public class Session implements Serializable {
 	private transient Map<String, String> secData = new ConcurrentHashMap<>();
 	// ID conversion map - not stored.
 	private transient Map<String, Serializable> idData = new ConcurrentHashMap<>();
+	// Key for stateless ID tokens - not stored, derived again.
+	private transient volatile byte[] idKey = null;
+	// Epoch of stateless ID tokens; tokens of former epochs are invalid.
+	private int idEpoch = 0;
 	// Additional mappings that should not be stored.
 	private transient Map<String, Serializable> additionalMapData = new ConcurrentHashMap<>();
 
@@ -66,6 +71,8 @@ public class Session implements Serializable {
 	
 	private final Date created;
 	private long sessionRefreshTime;
+	// Last access by any request; used for evicting idle sessions
+	private transient volatile long lastAccessTime;
 
 	
 	/**
@@ -77,6 +84,7 @@ public class Session implements Serializable {
 		this.sessionID = sessionID;
 		this.sessionRefreshTime = System.currentTimeMillis();
 		this.created = new Date(this.sessionRefreshTime);
+		this.lastAccessTime = this.sessionRefreshTime;
 	}
 	
 	/**
@@ -95,6 +103,24 @@ public class Session implements Serializable {
 		this.sessionRefreshTime = System.currentTimeMillis();
 	}
 	
+	/**
+	 * Mark this session as accessed by a request. Other than
+	 * {@link #refresh()}, this is done for every request, also
+	 * for static resources.
+	 */
+	public void access() {
+		this.lastAccessTime = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Time of the last access by any request.
+	 * 
+	 * @return last access time in milliseconds
+	 */
+	public long getLastAccessTime() {
+		return this.lastAccessTime;
+	}
+	
 	/**
 	 * Checks if this session is older than the timeout.
 	 * 
@@ -109,11 +135,16 @@ public class Session implements Serializable {
 	 * the original ID given. 2 ID pairs are 2 ID key/value pairs.
 	 * Modify ID is the protected web GUI id.
 	 * 
+	 * If stateless IDs are enabled ('web_stateless_ids'), the modify ID
+	 * is an authenticated token and nothing is stored in the session.
+	 * 
 	 * @param origId original id (database id)
 	 * @param entity entity
 	 * @return newly created modify ID
 	 */
 	public String createIdPair(int origId, String entity) {
+		if (IdTokens.isEnabled())
+			return IdTokens.encode(this.getIdKey(), entity, origId);
 		final String oldMod = getModifyId(origId, entity);
 		if (oldMod != null) {
 			removeIds(oldMod, entity);
@@ -132,6 +163,8 @@ public class Session implements Serializable {
 	 * @return modified ID
 	 */
 	public String getModifyId(int origId, String entity) {
+		if (IdTokens.isEnabled())
+			return IdTokens.encode(this.getIdKey(), entity, origId);
 		return (String) idData.get("modifyId-" + entity + "-" + origId);
 	}
 
@@ -143,12 +176,28 @@ public class Session implements Serializable {
 	 * @return original database ID
 	 */
 	public int getOrigId(String modifyId, String entity) {
+		if (IdTokens.isEnabled())
+			return IdTokens.decode(this.getIdKey(), entity, modifyId);
 		final Object oid = idData.get("origId-" + entity + "-"+ modifyId);
 		if (oid == null)
 			return -1;
 		return ((Integer) oid).intValue();
 	}
 	
+	private byte[] getIdKey() {
+		byte[] key = this.idKey;
+		if (key == null) {
+			synchronized (this) {
+				key = this.idKey;
+				if (key == null) {
+					key = IdTokens.sessionKey(this.sessionID, this.idEpoch);
+					this.idKey = key;
+				}
+			}
+		}
+		return key;
+	}
+	
 	/**
 	 * Remove an ID pair by given modify ID and entity.
 	 * 
@@ -162,10 +211,15 @@ public class Session implements Serializable {
 	}
 	
 	/**
-	 * Clean session from all ID pairs!
+	 * Clean session from all ID pairs! Stateless ID tokens handed
+	 * out so far become invalid.
 	 */
 	public synchronized void removeAllIds() {
 		idData.clear();
+		if (IdTokens.isEnabled()) {
+			idEpoch++;
+			idKey = null;
+		}
 	}
 
 	/**
@@ -225,7 +279,7 @@ public class Session implements Serializable {
 		this.user = null;
 		this.userId = -1;
 		this.data.clear();
-		this.idData.clear();
+		this.removeAllIds();
 		this.secData.clear();
 		this.additionalMapData.clear();
 		if (this.settingsMap != null)
@@ -644,6 +698,7 @@ public class Session implements Serializable {
         this.secData = new ConcurrentHashMap<>();
     	this.additionalMapData = new ConcurrentHashMap<>();
         this.user = (User) Model.read(User.class, this.userId);
+        this.lastAccessTime = System.currentTimeMillis();
     }
     
 }
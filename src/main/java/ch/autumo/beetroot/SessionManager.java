@@ -25,6 +25,9 @@ import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -56,8 +59,9 @@ public class SessionManager {
 	private static final String DEFAULT_TOKEN_COOKIE_NAME = "__SESSION_ID__";
 	private static final int DEFAULT_USER_SESSION_EXPIRATION = 1; // days
 	private static final int DEFAULT_USER_SESSION_TIMEOUT = 1800; // seconds
+	private static final int MIN_SWEEP_INTERVAL = 60; // seconds
 	
-	private static Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	private static volatile Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
 	
 	/** Web container session id name / name of the session cookie, some java web containers use 'JSESSIONID'. */
 	private static String webContainerSessionIdName = DEFAULT_TOKEN_COOKIE_NAME;
@@ -68,6 +72,9 @@ public class SessionManager {
     
 	private static long sessionTimeoutInMillis = -1;
 	
+	// Background sweeper evicting idle sessions
+	private ScheduledExecutorService sweeper = null;
+	
 	
 	/**
 	 * Private constructor.
@@ -93,10 +100,105 @@ public class SessionManager {
 	        if (userSessionTimeout < 600)
 	        	userSessionTimeout = 600;
 	        sessionTimeoutInMillis = userSessionTimeout * 1000;
+	        instance.startSweeper();
         }
         return instance;
     }
 	
+	/**
+	 * Start the background sweeper that evicts idle sessions; 
+	 * runs every 10th of the session timeout, at least every
+	 * minute. Does nothing if it is already running.
+	 */
+	public synchronized void startSweeper() {
+		if (sweeper != null)
+			return;
+		final long interval = Math.max(MIN_SWEEP_INTERVAL, userSessionTimeout / 10);
+		sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r, "beetRoot-SessionSweeper");
+			t.setDaemon(true);
+			return t;
+		});
+		sweeper.scheduleWithFixedDelay(() -> {
+			try {
+				this.sweep();
+			} catch (Exception e) {
+				LOG.warn("Session sweep failed!", e);
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+		LOG.debug("Session sweeper started; interval: {}s, session timeout: {}s.", interval, userSessionTimeout);
+	}
+	
+	/**
+	 * Stop the background sweeper.
+	 */
+	public synchronized void stopSweeper() {
+		if (sweeper == null)
+			return;
+		sweeper.shutdownNow();
+		sweeper = null;
+		LOG.debug("Session sweeper stopped.");
+	}
+	
+	/**
+	 * Evict all sessions that haven't been accessed within the 
+	 * session timeout. Called periodically by the sweeper.
+	 * 
+	 * @return amount of evicted sessions
+	 */
+	public int sweep() {
+		return this.sweep(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Evict all sessions that haven't been accessed within the 
+	 * session timeout relative to the given time.
+	 * 
+	 * @param now reference time in milliseconds
+	 * @return amount of evicted sessions
+	 */
+	int sweep(long now) {
+		int evicted = 0;
+		int anonymous = 0;
+		for (Session s : sessions.values()) {
+			if (s.getLastAccessTime() + sessionTimeoutInMillis < now) {
+				// Only remove if it is still the same session
+				if (sessions.remove(s.getSessionId(), s))
+					evicted++;
+			} else if (s.getUserId() == -1) {
+				anonymous++;
+			}
+		}
+		if (evicted > 0)
+			LOG.info("Session sweep: live={}, evicted={}, anonymous={}.", sessions.size(), evicted, anonymous);
+		else
+			LOG.debug("Session sweep: live={}, evicted={}, anonymous={}.", sessions.size(), evicted, anonymous);
+		return evicted;
+	}
+	
+	/**
+	 * Amount of sessions currently held in memory.
+	 * 
+	 * @return amount of live sessions
+	 */
+	public int getLiveSessionCount() {
+		return sessions.size();
+	}
+	
+	/**
+	 * Amount of sessions currently held in memory without a logged-in user.
+	 * 
+	 * @return amount of anonymous sessions
+	 */
+	public int getAnonymousSessionCount() {
+		int anonymous = 0;
+		for (Session s : sessions.values()) {
+			if (s.getUserId() == -1)
+				anonymous++;
+		}
+		return anonymous;
+	}
+	
 	/**
 	 * Generate a new session token ID.
 	 * 
@@ -130,7 +232,7 @@ public class SessionManager {
 	 * @param session HTTP session
 	 * @return session user session
 	 */
-	public synchronized Session findOrCreate(BeetRootHTTPSession session) {
+	public Session findOrCreate(BeetRootHTTPSession session) {
 		final CookieHandler cookies = session.getCookies();
 		String token = null;
 		if (session.getExternalSessionId() != null) {
@@ -143,11 +245,10 @@ public class SessionManager {
 			token = this.newSessionToken();
 			cookies.set(webContainerSessionIdName, token, userSessionExpirationDays);
 		}
-		if (!sessions.containsKey(token)) {
-			sessions.put(token, new Session(token));
-			//LOG.debug("New session token: "+ token);
-		}
-		return sessions.get(token);
+		// Atomic; concurrent requests with the same token get the same session
+		final Session userSession = sessions.computeIfAbsent(token, Session::new);
+		userSession.access();
+		return userSession;
 	}
 	
 	/**
@@ -189,7 +290,8 @@ public class SessionManager {
 	        if (!SESSION_DATA.exists())
 	            return;
 	        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(SESSION_DATA))) {
-	            sessions = (Map<String, Session>) ois.readObject();
+	            // Stored as a plain map, see 'save'
+	            sessions = new ConcurrentHashMap<String, Session>((Map<String, Session>) ois.readObject());
 	        } catch (Exception e) {
 	            LOG.warn("Failed to load sessions from file storage; try deleting '{}' and restart the server.", SESSION_DATA, e);
 	            throw e;
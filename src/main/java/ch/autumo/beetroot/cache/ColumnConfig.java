@@ -0,0 +1,322 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * Parsed 'columns.cfg' of an entity for one template action
+ * (e.g. 'index.html') and one language; column labels are
+ * translated at parse time. Immutable and shared between
+ * handlers.
+ */
+public final class ColumnConfig {
+
+	private static final String ACTION_INDEX_JSON	= "index.json";
+	private static final String ACTION_INDEX		= "index.html";
+	private static final String ACTION_VIEW			= "view.html";
+	private static final String ACTION_EDIT			= "edit.html";
+	private static final String ACTION_ADD			= "add.html";
+
+	private final TreeMap<Integer, String> lines = new TreeMap<>();
+	private final SortedMap<Integer, String> linesView = Collections.unmodifiableSortedMap(lines);
+	private final List<Column> columns;
+	private final Map<String, String> initialValues = new HashMap<>();
+	private final Map<String, String> initialValuesView = Collections.unmodifiableMap(initialValues);
+	private final String uniqueFields[];
+	private final List<String> transientFields;
+	private final String columnsForSql;
+	private final String columnsForModification;
+	private final long lastModified;
+
+
+	/**
+	 * Parse columns configuration.
+	 *
+	 * @param text content of 'columns.cfg'
+	 * @param htmlAction template action, e.g. 'index.html', or null
+	 * @param translator translates language variables in column labels
+	 * @param lastModified last modification of the configuration file
+	 * @throws IOException IO exception
+	 */
+	public ColumnConfig(String text, String htmlAction, UnaryOperator<String> translator, long lastModified) throws IOException {
+
+		this.lastModified = lastModified;
+
+		final List<String> fallBackList = new ArrayList<>();
+		String unique[] = null;
+		List<String> trans = null;
+		int l = 0;
+
+		try (BufferedReader br = new BufferedReader(new StringReader(text))) {
+			String line;
+		    LOOP: while ((line = br.readLine()) != null) {
+
+		    	final String cfgLine = line.trim();
+		    	if (cfgLine.length() == 0 || cfgLine.indexOf("=") == -1)
+		    		continue LOOP;
+
+	    		String configPair[] = cfgLine.split("=");
+	    		configPair[0] = configPair[0].trim();
+	    		if (configPair.length > 1)
+	    			configPair[1] = configPair[1].trim();
+	    		else {
+	    			configPair = new String[] {configPair[0], null};
+	    		}
+
+	    		// First check for special configurations
+	    		// unique
+	    		if (configPair[0].equals("unique")) {
+	    			if (configPair[1] == null || configPair[1].equals(""))
+		    			continue LOOP;
+	    			unique = configPair[1].replace(" ", "").split(",");
+	    			continue LOOP;
+	    		}
+	    		// transient (not store in DB)
+	    		if (configPair[0].equals("transient")) {
+	    			if (configPair[1] == null || configPair[1].equals(""))
+		    			continue LOOP;
+	    			trans = Arrays.asList(configPair[1].replace(" ", "").split(","));
+	    			continue LOOP;
+	    		}
+
+	    		// If no config prefix is defined, all config lines are taken!
+	    		// This makes sense if one doesn't need to distinguish between
+	    		// list and single records data field names aka GUI column names.
+	    		if (htmlAction == null)
+	    			continue LOOP;
+
+	    		boolean added = false;
+	    		switch (htmlAction) {
+	    			case ACTION_INDEX_JSON:
+		    			if (configPair[0].startsWith("list_json.")) {
+		    		    	lines.put(Integer.valueOf(++l), configPair[0].substring(10) + "=" + configPair[1]);
+		    		    	added = true;
+		    			}
+		    			break;
+	    			case ACTION_INDEX:
+		    			if (configPair[0].startsWith("list.")) {
+		    		    	lines.put(Integer.valueOf(++l), configPair[0].substring(5) + "=" + translator.apply(configPair[1]));
+		    		    	added = true;
+		    			}
+		    			break;
+	    			case ACTION_VIEW:
+		    			if (configPair[0].startsWith("view.")) {
+		    		    	lines.put(Integer.valueOf(++l), configPair[0].substring(5) + "=" + translator.apply(configPair[1]));
+		    		    	added = true;
+		    			}
+		    			break;
+	    			case ACTION_EDIT:
+		    			if (configPair[0].startsWith("edit.")) {
+		    		    	lines.put(Integer.valueOf(++l), configPair[0].substring(5) + "=" + translator.apply(configPair[1]));
+		    		    	added = true;
+		    			}
+		    			break;
+	    			case ACTION_ADD:
+		    			if (configPair[0].startsWith("add.")) {
+		    		    	lines.put(Integer.valueOf(++l), configPair[0].substring(4) + "=" + translator.apply(configPair[1]));
+		    		    	added = true;
+		    			} else if (configPair[0].startsWith("init.")) { // initial values set in add template :)
+		    				initialValues.put(configPair[0].substring(5), configPair[1]);
+		    		    	added = true;
+		    			}
+		    			break;
+	    			default:
+	    		    	lines.put(Integer.valueOf(++l), cfgLine);
+	    		    	added = true;
+	    		    	break;
+	    		}
+
+	    		if (!added)
+	    			fallBackList.add(cfgLine);
+		    }
+		}
+
+	    // no prefixes have been used -> column config is valid for all handlers!
+	    if (lines.size() == 0) {
+	    	for (String cfgLine : fallBackList)
+		    	lines.put(Integer.valueOf(++l), cfgLine);
+	    }
+
+		this.uniqueFields = unique == null ? new String[] {} : unique;
+		this.transientFields = trans == null ? Collections.emptyList() : Collections.unmodifiableList(trans);
+
+		// Pre-split columns
+		final List<Column> cols = new ArrayList<>(lines.size());
+		for (String cfgLine : lines.values()) {
+			final String params[] = cfgLine.split("=");
+			final String name = params[0].trim();
+			cols.add(new Column(name, params.length > 1 ? params[1] : null, transientFields.contains(name)));
+		}
+		this.columns = Collections.unmodifiableList(cols);
+
+		this.columnsForSql = this.sqlFields(false);
+		this.columnsForModification = this.sqlFields(true);
+	}
+
+	private String sqlFields(boolean forModification) {
+		final StringBuilder queryfields = new StringBuilder();
+		for (Column col : columns) {
+			if (col.isTransient()) {
+				if (!forModification) {
+					if (queryfields.length() > 0)
+						queryfields.append(", ");
+					queryfields.append("'TRANSIENT'");
+				}
+				continue;
+			}
+			if (queryfields.length() > 0)
+				queryfields.append(", ");
+			queryfields.append(col.getName());
+		}
+		return queryfields.toString();
+	}
+
+	/**
+	 * Get configuration lines: '[1] [colName1=GUI Col Name 1]', ...
+	 * Unmodifiable and shared by all handlers of the entity.
+	 *
+	 * @return configuration lines
+	 */
+	public SortedMap<Integer, String> getLines() {
+		return linesView;
+	}
+
+	/**
+	 * Get columns in configuration order.
+	 *
+	 * @return columns
+	 */
+	public List<Column> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get column; index starts with 1 as in 'columns.cfg'!
+	 *
+	 * @param idx column index
+	 * @return column
+	 */
+	public Column getColumn(int idx) {
+		return columns.get(idx - 1);
+	}
+
+	/**
+	 * Get initial values of add templates ('init.' lines).
+	 * Unmodifiable and shared by all handlers of the entity.
+	 *
+	 * @return initial values
+	 */
+	public Map<String, String> getInitialValues() {
+		return initialValuesView;
+	}
+
+	/**
+	 * Get unique fields.
+	 *
+	 * @return unique fields
+	 */
+	public String[] getUniqueFields() {
+		return uniqueFields;
+	}
+
+	/**
+	 * Get transient fields.
+	 *
+	 * @return transient fields
+	 */
+	public List<String> getTransientFields() {
+		return transientFields;
+	}
+
+	/**
+	 * Get SQL fields, e.g. 'col1, col2, col3'.
+	 *
+	 * @param forModification true for updates/inserts; transient fields are left out,
+	 * 			otherwise they are selected as 'TRANSIENT'
+	 * @return SQL query fields
+	 */
+	public String getColumnsForSql(boolean forModification) {
+		return forModification ? columnsForModification : columnsForSql;
+	}
+
+	/**
+	 * Last modification of the configuration file when it has been parsed.
+	 *
+	 * @return last modification
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Column descriptor.
+	 */
+	public static final class Column {
+
+		private final String name;
+		private final String label;
+		private final boolean isTransient;
+
+		private Column(String name, String label, boolean isTransient) {
+			this.name = name;
+			this.label = label;
+			this.isTransient = isTransient;
+		}
+
+		/**
+		 * Column name.
+		 *
+		 * @return column name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * GUI column name; can contain HTML.
+		 *
+		 * @return GUI column name
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Transient column, not stored in DB?
+		 *
+		 * @return true if so
+		 */
+		public boolean isTransient() {
+			return isTransient;
+		}
+	}
+
+}
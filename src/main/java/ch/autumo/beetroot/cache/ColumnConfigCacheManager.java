@@ -0,0 +1,148 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Column configuration cache manager. Holds parsed 'columns.cfg'
+ * configurations keyed by the full path of their file cache, the
+ * template action and the language of the column labels. A column
+ * configuration is re-parsed when the underlying file has been
+ * modified.
+ */
+public class ColumnConfigCacheManager {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(ColumnConfigCacheManager.class.getName());
+
+	private static ColumnConfigCacheManager instance = null;
+
+	private Map<String, ColumnConfig> cacheMap = new ConcurrentHashMap<String, ColumnConfig>();
+
+	// Resolved 'columns.cfg' file caches by lookup key
+	private Map<String, FileCache> resolvedMap = new ConcurrentHashMap<String, FileCache>();
+
+
+	/**
+	 * Private constructor.
+	 */
+	private ColumnConfigCacheManager() {
+	}
+
+	/**
+	 * Column configuration cache manager.
+	 *
+	 * @return column configuration cache manager
+	 */
+	public static synchronized ColumnConfigCacheManager getInstance() {
+		if (instance == null)
+			instance = new ColumnConfigCacheManager();
+		return instance;
+    }
+
+	/**
+	 * Get a previously resolved file cache for a lookup key,
+	 * e.g. entity and language. Evicted file caches are not
+	 * returned; they must be resolved again.
+	 *
+	 * @param lookupKey lookup key
+	 * @return file cache or null
+	 */
+	public FileCache getResolved(String lookupKey) {
+		final FileCache fc = resolvedMap.get(lookupKey);
+		if (fc == null)
+			return null;
+		if (fc.isEvicted()) {
+			resolvedMap.remove(lookupKey, fc);
+			return null;
+		}
+		return fc;
+	}
+
+	/**
+	 * Remember the resolved file cache for a lookup key.
+	 *
+	 * @param lookupKey lookup key
+	 * @param fileCache file cache
+	 */
+	public void putResolved(String lookupKey, FileCache fileCache) {
+		resolvedMap.put(lookupKey, fileCache);
+	}
+
+	/**
+	 * Find or parse the column configuration of the given file cache.
+	 *
+	 * @param fileCache file cache of 'columns.cfg'
+	 * @param htmlAction template action, e.g. 'index.html', or null
+	 * @param lang language of the column labels
+	 * @param translator translates language variables in column labels
+	 * @return column configuration
+	 * @throws IOException IO exception
+	 */
+	public ColumnConfig findOrParse(FileCache fileCache, String htmlAction, String lang, UnaryOperator<String> translator) throws IOException {
+
+		final String key = fileCache.getFullPath() + "|" + htmlAction + "|" + lang;
+		final ColumnConfig config = cacheMap.get(key);
+		if (config != null && !fileCache.isModified() && config.getLastModified() == fileCache.getLastModified())
+			return config;
+
+		final String text;
+		if (fileCache.isCached()) {
+			text = fileCache.getTextData();
+		} else {
+			final InputStream is = fileCache.getData();
+			try {
+				text = IOUtils.toString(is, fileCache.getEncoding());
+			} finally {
+				is.close();
+			}
+		}
+
+		final ColumnConfig parsed = new ColumnConfig(text, htmlAction, translator, fileCache.getLastModified());
+		cacheMap.put(key, parsed);
+		LOG.trace("Column configuration parsed: {}, columns={}", key, parsed.getColumns().size());
+		return parsed;
+	}
+
+	/**
+	 * Amount of parsed column configurations.
+	 *
+	 * @return amount of column configurations
+	 */
+	public int size() {
+		return cacheMap.size();
+	}
+
+	/**
+	 * Clear cache.
+	 */
+	public void clear() {
+		cacheMap.clear();
+		resolvedMap.clear();
+	}
+
+}
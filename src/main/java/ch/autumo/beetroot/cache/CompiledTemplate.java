@@ -0,0 +1,235 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled template. A template is parsed once into an immutable
+ * list of line nodes. Every node knows in advance which block tag
+ * (e.g. '{#head}') it holds, if it contains variables, language
+ * translations, "if"-section tags or link references, so the
+ * template engine doesn't need to re-scan the text on every request.
+ */
+public final class CompiledTemplate {
+
+	/** No block tag. */
+	public static final int BLOCK_NONE		= 0;
+	/** Block tag '{#head}'. */
+	public static final int BLOCK_HEAD		= 1;
+	/** Block tag '{#header}'. */
+	public static final int BLOCK_HEADER	= 2;
+	/** Block tag '{#langmenu}'. */
+	public static final int BLOCK_LANGMENU	= 3;
+	/** Block tag '{#menu}'. */
+	public static final int BLOCK_MENU		= 4;
+	/** Block tag '{#thememenu}'. */
+	public static final int BLOCK_THEMEMENU	= 5;
+	/** Block tag '{#message}'. */
+	public static final int BLOCK_MESSAGE	= 6;
+	/** Block tag '{#template}'. */
+	public static final int BLOCK_TEMPLATE	= 7;
+	/** Block tag '{#footer}'. */
+	public static final int BLOCK_FOOTER	= 8;
+	/** Block tag '{#dialog}'. */
+	public static final int BLOCK_DIALOG	= 9;
+	/** Block tag '{#scriptXXX}'. */
+	public static final int BLOCK_SCRIPT	= 10;
+
+	// Block tags in the order they are evaluated by the template engine
+	private static final String BLOCK_TAGS[] = new String[] {
+			null,
+			"{#head}",
+			"{#header}",
+			"{#langmenu}",
+			"{#menu}",
+			"{#thememenu}",
+			"{#message}",
+			"{#template}",
+			"{#footer}",
+			"{#dialog}",
+			"{#script"
+		};
+
+	private final List<Line> lines;
+	private final int length;
+	private final long lastModified;
+
+
+	/**
+	 * Compile a template.
+	 *
+	 * @param text template text
+	 * @param lastModified modification time of the template source
+	 */
+	public CompiledTemplate(String text, long lastModified) {
+		final List<Line> l = new ArrayList<>();
+		final int len = text.length();
+		int start = 0;
+		int i = 0;
+		// Same line separators as 'java.util.Scanner#nextLine'
+		while (i < len) {
+			final char c = text.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085') {
+				l.add(new Line(text.substring(start, i)));
+				if (c == '\r' && i + 1 < len && text.charAt(i + 1) == '\n')
+					i++;
+				start = i + 1;
+			}
+			i++;
+		}
+		if (start < len)
+			l.add(new Line(text.substring(start)));
+		this.lines = Collections.unmodifiableList(l);
+		this.length = len;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Get all line nodes.
+	 *
+	 * @return line nodes
+	 */
+	public List<Line> getLines() {
+		return lines;
+	}
+
+	/**
+	 * Template text length; useful for pre-sizing output buffers.
+	 *
+	 * @return text length
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Modification time of the template source this template has been
+	 * compiled from.
+	 *
+	 * @return last modification time
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Get block tag of a block type.
+	 *
+	 * @param block block type, e.g. {@link #BLOCK_HEAD}
+	 * @return block tag, e.g. '{#head}'
+	 */
+	public static String getBlockTag(int block) {
+		return BLOCK_TAGS[block];
+	}
+
+
+	/**
+	 * Immutable template line node.
+	 */
+	public static final class Line {
+
+		private final String text;
+		private final int block;
+		private final boolean variables;
+		private final boolean languageVariables;
+		private final boolean ifTags;
+		private final boolean references;
+
+		private Line(String text) {
+			this.text = text;
+			int b = BLOCK_NONE;
+			if (text.indexOf("{#") != -1) {
+				LOOP: for (int i = 1; i < BLOCK_TAGS.length; i++) {
+					if (text.contains(BLOCK_TAGS[i])) {
+						b = i;
+						break LOOP;
+					}
+				}
+			}
+			this.block = b;
+			this.variables = text.indexOf("{$") != -1;
+			this.languageVariables = text.indexOf("{$l.") != -1;
+			this.ifTags = text.indexOf("$if-") != -1 || text.indexOf("$endif-") != -1;
+			this.references = text.indexOf("href=\"") != -1 || text.indexOf("src=\"") != -1
+					|| text.indexOf("action=\"") != -1 || text.indexOf("location='") != -1;
+		}
+
+		/**
+		 * Line text.
+		 *
+		 * @return text
+		 */
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * Block type of this line, {@link CompiledTemplate#BLOCK_NONE} if none.
+		 *
+		 * @return block type
+		 */
+		public int getBlock() {
+			return block;
+		}
+
+		/**
+		 * Does this line contain template variables ('{$...}')?
+		 *
+		 * @return true if so
+		 */
+		public boolean hasVariables() {
+			return variables;
+		}
+
+		/**
+		 * Does this line contain language variables ('{$l.*}')?
+		 *
+		 * @return true if so
+		 */
+		public boolean hasLanguageVariables() {
+			return languageVariables;
+		}
+
+		/**
+		 * Does this line contain "if"-section tags ('$if-...', '$endif-...')?
+		 *
+		 * @return true if so
+		 */
+		public boolean hasIfTags() {
+			return ifTags;
+		}
+
+		/**
+		 * Does this line contain link references ('href', 'src', 'action' or 'location')?
+		 *
+		 * @return true if so
+		 */
+		public boolean hasReferences() {
+			return references;
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+
+}
@@ -0,0 +1,378 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.Model;
+import ch.autumo.beetroot.annotations.Cached;
+import ch.autumo.beetroot.utils.bean.EntityMetadata;
+
+
+/**
+ * Entity cache manager. Read-through cache for entities read by ID
+ * ('DB.selectRecord'); opt-in per entity, either by the annotation
+ * {@link Cached} or by listing the table in 'db_entity_cache'. Each
+ * table has its own region bounded by size (LRU) and time-to-live.
+ * Entities are invalidated when they are updated or deleted through
+ * beetRoot. Cached entities are never handed out; callers always
+ * get copies they can modify.
+ */
+public class EntityCacheManager {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(EntityCacheManager.class.getName());
+
+	private static EntityCacheManager instance = null;
+
+	private static final int DEFAULT_SIZE = 1000;
+	private static final int DEFAULT_TTL = 300; // seconds
+
+	/** Entities that aren't cached */
+	private static final Region NONE = new Region(null, 0, 0);
+
+	private final Set<String> tables;
+	private final int defaultSize;
+	private final int defaultTtl;
+
+	private final Map<Class<?>, Region> regionsByClass = new ConcurrentHashMap<>();
+	private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Private constructor.
+	 */
+	private EntityCacheManager() {
+		if (BeetRootConfigurationManager.isInitialized()) {
+			tables = new HashSet<>(Arrays.asList(BeetRootConfigurationManager.getInstance().getSepValuesNoWarn(Constants.KEY_DB_ENTITY_CACHE)));
+			defaultSize = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_DB_ENTITY_CACHE_SIZE, DEFAULT_SIZE);
+			defaultTtl = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_DB_ENTITY_CACHE_TTL, DEFAULT_TTL);
+		} else {
+			tables = new HashSet<>();
+			defaultSize = DEFAULT_SIZE;
+			defaultTtl = DEFAULT_TTL;
+		}
+	}
+
+	/**
+	 * Entity cache manager.
+	 *
+	 * @return entity cache manager
+	 */
+	public static synchronized EntityCacheManager getInstance() {
+		if (instance == null)
+			instance = new EntityCacheManager();
+		return instance;
+    }
+
+	private Region region(Class<?> entityClass) {
+		Region region = regionsByClass.get(entityClass);
+		if (region == null) {
+			final String table = EntityMetadata.of(entityClass).getTableName();
+			final Cached cached = entityClass.getAnnotation(Cached.class);
+			if (cached != null || tables.contains(table)) {
+				final int size = cached != null && cached.maxSize() >= 0 ? cached.maxSize() : defaultSize;
+				final int ttl = cached != null && cached.ttl() >= 0 ? cached.ttl() : defaultTtl;
+				region = regions.computeIfAbsent(table, t -> new Region(t, size, ttl * 1000L));
+				LOG.debug("Entity cache for table '{}': max. size={}, ttl={}s.", table, size, ttl);
+			} else {
+				region = NONE;
+			}
+			regionsByClass.put(entityClass, region);
+		}
+		return region;
+	}
+
+	/**
+	 * Is the entity class cached?
+	 *
+	 * @param entityClass entity class
+	 * @return true if so
+	 */
+	public boolean isCached(Class<?> entityClass) {
+		return region(entityClass) != NONE;
+	}
+
+	/**
+	 * Get a copy of a cached entity.
+	 *
+	 * @param entityClass entity class
+	 * @param id ID
+	 * @return copy of the cached entity or null if it isn't cached
+	 */
+	public Model get(Class<?> entityClass, int id) {
+		final Region region = region(entityClass);
+		if (region == NONE)
+			return null;
+		final Model cached = region.get(id);
+		if (cached == null)
+			return null;
+		try {
+			return copy(cached);
+		} catch (Exception e) {
+			LOG.warn("Couldn't copy cached entity '" + entityClass.getName() + "' with id = '" + id + "'!", e);
+			region.remove(id);
+			return null;
+		}
+	}
+
+	/**
+	 * Get the invalidation stamp of the entity class; it must be
+	 * taken before an entity is loaded and passed to
+	 * {@link #put(Class, Model, long)}, so entities loaded during
+	 * an invalidation aren't cached.
+	 *
+	 * @param entityClass entity class
+	 * @return invalidation stamp
+	 */
+	public long stamp(Class<?> entityClass) {
+		return region(entityClass).stamp.get();
+	}
+
+	/**
+	 * Cache a copy of the loaded entity.
+	 *
+	 * @param entityClass entity class
+	 * @param entity loaded entity
+	 * @param stamp invalidation stamp taken before loading
+	 */
+	public void put(Class<?> entityClass, Model entity, long stamp) {
+		final Region region = region(entityClass);
+		if (region == NONE || entity == null)
+			return;
+		try {
+			region.put(entity.getId(), copy(entity), stamp);
+		} catch (Exception e) {
+			LOG.warn("Couldn't cache entity '" + entityClass.getName() + "' with id = '" + entity.getId() + "'!", e);
+		}
+	}
+
+	/**
+	 * Invalidate a cached entity.
+	 *
+	 * @param entityClass entity class
+	 * @param id ID
+	 */
+	public void invalidate(Class<?> entityClass, int id) {
+		if (entityClass == null || regions.isEmpty())
+			return;
+		this.invalidate(EntityMetadata.of(entityClass).getTableName(), id);
+	}
+
+	/**
+	 * Invalidate a cached entity.
+	 *
+	 * @param table table DB name
+	 * @param id ID
+	 */
+	public void invalidate(String table, int id) {
+		if (regions.isEmpty())
+			return;
+		final Region region = regions.get(table);
+		if (region != null)
+			region.remove(id);
+	}
+
+	/**
+	 * Invalidate all cached entities of a table.
+	 *
+	 * @param table table DB name
+	 */
+	public void invalidate(String table) {
+		if (regions.isEmpty())
+			return;
+		final Region region = regions.get(table);
+		if (region != null)
+			region.clear();
+	}
+
+	/**
+	 * Get the hit ratio of a table.
+	 *
+	 * @param table table DB name
+	 * @return hit ratio between 0.0 and 1.0; 0.0 if there were no lookups
+	 */
+	public double getHitRatio(String table) {
+		final Region region = regions.get(table);
+		return region == null ? 0.0 : ratio(region.hits.sum(), region.misses.sum());
+	}
+
+	/**
+	 * Get the hit ratio of all tables.
+	 *
+	 * @return hit ratio between 0.0 and 1.0; 0.0 if there were no lookups
+	 */
+	public double getHitRatio() {
+		return ratio(this.getHits(), this.getMisses());
+	}
+
+	/**
+	 * Amount of cache hits of all tables.
+	 *
+	 * @return cache hits
+	 */
+	public long getHits() {
+		long hits = 0;
+		for (Region region : regions.values())
+			hits += region.hits.sum();
+		return hits;
+	}
+
+	/**
+	 * Amount of cache misses of all tables.
+	 *
+	 * @return cache misses
+	 */
+	public long getMisses() {
+		long misses = 0;
+		for (Region region : regions.values())
+			misses += region.misses.sum();
+		return misses;
+	}
+
+	/**
+	 * Amount of cached entities of all tables.
+	 *
+	 * @return amount of cached entities
+	 */
+	public int size() {
+		int size = 0;
+		for (Region region : regions.values())
+			size += region.size();
+		return size;
+	}
+
+	/**
+	 * Clear cache; statistics are kept.
+	 */
+	public void clear() {
+		for (Region region : regions.values())
+			region.clear();
+		LOG.debug("Entity cache cleared; hits={}, misses={}, hit ratio={}.", this.getHits(), this.getMisses(), this.getHitRatio());
+	}
+
+	private static double ratio(long hits, long misses) {
+		final long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	private static Model copy(Model entity) throws Exception {
+		final EntityMetadata metadata = EntityMetadata.of(entity.getClass());
+		final Model copy = (Model) metadata.newInstance();
+		for (String dbName : metadata.getBeanFields().keySet())
+			metadata.setValue(copy, dbName, metadata.getValue(entity, dbName));
+		copy.setId(entity.getId());
+		copy.setStored(entity.isStored());
+		return copy;
+	}
+
+
+	/**
+	 * Cache region of one table.
+	 */
+	private static final class Region {
+
+		private final String table;
+		private final int maxSize;
+		private final long ttl;
+		private final LinkedHashMap<Integer, Entry> entries;
+		private final AtomicLong stamp = new AtomicLong();
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		private Region(String table, int maxSize, long ttl) {
+			this.table = table;
+			this.maxSize = maxSize;
+			this.ttl = ttl;
+			// Access order -> LRU
+			this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+					return size() > Region.this.maxSize;
+				}
+			};
+		}
+
+		private synchronized Model get(int id) {
+			final Integer key = Integer.valueOf(id);
+			final Entry entry = entries.get(key);
+			if (entry == null) {
+				misses.increment();
+				return null;
+			}
+			if (entry.expires < System.currentTimeMillis()) {
+				entries.remove(key);
+				misses.increment();
+				return null;
+			}
+			hits.increment();
+			return entry.entity;
+		}
+
+		private synchronized void put(int id, Model entity, long loadStamp) {
+			// Invalidated while loading?
+			if (maxSize == 0 || ttl <= 0 || stamp.get() != loadStamp)
+				return;
+			entries.put(Integer.valueOf(id), new Entry(entity, System.currentTimeMillis() + ttl));
+		}
+
+		private synchronized void remove(int id) {
+			stamp.incrementAndGet();
+			entries.remove(Integer.valueOf(id));
+		}
+
+		private synchronized void clear() {
+			stamp.incrementAndGet();
+			entries.clear();
+		}
+
+		private synchronized int size() {
+			return entries.size();
+		}
+
+		@Override
+		public String toString() {
+			return "Region[table=" + table + ", size=" + size() + "]";
+		}
+	}
+
+	/**
+	 * Cached entity.
+	 */
+	private static final class Entry {
+		private final Model entity;
+		private final long expires;
+		private Entry(Model entity, long expires) {
+			this.entity = entity;
+			this.expires = expires;
+		}
+	}
+
+}
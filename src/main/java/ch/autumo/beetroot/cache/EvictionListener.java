@@ -0,0 +1,40 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+
+/**
+ * File cache eviction listener.
+ * See {@link FileCacheManager#addEvictionListener(EvictionListener)}.
+ */
+public interface EvictionListener {
+
+	/** Evicted, because space was needed for another file. */
+	public static final int CAUSE_SIZE		= 1;
+	/** Evicted, because the file doesn't exist anymore. */
+	public static final int CAUSE_DELETED	= 2;
+
+	/**
+	 * Called after a file cache has been evicted from the file cache manager.
+	 *
+	 * @param fileCache evicted file cache
+	 * @param cause eviction cause, see {@link #CAUSE_SIZE} and {@link #CAUSE_DELETED}
+	 */
+	public void evicted(FileCache fileCache, int cause);
+
+}
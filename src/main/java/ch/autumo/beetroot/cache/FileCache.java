@@ -18,14 +18,34 @@
 package ch.autumo.beetroot.cache;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.nanohttpd.protocols.http.IHTTPSession;
 import org.nanohttpd.protocols.http.content.ContentType;
 import org.nanohttpd.protocols.http.response.Response;
 import org.nanohttpd.protocols.http.response.Status;
@@ -55,19 +75,48 @@ public class FileCache  {
 	}
 	public static final long BUFFER_LIMIT; 
 	
+	// compression
+	static {
+		COMPRESSION = BeetRootConfigurationManager.getInstance().getYesOrNo("ws_compression", "yes");
+		COMPRESSION_MIN_SIZE = BeetRootConfigurationManager.getInstance().getInt("ws_compression_min_size", 512);
+	}
+	/** Serve compressed variants? */
+	public static final boolean COMPRESSION; 
+	/** Minimum file size for compressed variants. */
+	public static final int COMPRESSION_MIN_SIZE; 
+	
+	private static final byte NOT_COMPRESSIBLE[] = new byte[0];
+	
+	// client cache policies per mime group in seconds
+	static {
+		MAX_AGE_TEXT = BeetRootConfigurationManager.getInstance().getInt("ws_cache_max_age_text", 0);
+		MAX_AGE_OCTET = BeetRootConfigurationManager.getInstance().getInt("ws_cache_max_age_octet", 86400);
+		MAX_AGE_ARCHIVE = BeetRootConfigurationManager.getInstance().getInt("ws_cache_max_age_archive", 0);
+	}
+	/** Max-age for text files; negative: no 'Cache-Control' header. */
+	public static final int MAX_AGE_TEXT; 
+	/** Max-age for octet files; negative: no 'Cache-Control' header. */
+	public static final int MAX_AGE_OCTET; 
+	/** Max-age for archive files; negative: no 'Cache-Control' header. */
+	public static final int MAX_AGE_ARCHIVE; 
+	
+	private static final String ETAG_GZIP_SUFFIX = "-gz";
+	
 	private File file = null;
 	private Path filePath = null;
 	private long fileSize = 0;
-	private long cacheSize = 0;
+	private volatile long cacheSize = 0;
 	private ContentType contentType = null;
 	private String mimeType = null;
 	
-	private byte buffer[] = null;		// this OR 
-	private char textBuffer[] = null;	// this
+	private volatile byte buffer[] = null;		// data; text encoded
+	private volatile String text = null;		// lazily decoded text
+	private volatile byte gzipBuffer[] = null;	// lazily compressed data
+	private volatile String etag = null;		// lazily computed strong validator
 	
-	private long lastModified = -1;
+	private volatile long lastModified = -1;
 	
-	private boolean isCached = false;
+	private volatile boolean isCached = false;
 	private boolean forcedCaching = false;
 	
 	private boolean isArchive = false;
@@ -75,6 +124,14 @@ public class FileCache  {
 	private boolean isText = false;
 	
 	private boolean isResource = false;
+	private String resourcePath = null;
+	private String resourceEtag = null;
+	
+	// Eviction and statistics
+	private volatile long lastAccess = 0;
+	private volatile boolean isEvicted = false;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
 	
 	
 	/**
@@ -117,18 +174,10 @@ public class FileCache  {
 		this.fileSize = file.length();
 		this.lastModified = file.lastModified();
 
-		if (!this.isArchive && fileSize <= BUFFER_LIMIT && FileCacheManager.getInstance().hasSpace(0, this.fileSize)) {
+		if (!this.isArchive && fileSize <= BUFFER_LIMIT && FileCacheManager.getInstance().makeSpace(this, 0, this.fileSize)) {
 
-			final FileInputStream fis = new FileInputStream(file);
-			if (isBinary)
-				buffer = IOUtils.toByteArray(fis, fileSize);
-			if (isText)
-				textBuffer = IOUtils.toCharArray(fis, contentType.getEncoding());
-			
-			fis.close();
-			
-			FileCacheManager.getInstance().updateCacheSize(0, this.fileSize);			
-			this.cacheSize = this.fileSize;
+			// Text is kept encoded too; space has been reserved already
+			this.buffer = this.readReserved();
 			this.isCached = true;
 		}
 	}
@@ -177,17 +226,10 @@ public class FileCache  {
 		this.fileSize = file.length();
 		this.lastModified = file.lastModified();
 
-		if (!this.isArchive && (this.forcedCaching || this.fileSize <= BUFFER_LIMIT) && FileCacheManager.getInstance().hasSpace(0, this.fileSize)) {
+		if (!this.isArchive && (this.forcedCaching || this.fileSize <= BUFFER_LIMIT) && FileCacheManager.getInstance().makeSpace(this, 0, this.fileSize)) {
 		
-			final FileInputStream fis = new FileInputStream(file);
-			if (isBinary)
-				buffer = IOUtils.toByteArray(fis, fileSize);
-			if (isText)
-				textBuffer = IOUtils.toCharArray(fis, contentType.getEncoding());
-			fis.close();
-			
-			FileCacheManager.getInstance().updateCacheSize(0, this.fileSize);			
-			this.cacheSize = this.fileSize;
+			// Text is kept encoded too; space has been reserved already
+			this.buffer = this.readReserved();
 			this.isCached = true;
 		}
 	}
@@ -238,6 +280,7 @@ public class FileCache  {
 		this.isText = MIME.isMimeTypeText(mimeType); 
 		
 		this.isResource = true;
+		this.resourcePath = resourcePath;
 		
 		// we swallow the bitter pill for text- and octet-based files within JAR's
 		// and always cache atm. We also ignore size! 
@@ -247,66 +290,163 @@ public class FileCache  {
 			final InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath);
 			if (is == null)
 				throw new IOException("Resource '" + resourcePath + "' cannot be read.");
-				
-			if (isBinary) {
-				buffer = IOUtils.toByteArray(is);
-				this.cacheSize = buffer.length;
-			}
-			if (isText) {
-				textBuffer = IOUtils.toCharArray(is, contentType.getEncoding());
-				this.cacheSize = textBuffer.length;
-			}
+			
+			// Text is kept encoded too
+			buffer = IOUtils.toByteArray(is);
+			this.cacheSize = buffer.length;
 			is.close();
 			
-			FileCacheManager.getInstance().updateCacheSize(0, this.cacheSize);			
+			FileCacheManager.getInstance().updateCacheSize(this, 0, this.cacheSize);			
 			this.fileSize = this.cacheSize;
 			this.isCached = true;
+		} else {
+			// Not buffered; validated by the resource itself if possible
+			this.resourceEtag = resourceETag(resourcePath);
 		}
 		
 		this.lastModified = 1;		
 	}
 	
 	/**
-	 * Get data as stream from file or cache, depending of the buffer size.
+	 * Build the entity tag of a resource that isn't buffered out of the
+	 * CRC of its archive entry or the last modification of its file, so 
+	 * it changes with the resource.
 	 * 
-	 * @return data stream
+	 * @param resourcePath resource path
+	 * @return entity tag or null if the resource doesn't provide any of these
+	 */
+	private static String resourceETag(String resourcePath) {
+		final URL url = Thread.currentThread().getContextClassLoader().getResource(resourcePath);
+		if (url == null)
+			return null;
+		try {
+			if (url.getProtocol().equals("file")) {
+				final File file = new File(url.toURI());
+				return "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(file.length()) + "\"";
+			}
+			final URLConnection connection = url.openConnection();
+			if (connection instanceof JarURLConnection) {
+				// Own JAR file instance, so it can be closed
+				connection.setUseCaches(false);
+				try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+					final JarEntry entry = jar.getJarEntry(((JarURLConnection) connection).getEntryName());
+					if (entry != null && entry.getCrc() != -1)
+						return "\"" + Long.toHexString(entry.getCrc()) + "-" + Long.toHexString(entry.getSize()) + "\"";
+				}
+			}
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			LOG.trace("No entity tag for resource '{}': {}", resourcePath, e.getMessage());
+		}
+		return null;
+	}
+	
+	/**
+	 * Re-cache the file if it has been modified and return the current buffer.
+	 * 
+	 * @return current buffer or null if not cached
 	 * @throws IOException IO exception
 	 */
-    public InputStream getData() throws IOException {
-    	
+	private byte[] currentBuffer() throws IOException {
+		
     	final long newLastModified = isResource ? -1 : file.lastModified();
-    	
+    	if (newLastModified > lastModified)
+    		this.reCache(newLastModified);
+    	final byte data[] = this.buffer;
+    	return isCached ? data : null;
+	}
+	
+	/**
+	 * Read the file into a new buffer after its space has been reserved;
+	 * the reservation is released again if the file cannot be read.
+	 * 
+	 * @return buffer
+	 * @throws IOException IO exception
+	 */
+	private byte[] readReserved() throws IOException {
+		try (final FileInputStream fis = new FileInputStream(file)) {
+			return IOUtils.toByteArray(fis, fileSize);
+		} catch (IOException e) {
+			FileCacheManager.getInstance().updateCacheSize(this, this.fileSize, 0);
+			this.buffer = null;
+			this.isCached = false;
+			throw e;
+		}
+	}
+	
+	private synchronized void reCache(long newLastModified) throws IOException {
+		
+    	// Another thread might have been faster
     	if (newLastModified > lastModified) {
     		
     		final long oldCacheSize = this.cacheSize;
     		this.fileSize = this.file.length();
     		this.lastModified = newLastModified;
+    		this.text = null;
+    		this.gzipBuffer = null;
+    		this.etag = null;
     		
-    		if (!this.isArchive && (forcedCaching || fileSize <= BUFFER_LIMIT) && FileCacheManager.getInstance().hasSpace(oldCacheSize, this.fileSize)) {
+    		if (!this.isArchive && (forcedCaching || fileSize <= BUFFER_LIMIT) && FileCacheManager.getInstance().makeSpace(this, oldCacheSize, this.fileSize)) {
     		
-    			final FileInputStream fis = new FileInputStream(file);
-    			this.buffer = IOUtils.toByteArray(fis, fileSize);
-    			this.cacheSize = buffer.length;    			
-    			fis.close();
-    			FileCacheManager.getInstance().updateCacheSize(oldCacheSize, this.cacheSize);			
+    			this.buffer = this.readReserved();
     			this.isCached = true;
     			LOG.trace("FileCache re-cached: " + this.getFullPath() + ", cachesize="+FileCacheManager.getInstance().getSize());
     			
     		} else {
-    			FileCacheManager.getInstance().updateCacheSize(oldCacheSize, 0);			
-    			this.cacheSize = 0;
+    			FileCacheManager.getInstance().updateCacheSize(this, oldCacheSize, 0);			
+    			this.buffer = null;
     			this.isCached = false;
     		}
     	} 
+	}
+	
+	/**
+	 * Open a stream on the file or resource itself.
+	 * 
+	 * @return data stream
+	 * @throws IOException IO exception
+	 */
+	private InputStream openStream() throws IOException {
+		if (isResource) {
+			final InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath);
+			if (is == null)
+				throw new IOException("Resource '" + resourcePath + "' cannot be read.");
+			return is;
+		}
+		return new FileInputStream(file);
+	}
+	
+	/**
+	 * Get data as stream from file or cache, depending of the buffer size.
+	 * 
+	 * @return data stream
+	 * @throws IOException IO exception
+	 */
+    public InputStream getData() throws IOException {
     	
-		if (isCached)
-	    	return new ByteArrayInputStream(buffer);
+    	final byte data[] = this.currentBuffer();
+		this.count(data != null);
+		if (data != null)
+	    	return new ByteArrayInputStream(data);
 		else
-			return new FileInputStream(file);
+			return this.openStream();
     }	
 
     /**
-     * Get text data.
+     * Get cached data as read-only buffer; text is delivered encoded
+     * (see {@link #getEncoding()}). The buffer is shared, not copied.
+     * 
+     * @return cached data or null if not cached
+	 * @throws IOException IO exception
+     */
+    public ByteBuffer getDataBuffer() throws IOException {
+    	final byte data[] = this.currentBuffer();
+		this.count(data != null);
+    	return data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Get text data. The text is decoded once and kept
+     * as long as the file isn't modified.
      * 
      * @return cached data as text or null
 	 * @throws IOException IO exception
@@ -319,36 +459,38 @@ public class FileCache  {
 		if (!isCached)
     		throw new IOException("FileCache: getTextData() caleld on a non-cached file, first check if it's cached!");
 
-    	
-    	final long newLastModified = isResource ? -1 : file.lastModified();
-    	
-    	if (newLastModified > lastModified) {
-    		
-    		final long oldCacheSize = this.cacheSize;
-    		this.fileSize = this.file.length();
-    		this.lastModified = newLastModified;
-    		
-    		if (!this.isArchive && (forcedCaching || fileSize <= BUFFER_LIMIT) && FileCacheManager.getInstance().hasSpace(oldCacheSize, this.fileSize)) {
-    		
-    			final FileInputStream fis = new FileInputStream(file);
-				this.textBuffer = IOUtils.toCharArray(fis, contentType.getEncoding());
-    			this.cacheSize = textBuffer.length;
-    			FileCacheManager.getInstance().updateCacheSize(oldCacheSize, this.cacheSize);			
-    			fis.close();
-    			this.isCached = true;
-    			LOG.trace("FileCache re-cached: " + this.getFullPath() + ", cachesize="+FileCacheManager.getInstance().getSize());
-    		} else {
-    			FileCacheManager.getInstance().updateCacheSize(oldCacheSize, 0);			
-    			this.cacheSize = 0;
-    			this.isCached = false;
-    		}
-    	} 
-    	
-    	return new String(textBuffer);
+		final byte data[] = this.currentBuffer();
+		this.count(data != null);
+		if (data == null) {
+			// Modified and too large to be cached anymore
+			try (InputStream is = this.openStream()) {
+				return IOUtils.toString(is, this.getEncoding());
+			}
+		}
+		
+		String t = this.text;
+		if (t == null) {
+			t = new String(data, this.getEncoding());
+			synchronized (this) {
+				// Only keep it, if the buffer hasn't been replaced meanwhile 
+				if (this.buffer == data)
+					this.text = t;
+			}
+		}
+    	return t;
+    }
+    
+    private void count(boolean hit) {
+    	if (hit)
+    		hits.increment();
+    	else
+    		misses.increment();
+    	FileCacheManager.getInstance().count(hit);
     }
     
     /**
-     * Create response out of cached data.
+     * Create response out of cached data. Cached text is delivered
+     * with the bytes encoded at caching time, no re-encoding is done.
      * 
      * @param mimeType mime type
      * @return response
@@ -356,19 +498,25 @@ public class FileCache  {
      */
     public Response createResponse(String mimeType) throws IOException {
 
+    	final byte data[] = this.currentBuffer();
+		this.count(data != null);
+    	
     	if (isText) {
     		
-    		if (isCached)
-    			return Response.newFixedLengthResponse(Status.OK, mimeType, getTextData());
+    		final String contentTypeHeader = mimeType.contains("charset") ? mimeType : mimeType + "; charset=" + this.getEncoding();
+    		if (data != null)
+    			return Response.newFixedLengthResponse(Status.OK, contentTypeHeader, new ByteArrayInputStream(data), data.length);
     		else
-    			return Response.newFixedLengthResponse(Status.OK, mimeType, this.getData(), -1);
+    			return Response.newFixedLengthResponse(Status.OK, contentTypeHeader, this.openStream(), -1);
     		
     	} else {
     		
-        	if (isResource)
-        		return Response.newFixedLengthResponse(Status.OK, mimeType, this.getData(), -1);
+    		if (data != null)
+    			return Response.newFixedLengthResponse(Status.OK, mimeType, new ByteArrayInputStream(data), data.length);
+    		else if (isResource)
+        		return Response.newFixedLengthResponse(Status.OK, mimeType, this.openStream(), -1);
         	else
-            	return Response.newFixedLengthResponse(Status.OK, mimeType, this.getData(), this.fileSize);
+            	return Response.newFixedLengthResponse(Status.OK, mimeType, this.openStream(), this.fileSize);
         	
     	}
     }
@@ -383,6 +531,230 @@ public class FileCache  {
     	return this.createResponse(this.contentType.getContentType());
     }
     
+    /**
+     * Create response out of cached data for the given request: Conditional 
+     * requests ('If-None-Match', 'If-Modified-Since') for unchanged files 
+     * are answered with '304 Not Modified' and no body; otherwise the 
+     * gzip-compressed variant is served if the mime type is compressible 
+     * and the client accepts it. Validators ('ETag', 'Last-Modified') and 
+     * the 'Cache-Control' policy of the mime group are added.
+     * 
+     * @param session HTTP session
+     * @return response
+	 * @throws IOException IO exception
+     */
+    public Response createResponse(IHTTPSession session) throws IOException {
+    	
+    	final Map<String, String> headers = session.getHeaders();
+    	final String acceptEncoding = headers.get("accept-encoding");
+    	final boolean compressible = COMPRESSION && MIME.isMimeTypeCompressible(this.getMimeType());
+    	final String etag = this.getETag();
+    	
+    	final Response response;
+    	final boolean gzip;
+    	if (this.isNotModified(etag, headers.get("if-none-match"), headers.get("if-modified-since"))) {
+    		response = Response.newFixedLengthResponse(Status.NOT_MODIFIED, null, new byte[0]);
+    		response.setUseGzip(false);
+    		gzip = compressible && acceptsGzip(acceptEncoding);
+    		if (compressible)
+    			response.addHeader("Vary", "Accept-Encoding");
+    	} else {
+    		response = this.createResponse(this.contentType.getContentType(), acceptEncoding);
+    		gzip = "gzip".equals(response.getHeader("Content-Encoding"));
+    	}
+    	
+    	// Each representation has its own strong validator
+    	if (etag != null)
+    		response.addHeader("ETag", gzip ? etag.substring(0, etag.length() - 1) + ETAG_GZIP_SUFFIX + "\"" : etag);
+    	if (!isResource)
+    		response.addHeader("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+    	final int maxAge = isArchive ? MAX_AGE_ARCHIVE : (isBinary ? MAX_AGE_OCTET : MAX_AGE_TEXT);
+    	if (maxAge == 0)
+    		response.addHeader("Cache-Control", "no-cache");
+    	else if (maxAge > 0)
+    		response.addHeader("Cache-Control", "max-age=" + maxAge);
+    	return response;
+    }
+    
+    /**
+     * Is the client's copy still valid? 'If-None-Match' takes precedence
+     * over 'If-Modified-Since'.
+     * 
+     * @param etag current entity tag or null
+     * @param ifNoneMatch 'If-None-Match' header value or null
+     * @param ifModifiedSince 'If-Modified-Since' header value or null
+     * @return true if so
+     */
+    boolean isNotModified(String etag, String ifNoneMatch, String ifModifiedSince) {
+    	if (ifNoneMatch != null) {
+    		if (etag == null)
+    			return false;
+    		final String gzipEtag = etag.substring(0, etag.length() - 1) + ETAG_GZIP_SUFFIX + "\"";
+    		for (String tag : ifNoneMatch.split(",")) {
+    			tag = tag.trim();
+    			if (tag.startsWith("W/"))
+    				tag = tag.substring(2);
+    			if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag))
+    				return true;
+    		}
+    		return false;
+    	}
+    	if (ifModifiedSince != null && !isResource) {
+    		try {
+    			final long since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+    			// HTTP dates have a resolution of seconds
+    			return lastModified / 1000 <= since;
+    		} catch (DateTimeParseException e) {
+    			LOG.trace("Invalid 'If-Modified-Since' header value: {}", ifModifiedSince);
+    		}
+    	}
+    	return false;
+    }
+    
+    /**
+     * Get the strong validator (quoted entity tag) of the current data. 
+     * It is a content hash for cached data, otherwise it is built out of 
+     * the last modification and the file size; computed once as long as 
+     * the file isn't modified. Resources that aren't cached have one only
+     * if their archive entry or file provides it.
+     * 
+     * @return entity tag or null if there's none
+	 * @throws IOException IO exception
+     */
+    public String getETag() throws IOException {
+    	// Re-caches if modified
+    	final byte data[] = this.currentBuffer();
+    	if (isResource && isArchive)
+    		return this.resourceEtag;
+    	String e = this.etag;
+    	if (e == null) {
+    		final long lm = this.lastModified;
+    		if (data != null) {
+    			try {
+    				e = "\"" + new BigInteger(1, MessageDigest.getInstance("MD5").digest(data)).toString(16) + "\"";
+    			} catch (NoSuchAlgorithmException ex) {
+    				throw new IOException("Couldn't build entity tag for '" + this.getFullPath() + "'!", ex);
+    			}
+    		} else {
+    			e = "\"" + Long.toHexString(lm) + "-" + Long.toHexString(this.fileSize) + "\"";
+    		}
+    		synchronized (this) {
+    			// Only keep it, if the file hasn't been re-cached meanwhile 
+    			if (this.buffer == data && this.lastModified == lm)
+    				this.etag = e;
+    		}
+    	}
+    	return e;
+    }
+    
+    /**
+     * Create response out of cached data and serve the gzip-compressed 
+     * variant if the mime type is compressible and the accepted encodings 
+     * contain gzip. The compressed variant is created once and kept as 
+     * long as the file isn't modified.
+     * 
+     * @param mimeType mime type
+     * @param acceptEncoding value of the 'Accept-Encoding' request header or null
+     * @return response
+	 * @throws IOException IO exception
+     */
+    public Response createResponse(String mimeType, String acceptEncoding) throws IOException {
+    	
+    	if (!COMPRESSION || !MIME.isMimeTypeCompressible(this.getMimeType()))
+    		return this.createResponse(mimeType);
+    	
+    	if (acceptsGzip(acceptEncoding)) {
+	    	final byte data[] = this.currentBuffer();
+	    	final byte gzip[] = data == null ? null : this.compressedBuffer(data);
+	    	if (gzip != null) {
+	    		this.count(true);
+	    		final String contentTypeHeader = !isText || mimeType.contains("charset") ? mimeType : mimeType + "; charset=" + this.getEncoding();
+	    		final Response response = Response.newFixedLengthResponse(Status.OK, contentTypeHeader, new ByteArrayInputStream(gzip), gzip.length);
+	    		// Already compressed, no compression on the fly
+	    		response.setUseGzip(false);
+	    		response.addHeader("Content-Encoding", "gzip");
+	    		response.addHeader("Vary", "Accept-Encoding");
+	    		return response;
+	    	}
+    	}
+    	
+    	final Response response = this.createResponse(mimeType);
+		response.addHeader("Vary", "Accept-Encoding");
+    	return response;
+    }
+    
+    /**
+     * Get the gzip-compressed variant of the given buffer; created once. 
+     * 
+     * @param data current buffer
+     * @return compressed data or null if compression isn't worth it
+	 * @throws IOException IO exception
+     */
+    private byte[] compressedBuffer(byte data[]) throws IOException {
+    	
+    	byte gzip[] = this.gzipBuffer;
+    	if (gzip == null) {
+    		synchronized (this) {
+    			// Another thread might have been faster or the file has been re-cached
+    			gzip = this.gzipBuffer;
+    			if (gzip == null && this.buffer == data) {
+    				gzip = compress(data);
+    				final long oldCacheSize = this.cacheSize;
+    				if (gzip != NOT_COMPRESSIBLE) {
+    					if (!FileCacheManager.getInstance().makeSpace(this, oldCacheSize, oldCacheSize + gzip.length)) {
+    						// No space; try again later
+    						return null;
+    					}
+    				}
+    				this.gzipBuffer = gzip;
+    			}
+    		}
+    	}
+    	return gzip == null || gzip == NOT_COMPRESSIBLE ? null : gzip;
+    }
+    
+    private static byte[] compress(byte data[]) throws IOException {
+    	if (data.length < COMPRESSION_MIN_SIZE)
+    		return NOT_COMPRESSIBLE;
+    	final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2);
+    	try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+    		gos.write(data);
+    	}
+    	final byte gzip[] = bos.toByteArray();
+    	return gzip.length < data.length ? gzip : NOT_COMPRESSIBLE;
+    }
+    
+    /**
+     * Does the 'Accept-Encoding' header value contain gzip 
+     * (or '*') without a quality value of 0?
+     * 
+     * @param acceptEncoding 'Accept-Encoding' header value or null
+     * @return true if so
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+    	if (acceptEncoding == null)
+    		return false;
+    	for (String coding : acceptEncoding.split(",")) {
+    		final String parts[] = coding.split(";");
+    		final String name = parts[0].trim();
+    		if (!name.equalsIgnoreCase("gzip") && !name.equals("*"))
+    			continue;
+    		if (parts.length > 1) {
+    			final String q = parts[1].trim();
+    			if (q.startsWith("q=")) {
+    				try {
+    					if (Double.parseDouble(q.substring(2).trim()) <= 0)
+    						continue;
+    				} catch (NumberFormatException e) {
+    					continue;
+    				}
+    			}
+    		}
+    		return true;
+    	}
+    	return false;
+    }
+    
     /**
      * Return mime type if any
      * 
@@ -408,11 +780,13 @@ public class FileCache  {
     }
     
     /**
-     * Get file full pat.
+     * Get file full path or the resource path if it is a resource.
      *  
      * @return file path
      */
     public String getFullPath() {
+    	if (isResource)
+    		return this.resourcePath;
     	return this.filePath.toAbsolutePath().toString();
     }
     
@@ -439,6 +813,15 @@ public class FileCache  {
 		return isCached;
 	}
 
+	/**
+	 * Has the file been modified since it has been (re-)cached?
+	 * Resources are immutable, hence never modified.
+	 * @return true if so
+	 */
+	public boolean isModified() {
+		return !isResource && file.lastModified() > lastModified;
+	}
+
 	/**
 	 * When was the file last modified or '-1' if it is a resource.
 	 * @return last modification of file or -1
@@ -488,12 +871,78 @@ public class FileCache  {
 		return isResource;
 	}
 	
+	/**
+	 * Mark as accessed; used for least-recently-used eviction.
+	 */
+	void access() {
+		this.lastAccess = System.nanoTime();
+	}
+	
+	/**
+	 * Time of last access; relative value ({@link System#nanoTime()}) 
+	 * only useful for comparison with other file caches.
+	 * @return last access
+	 */
+	long getLastAccess() {
+		return lastAccess;
+	}
+	
+	/**
+	 * Mark as evicted; evicted file caches don't count towards
+	 * the cache size anymore.
+	 */
+	void evicted() {
+		this.isEvicted = true;
+	}
+	
+	/**
+	 * Set amount of bytes this file cache uses in the cache;
+	 * called by the file cache manager only.
+	 * @param cacheSize cache size
+	 */
+	void cacheSize(long cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+	
+	/**
+	 * Has this file cache been evicted from the file cache manager?
+	 * @return true if so
+	 */
+	public boolean isEvicted() {
+		return isEvicted;
+	}
+	
+	/**
+	 * Get amount of bytes this file cache uses in the cache.
+	 * @return cache size
+	 */
+	public long getCacheSize() {
+		return cacheSize;
+	}
+	
+	/**
+	 * Get amount of data requests served from the buffer.
+	 * @return hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Get amount of data requests served from disk.
+	 * @return misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+	
 	/**
 	 * Clear cache if cached.
 	 */
 	public void clear() {
-		if (textBuffer != null)
-			textBuffer = null;
+		text = null;
+		gzipBuffer = null;
+		etag = null;
 		if (buffer != null)
 			buffer = null;
 	}
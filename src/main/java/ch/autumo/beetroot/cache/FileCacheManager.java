@@ -24,10 +24,14 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +41,10 @@ import ch.autumo.beetroot.Constants;
 
 
 /**
- * File cache manager.
+ * File cache manager. When the maximum cache size is reached, the
+ * buffers of the least recently used file caches are evicted to make
+ * space for new or changed files; eviction weighs entries by their
+ * buffer size.
  */
 public class FileCacheManager {
 
@@ -62,6 +69,11 @@ public class FileCacheManager {
 	
 	private long size = 0;
 	
+	private final List<EvictionListener> evictionListeners = new CopyOnWriteArrayList<EvictionListener>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	
 
 	/**
 	 * Private constructor.
@@ -119,6 +131,196 @@ public class FileCacheManager {
 		return size;
 	}
 
+	/**
+	 * Update cache size for a file cache and record the new amount of bytes
+	 * it uses; the cache size is left untouched if the file cache has been
+	 * evicted already.
+	 * 
+	 * @param fileCache file cache
+	 * @param oldValueInBytes old amount of bytes that have been used
+	 * 			for the same resource
+	 * @param newValueInBytes new amount of bytes that is used by the
+	 * 			changed resource
+	 * @return new cache size;
+	 */
+	synchronized long updateCacheSize(FileCache fileCache, long oldValueInBytes, long newValueInBytes) {
+		fileCache.cacheSize(newValueInBytes);
+		if (fileCache.isEvicted())
+			return size;
+		return this.updateCacheSize(oldValueInBytes, newValueInBytes);
+	}
+	
+	/**
+	 * Make space in the cache for a new or changed file. If there isn't
+	 * enough space left, the least recently used file caches are evicted
+	 * until the new buffer fits. On success, the space is reserved right
+	 * away: the cache size and the file cache's size are updated already,
+	 * so concurrent callers cannot claim the same space.
+	 * 
+	 * @param fileCache file cache that requests space; never evicted
+	 * @param oldValueInBytes old amount of bytes that have been used
+	 * 			for the same resource
+	 * @param newValueInBytes new amount of bytes that is used by the
+	 * 			changed resource
+	 * @return true, if there is space (now), otherwise false
+	 */
+	synchronized boolean makeSpace(FileCache fileCache, long oldValueInBytes, long newValueInBytes) {
+		if (fileCache.isEvicted())
+			return false;
+		if (this.hasSpace(oldValueInBytes, newValueInBytes)) {
+			this.updateCacheSize(fileCache, oldValueInBytes, newValueInBytes);
+			return true;
+		}
+		if (newValueInBytes >= MAX_CACHE_SIZE)
+			return false;
+		
+		// Least recently used first
+		final List<Map.Entry<String, FileCache>> candidates = new ArrayList<>();
+		for (Map.Entry<String, FileCache> entry : cacheMap.entrySet()) {
+			final FileCache fc = entry.getValue();
+			if (fc != fileCache && fc.getCacheSize() > 0)
+				candidates.add(entry);
+		}
+		candidates.sort((e1, e2) -> Long.compare(e1.getValue().getLastAccess(), e2.getValue().getLastAccess()));
+		
+		final Iterator<Map.Entry<String, FileCache>> iterator = candidates.iterator();
+		while (!this.hasSpace(oldValueInBytes, newValueInBytes) && iterator.hasNext()) {
+			final Map.Entry<String, FileCache> entry = iterator.next();
+			this.evict(entry.getKey(), entry.getValue(), EvictionListener.CAUSE_SIZE);
+		}
+		if (!this.hasSpace(oldValueInBytes, newValueInBytes))
+			return false;
+		this.updateCacheSize(fileCache, oldValueInBytes, newValueInBytes);
+		return true;
+	}
+	
+	/**
+	 * Evict a file cache.
+	 * 
+	 * @param key cache key
+	 * @param fileCache file cache
+	 * @param cause eviction cause
+	 */
+	private synchronized void evict(String key, FileCache fileCache, int cause) {
+		if (!cacheMap.remove(key, fileCache))
+			return;
+		// Buffers are not cleared, because the file cache might be in use still
+		size -= fileCache.getCacheSize();
+		fileCache.evicted();
+		evictions.increment();
+		LOG.trace("FileCache evicted: " + fileCache.getFullPath() + ", cause=" + cause + ", cachesize=" + this.size);
+		for (EvictionListener listener : evictionListeners) {
+			try {
+				listener.evicted(fileCache, cause);
+			} catch (Exception e) {
+				LOG.warn("Eviction listener failed!", e);
+			}
+		}
+	}
+	
+	/**
+	 * Add an eviction listener that is called after a file cache has been evicted.
+	 * 
+	 * @param listener eviction listener
+	 */
+	public void addEvictionListener(EvictionListener listener) {
+		evictionListeners.add(listener);
+	}
+	
+	/**
+	 * Remove an eviction listener.
+	 * 
+	 * @param listener eviction listener
+	 */
+	public void removeEvictionListener(EvictionListener listener) {
+		evictionListeners.remove(listener);
+	}
+	
+	/**
+	 * Count a cache hit or miss.
+	 * 
+	 * @param hit true for a hit, false for a miss
+	 */
+	void count(boolean hit) {
+		if (hit)
+			hits.increment();
+		else
+			misses.increment();
+	}
+	
+	/**
+	 * Get amount of data requests served from cache buffers.
+	 * 
+	 * @return hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Get amount of data requests served from disk.
+	 * 
+	 * @return misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+	
+	/**
+	 * Get amount of evicted file caches.
+	 * 
+	 * @return evictions
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+	
+	/**
+	 * Get a file cache from the map and mark it as accessed.
+	 * 
+	 * @param key cache key
+	 * @return file cache or null
+	 */
+	private FileCache lookup(String key) {
+		final FileCache fc = cacheMap.get(key);
+		if (fc != null)
+			fc.access();
+		return fc;
+	}
+	
+	/**
+	 * Evict the file cache of a deleted file if present.
+	 * 
+	 * @param key cache key
+	 */
+	private void evictDeleted(String key) {
+		final FileCache fc = cacheMap.get(key);
+		if (fc != null)
+			this.evict(key, fc, EvictionListener.CAUSE_DELETED);
+	}
+	
+	/**
+	 * Add a new file cache; if another thread has been faster, the
+	 * already cached file cache is returned.
+	 * 
+	 * @param key cache key
+	 * @param fileCache new file cache
+	 * @return file cache
+	 */
+	private FileCache add(String key, FileCache fileCache) {
+		final FileCache existing = cacheMap.putIfAbsent(key, fileCache);
+		if (existing != null) {
+			// Release the space reserved by the new one
+			this.updateCacheSize(fileCache, fileCache.getCacheSize(), 0);
+			fileCache.evicted();
+			existing.access();
+			return existing;
+		}
+		fileCache.access();
+		LOG.trace("FileCache added: " + fileCache.getFullPath() + ", cachesize="+this.size);
+		return fileCache;
+	}
+
 	/**
 	 * Find or create file cache.
 	 * 
@@ -196,19 +398,17 @@ public class FileCacheManager {
 		// Pre-check
 		final Path absPath = path.toAbsolutePath();
 		if (!absPath.toFile().exists()) {
+			// Don't keep caches of deleted files
+			this.evictDeleted(absPath.toString());
 			throw new FileNotFoundException("File not found: " + absPath.toString());
 		}		
 		
 		final String pstr = absPath.toString();
-		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(pstr);
-		if (!cacheMap.containsKey(pstr)) {
-		
-			final FileCache fc = new FileCache(path.toAbsolutePath(), mimeType);
-			cacheMap.put(pstr, fc);
-			LOG.trace("FileCache added: " + fc.getFullPath() + ", cachesize="+this.size);
+		final FileCache fc = this.lookup(pstr);
+		if (fc != null)
 			return fc;
-		}
-		return cacheMap.get(pstr);
+		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(pstr);
+		return this.add(pstr, new FileCache(absPath, mimeType));
 	}
 
 	/**
@@ -225,19 +425,17 @@ public class FileCacheManager {
 		// Pre-check
 		final Path absPath = path.toAbsolutePath();
 		if (!absPath.toFile().exists()) {
+			// Don't keep caches of deleted files
+			this.evictDeleted(absPath.toString());
 			throw new FileNotFoundException("File not found: " + absPath.toString());
 		}		
 		
-		final String pstr = path.toAbsolutePath().toString();
-		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(pstr);
-		if (!cacheMap.containsKey(pstr)) {
-		
-			final FileCache fc = new FileCache(path.toAbsolutePath(), mimeType, forcedCaching);
-			cacheMap.put(pstr, fc);
-			LOG.trace("FileCache added: " + fc.getFullPath() + ", cachesize="+this.size);
+		final String pstr = absPath.toString();
+		final FileCache fc = this.lookup(pstr);
+		if (fc != null)
 			return fc;
-		}
-		return cacheMap.get(pstr);
+		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(pstr);
+		return this.add(pstr, new FileCache(absPath, mimeType, forcedCaching));
 	}
 	
 	/**
@@ -251,14 +449,11 @@ public class FileCacheManager {
 		
 		// No pre-check here
 		final String rstr = "resource:" + resourcePath; 
-		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(resourcePath);
-		if (!cacheMap.containsKey(rstr)) {
-			final FileCache fc = new FileCache(resourcePath, mimeType);
-			LOG.trace("FileCache added: " + fc.getFullPath() + ", cachesize="+this.size);
-			cacheMap.put(rstr, fc);
+		final FileCache fc = this.lookup(rstr);
+		if (fc != null)
 			return fc;
-		}
-		return cacheMap.get(rstr);
+		final String mimeType = Constants.MIME_TYPES_MAP.getContentType(resourcePath);
+		return this.add(rstr, new FileCache(resourcePath, mimeType));
 	}
 
 	/**
@@ -291,6 +486,7 @@ public class FileCacheManager {
 		for (Iterator<String> iterator = set.iterator(); iterator.hasNext();) {
 			final String key = (String) iterator.next();
 			final FileCache fCache = cacheMap.get(key);
+			fCache.evicted();
 			fCache.clear();
 		}
 		this.size = 0;
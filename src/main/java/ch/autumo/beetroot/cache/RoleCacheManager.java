@@ -0,0 +1,180 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.BeetRootDatabaseManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.handler.roles.Role;
+import ch.autumo.beetroot.utils.bean.Beans;
+
+
+/**
+ * Role cache manager. Caches all roles with their names and
+ * permissions, so the roles of a user are resolved by reading
+ * the user's role IDs only. The cache is invalidated when roles
+ * are created, updated or deleted through beetRoot and reloaded
+ * periodically ('db_roles_cache_reload') for other changes.
+ */
+public class RoleCacheManager {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(RoleCacheManager.class.getName());
+
+	private static RoleCacheManager instance = null;
+
+	private static final int DEFAULT_RELOAD = 60; // seconds
+	private static final String ROLES_TABLE = Beans.classToTable(Role.class);
+
+	private final boolean enabled;
+	private final long reload;
+
+	/** Roles by ID; replaced as a whole when reloaded */
+	private volatile Map<Integer, Role> roles = null;
+	private volatile long rolesLoaded = 0;
+
+
+	/**
+	 * Private constructor.
+	 */
+	private RoleCacheManager() {
+		enabled = BeetRootConfigurationManager.isInitialized()
+				&& BeetRootConfigurationManager.getInstance().getYesOrNo(Constants.KEY_DB_ROLES_CACHE, Constants.NO);
+		reload = BeetRootConfigurationManager.isInitialized() ?
+				BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_DB_ROLES_CACHE_RELOAD, DEFAULT_RELOAD) * 1000L : DEFAULT_RELOAD * 1000L;
+	}
+
+	/**
+	 * Role cache manager.
+	 *
+	 * @return role cache manager
+	 */
+	public static synchronized RoleCacheManager getInstance() {
+		if (instance == null)
+			instance = new RoleCacheManager();
+		return instance;
+    }
+
+	/**
+	 * Is the role cache enabled ('db_roles_cache')?
+	 *
+	 * @return true if so
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get the roles of a user.
+	 *
+	 * @param userId user ID
+	 * @return roles with ID, name and permissions
+	 * @throws SQLException SQL exception
+	 */
+	public List<Role> getUserRoles(int userId) throws SQLException {
+		final Map<Integer, Role> all = this.getRoles();
+		final List<Role> userRoles = new ArrayList<>();
+		try (Connection conn = BeetRootDatabaseManager.getInstance().getConnection();
+				PreparedStatement stmt = conn.prepareStatement("SELECT role_id FROM users_roles WHERE user_id = ? ORDER BY role_id")) {
+			stmt.setInt(1, userId);
+			try (ResultSet set = stmt.executeQuery()) {
+				while (set.next()) {
+					final Role role = all.get(Integer.valueOf(set.getInt(1)));
+					if (role != null)
+						userRoles.add(copy(role));
+				}
+			}
+		}
+		return userRoles;
+	}
+
+	/**
+	 * Invalidate cached roles; they are reloaded when requested
+	 * the next time.
+	 */
+	public synchronized void invalidate() {
+		// Waits for a running load, so it can't store outdated roles
+		roles = null;
+	}
+
+	/**
+	 * Invalidate cached roles if the changed table holds the roles.
+	 *
+	 * @param table changed table DB name
+	 */
+	public void invalidate(String table) {
+		if (enabled && ROLES_TABLE.equals(table))
+			this.invalidate();
+	}
+
+	private boolean isValid(Map<Integer, Role> all) {
+		return all != null && (reload <= 0 || System.currentTimeMillis() - rolesLoaded < reload);
+	}
+
+	private Map<Integer, Role> getRoles() throws SQLException {
+		Map<Integer, Role> all = roles;
+		if (this.isValid(all))
+			return all;
+		synchronized (this) {
+			all = roles;
+			if (this.isValid(all))
+				return all;
+			final Map<Integer, Role> loaded = new HashMap<>();
+			try (Connection conn = BeetRootDatabaseManager.getInstance().getConnection();
+					Statement stmt = conn.createStatement();
+					ResultSet set = stmt.executeQuery("SELECT id, name, permissions FROM roles")) {
+				while (set.next()) {
+					final Role role = new Role();
+					role.setId(set.getInt(1));
+					role.setName(set.getString(2));
+					role.setPermissions(set.getString(3));
+					role.setStored(true);
+					loaded.put(Integer.valueOf(role.getId()), role);
+				}
+			}
+			LOG.debug("Role cache loaded with {} roles.", loaded.size());
+			all = Collections.unmodifiableMap(loaded);
+			rolesLoaded = System.currentTimeMillis();
+			roles = all;
+			return all;
+		}
+	}
+
+	private static Role copy(Role role) {
+		final Role copy = new Role();
+		copy.setId(role.getId());
+		copy.setName(role.getName());
+		copy.setPermissions(role.getPermissions());
+		copy.setStored(true);
+		return copy;
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.utils.database.DB;
+
+
+/**
+ * Row count cache manager. Caches 'SELECT COUNT(*)' results of tables
+ * (optionally restricted by a condition) for a configurable time, so
+ * paginating index pages doesn't count the whole table on every page view.
+ * Counts of a table are invalidated when records are inserted into or
+ * deleted from the table through beetRoot.
+ */
+public class RowCountCacheManager {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(RowCountCacheManager.class.getName());
+
+	private static RowCountCacheManager instance = null;
+
+	private static final int DEFAULT_TTL = 10; // seconds
+
+	private final Map<String, Count> cacheMap = new ConcurrentHashMap<String, Count>();
+
+	private final long ttl;
+
+
+	/**
+	 * Private constructor.
+	 */
+	private RowCountCacheManager() {
+		final int seconds = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_DB_COUNT_CACHE_TTL, DEFAULT_TTL);
+		ttl = seconds < 0 ? 0 : seconds * 1000L;
+	}
+
+	/**
+	 * Row count cache manager.
+	 *
+	 * @return row count cache manager
+	 */
+	public static synchronized RowCountCacheManager getInstance() {
+		if (instance == null)
+			instance = new RowCountCacheManager();
+		return instance;
+    }
+
+	/**
+	 * Get the (cached) amount of rows of a table.
+	 *
+	 * @param table table DB name
+	 * @param condition SQL condition without 'WHERE' or null
+	 * @return amount of rows
+	 * @throws SQLException SQL exception
+	 */
+	public int count(String table, String condition) throws SQLException {
+		if (ttl == 0)
+			return DB.countRows(table, condition);
+		final String key = condition == null ? table : table + " WHERE " + condition;
+		final long now = System.currentTimeMillis();
+		final Count cached = cacheMap.get(key);
+		if (cached != null && cached.expires > now)
+			return cached.amount;
+		final int amount = DB.countRows(table, condition);
+		cacheMap.put(key, new Count(table, amount, now + ttl));
+		return amount;
+	}
+
+	/**
+	 * Invalidate all cached counts of a table.
+	 *
+	 * @param table table DB name
+	 */
+	public void invalidate(String table) {
+		if (cacheMap.isEmpty())
+			return;
+		cacheMap.values().removeIf(c -> c.table.equals(table));
+	}
+
+	/**
+	 * Clear cache.
+	 */
+	public void clear() {
+		cacheMap.clear();
+	}
+
+
+	/**
+	 * Cached count.
+	 */
+	private static final class Count {
+		private final String table;
+		private final int amount;
+		private final long expires;
+		private Count(String table, int amount, long expires) {
+			this.table = table;
+			this.amount = amount;
+			this.expires = expires;
+		}
+	}
+
+}
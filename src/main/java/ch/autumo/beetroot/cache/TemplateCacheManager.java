@@ -0,0 +1,111 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Template cache manager. Holds compiled templates keyed by
+ * the full path of their file cache. Since template resources
+ * are resolved per language (e.g. 'web/html/en/users/index.html'),
+ * the key is language-specific too. A compiled template is
+ * re-compiled when the underlying file has been modified.
+ */
+public class TemplateCacheManager {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(TemplateCacheManager.class.getName());
+
+	private static TemplateCacheManager instance = null;
+
+	private Map<String, CompiledTemplate> cacheMap = new ConcurrentHashMap<String, CompiledTemplate>();
+
+
+	/**
+	 * Private constructor.
+	 */
+	private TemplateCacheManager() {
+	}
+
+	/**
+	 * Template cache manager.
+	 *
+	 * @return template cache manager
+	 */
+	public static synchronized TemplateCacheManager getInstance() {
+		if (instance == null)
+			instance = new TemplateCacheManager();
+		return instance;
+    }
+
+	/**
+	 * Find or compile the template of the given file cache.
+	 *
+	 * @param fileCache file cache of the template
+	 * @return compiled template
+	 * @throws IOException IO exception
+	 */
+	public CompiledTemplate findOrCompile(FileCache fileCache) throws IOException {
+
+		final String key = fileCache.getFullPath();
+		final CompiledTemplate template = cacheMap.get(key);
+		if (template != null && !fileCache.isModified() && template.getLastModified() == fileCache.getLastModified())
+			return template;
+
+		final String text;
+		if (fileCache.isCached()) {
+			text = fileCache.getTextData();
+		} else {
+			final InputStream is = fileCache.getData();
+			try {
+				text = IOUtils.toString(is, fileCache.getEncoding());
+			} finally {
+				is.close();
+			}
+		}
+
+		final CompiledTemplate compiled = new CompiledTemplate(text, fileCache.getLastModified());
+		cacheMap.put(key, compiled);
+		LOG.trace("Template compiled: {}, lines={}", key, compiled.getLines().size());
+		return compiled;
+	}
+
+	/**
+	 * Amount of compiled templates.
+	 *
+	 * @return amount of compiled templates
+	 */
+	public int size() {
+		return cacheMap.size();
+	}
+
+	/**
+	 * Clear cache.
+	 */
+	public void clear() {
+		cacheMap.clear();
+	}
+
+}
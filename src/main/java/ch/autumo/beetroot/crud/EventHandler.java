@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ch.autumo.beetroot.Model;
+import ch.autumo.beetroot.cache.EntityCacheManager;
 import ch.autumo.beetroot.utils.database.DB;
 
 
@@ -169,6 +170,8 @@ public class EventHandler {
 	 * @param id id
 	 */
 	public void notifyAfterUpdate(Class<?> entityClass, int id) {
+		// Listeners must not get a cached entity
+		EntityCacheManager.getInstance().invalidate(entityClass, id);
 		final List<UpdateListener> l = updateListeners.get(entityClass);
 		if (l != null) {
 			Model model = null;
@@ -17,19 +17,16 @@
  */
 package ch.autumo.beetroot.handler;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.StringReader;
-import java.lang.reflect.Constructor;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -66,11 +63,15 @@ import ch.autumo.beetroot.Entity;
 import ch.autumo.beetroot.LanguageManager;
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.ColumnConfig;
+import ch.autumo.beetroot.cache.ColumnConfigCacheManager;
+import ch.autumo.beetroot.cache.CompiledTemplate;
+import ch.autumo.beetroot.cache.CompiledTemplate.Line;
 import ch.autumo.beetroot.cache.FileCache;
 import ch.autumo.beetroot.cache.FileCacheManager;
+import ch.autumo.beetroot.cache.TemplateCacheManager;
 import ch.autumo.beetroot.handler.roles.Role;
 import ch.autumo.beetroot.handler.users.User;
-import ch.autumo.beetroot.handler.usersroles.UserRole;
 import ch.autumo.beetroot.routing.Route;
 import ch.autumo.beetroot.utils.bean.Beans;
 import ch.autumo.beetroot.utils.common.Time;
@@ -116,6 +117,9 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	// The routes (without default routes)
 	private static List<Route> routes = null;
 
+	// Size of the last rendered page; used to pre-size the output buffer
+	private static volatile int pageSizeHint = 16 * 1024;
+
 	// Strings
 	private static final String STR_EMAIL			= "email";
 	private static final String STR_PASSWORD		= "password";
@@ -187,6 +191,10 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 
 	private StringBuilder buffer = new StringBuilder();
 
+	// Parsed 'columns.cfg'; shared
+	private ColumnConfig columnConfig = null;
+
+	// Own copies of the shared configuration
 	protected TreeMap<Integer, String> columns = null;
 	protected Map<String, String> initialValues = null;
 	protected String uniqueFields[] = null;
@@ -330,203 +338,81 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		 * Columns.cfg configuration.
 		 */
 
-		this.columns = new TreeMap<>();
-		this.initialValues = new HashMap<>();
-
-		final List<String> fallBackList = new ArrayList<>();
-
-		String lang = LanguageManager.getInstance().retrieveLanguage(session);
-		String res = LanguageManager.getInstance().getResourceByLang(URL_WEB_HTML_PREFIX + ":lang/" + entity + FILE_CFG_COLUMNS, lang);
-
-		// Special case JSON: overwrite languages, not needed!
-		if (session.getUri().endsWith(Constants.JSON_EXT)) {
-			res = URL_WEB_HTML_PREFIX + entity + FILE_CFG_COLUMNS;
-		}
+		final String lang = LanguageManager.getInstance().retrieveLanguage(session);
+		final boolean json = session.getUri().endsWith(Constants.JSON_EXT);
 
-    	FileCache fc = null;
-    	String filePath = null;
-    	boolean tryFurther = false;
-		final ServletContext context = BeetRootConfigurationManager.getInstance().getServletContext();
-
-		try {
-			if (context == null)
-				fc = FileCacheManager.getInstance().findOrCreate(BeetRootConfigurationManager.getInstance().getRootPath() + res);
-			else
-				fc = FileCacheManager.getInstance().findOrCreate(Web.getRealPath(context) + res);
-		} catch (IOException e) {
-			LOG.trace("File '{}' not found on server, looking further within archives...", filePath);
-			try {
-				fc = FileCacheManager.getInstance().findOrCreateByResource("/" + res);
-			} catch (IOException e1) {
-				tryFurther = true;
-			}
-		}
-		if (tryFurther && !session.getUri().endsWith(Constants.JSON_EXT)) {
-			tryFurther = false;
-			LOG.trace("Resource '{}' doesn't exist, trying with default language '{}'!", res, LanguageManager.DEFAULT_LANG);
-			res = URL_WEB_HTML_PREFIX + LanguageManager.DEFAULT_LANG+"/"+entity + FILE_CFG_COLUMNS;
-			try {
-				if (context == null)
-					fc = FileCacheManager.getInstance().findOrCreate(BeetRootConfigurationManager.getInstance().getRootPath() + res);
-				else
-					fc = FileCacheManager.getInstance().findOrCreate(Web.getRealPath(context) + res);
-			} catch (IOException e) {
-				LOG.trace("File '{}'not found on server, looking further within archives...", filePath);
-				try {
-					fc = FileCacheManager.getInstance().findOrCreateByResource("/" + res);
-				} catch (IOException e1) {
-					tryFurther = true;
+		// Resolved once per entity and language
+		final String lookupKey = entity + "|" + (json ? "json" : lang);
+		FileCache fc = ColumnConfigCacheManager.getInstance().getResolved(lookupKey);
+		if (fc == null) {
+			// Special case JSON: overwrite languages, not needed!
+			String res = json ?
+					URL_WEB_HTML_PREFIX + entity + FILE_CFG_COLUMNS :
+						LanguageManager.getInstance().getResourceByLang(URL_WEB_HTML_PREFIX + ":lang/" + entity + FILE_CFG_COLUMNS, lang);
+			fc = this.findColumnsConfig(res);
+			if (fc == null && !json) {
+				LOG.trace("Resource '{}' doesn't exist, trying with default language '{}'!", res, LanguageManager.DEFAULT_LANG);
+				res = URL_WEB_HTML_PREFIX + LanguageManager.DEFAULT_LANG+"/"+entity + FILE_CFG_COLUMNS;
+				fc = this.findColumnsConfig(res);
+				if (fc == null) {
+					LOG.trace("Resource '{}' doesn't exist, trying with NO language!", res);
+					res = URL_WEB_HTML_PREFIX + entity + FILE_CFG_COLUMNS;
+					fc = this.findColumnsConfig(res);
 				}
 			}
-			if (tryFurther) {
-				tryFurther = false;
-				LOG.trace("Resource '{}' doesn't exist, trying with NO language!", res);
-				res = URL_WEB_HTML_PREFIX + entity + FILE_CFG_COLUMNS;
-				try {
-					if (context == null)
-						fc = FileCacheManager.getInstance().findOrCreate(BeetRootConfigurationManager.getInstance().getRootPath() + res);
-					else
-						fc = FileCacheManager.getInstance().findOrCreate(Web.getRealPath(context) + res);
-				} catch (IOException e) {
-					LOG.trace("File '{}'not found on server, looking further within archives...", filePath);
-					try {
-						fc = FileCacheManager.getInstance().findOrCreateByResource("/" + res);
-					} catch (IOException e1) {
-						LOG.debug("Resource '{}' doesn't exist, no columns used!", res);
-						return; // !
-					}
-				}
+			if (fc == null) {
+				LOG.debug("Resource '{}' doesn't exist, no columns used!", res);
+				this.columns = new TreeMap<>();
+				this.initialValues = new HashMap<>();
+				return; // !
 			}
+			ColumnConfigCacheManager.getInstance().putResolved(lookupKey, fc);
 		}
 
+		// Column labels are translated with the user's language
+		final String userLang = session.getUserSession().getUserLang();
+		final String labelLang = userLang == null ? lang : userLang;
+		final String htmlAction = templateResource != null && templateResource.length() != 0 ?
+				templateResource.substring(templateResource.lastIndexOf("/") + 1, templateResource.length()) : null;
 
-		BufferedReader br = null;
 		try {
-			if (fc.isCached())
-				br = new BufferedReader(new StringReader(fc.getTextData()));
-			else
-				br = new BufferedReader(new InputStreamReader(fc.getData(), fc.getEncoding()));
-
-		    String line;
-		    int l = 0;
-
-		    LOOP: while ((line = br.readLine()) != null) {
-
-		    	final String cfgLine = line.trim();
-		    	if (cfgLine.length() != 0 && cfgLine.indexOf("=") != -1) {
-
-		    		String configPair[] = cfgLine.split("=");
-		    		configPair[0] = configPair[0].trim();
-		    		if (configPair.length > 1)
-		    			configPair[1] = configPair[1].trim();
-		    		else {
-		    			configPair = new String[] {configPair[0], null};
-		    		}
-
-		    		String newCfgLine = null;
-		    		boolean added = false;
-
-		    		// First check for special configurations
-		    		// unique
-		    		if (configPair[0].equals("unique")) {
-		    			if (configPair[1] == null || configPair[1].equals(""))
-			    			continue LOOP;
-		    			configPair[1] = configPair[1].replace(" ", "");
-		    			uniqueFields = configPair[1].split(",");
-		    			continue LOOP;
-		    		}
-		    		// transient (not store in DB)
-		    		if (configPair[0].equals("transient")) {
-		    			if (configPair[1] == null || configPair[1].equals(""))
-			    			continue LOOP;
-		    			configPair[1] = configPair[1].replace(" ", "");
-		    			transientFields =  Arrays.asList(configPair[1].split(","));
-		    			continue LOOP;
-		    		}
-
-		    		// If no config prefix is defined, all config lines are taken!
-		    		// This makes sense if one doesn't need to distinguish between
-		    		// list and single records data field names aka GUI column names.
-		    		if (templateResource != null && templateResource.length() != 0) {
-			    		final String htmlAction = templateResource.substring(templateResource.lastIndexOf("/") + 1, templateResource.length());
-
-			    		switch (htmlAction) {
-			    			case "index.json":
-				    			if (configPair[0].startsWith("list_json.")) {
-				    				newCfgLine = configPair[0].substring(10, configPair[0].length()) + "=" + configPair[1];
-				    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				    		    	added = true;
-				    			}
-				    			break;
-			    			case FILE_HTML_ACTION_INDEX:
-				    			if (configPair[0].startsWith("list.")) {
-				    				newCfgLine = configPair[0].substring(5, configPair[0].length()) + "=" + this.replaceLanguageVariablesNoEscape(configPair[1], session);
-				    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				    		    	added = true;
-				    			}
-				    			break;
-			    			case FILE_HTML_ACTION_VIEW:
-				    			if (configPair[0].startsWith("view.")) {
-				    				newCfgLine = configPair[0].substring(5, configPair[0].length()) + "=" + this.replaceLanguageVariablesNoEscape(configPair[1], session);
-				    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				    		    	added = true;
-				    			}
-				    			break;
-			    			case FILE_HTML_ACTION_EDIT:
-				    			if (configPair[0].startsWith("edit.")) {
-				    				newCfgLine = configPair[0].substring(5, configPair[0].length()) + "=" + this.replaceLanguageVariablesNoEscape(configPair[1], session);
-				    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				    		    	added = true;
-				    			}
-				    			break;
-			    			case FILE_HTML_ACTION_ADD:
-				    			if (configPair[0].startsWith("add.")) {
-				    				newCfgLine = configPair[0].substring(4, configPair[0].length()) + "=" + this.replaceLanguageVariablesNoEscape(configPair[1], session);
-				    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				    		    	added = true;
-				    			} else if (configPair[0].startsWith("init.")) { // initial values set in add template :)
-				    		    	initialValues.put(configPair[0].substring(5, configPair[0].length()), configPair[1]);
-				    		    	added = true;
-				    			}
-				    			break;
-			    			default:
-			    		    	columns.put(Integer.valueOf(++l), cfgLine.trim());
-			    		    	added = true;
-			    		    	break;
-			    		}
-
-			    		if (!added)
-			    			fallBackList.add(cfgLine.trim());
-		    		}
-
-		    	}
-		    }
-
-		    if (uniqueFields == null)
-		    	uniqueFields = new String[] {};
-		    if (transientFields == null)
-		    	transientFields = new ArrayList<>();
-
-		    // no prefixes have been used -> column config is valid for all handlers!
-		    if (columns.size() == 0) {
-		    	for (Iterator<String> iterator = fallBackList.iterator(); iterator.hasNext();) {
-					final String newCfgLine = iterator.next();
-    		    	columns.put(Integer.valueOf(++l), newCfgLine);
-				}
-		    }
-
+			// Parsed once, shared by all handlers
+			columnConfig = ColumnConfigCacheManager.getInstance().findOrParse(fc, htmlAction, labelLang,
+					label -> this.replaceLanguageVariablesNoEscape(label, session));
+			this.columns = new TreeMap<>(columnConfig.getLines());
+			this.initialValues = new HashMap<>(columnConfig.getInitialValues());
+			this.uniqueFields = columnConfig.getUniqueFields().clone();
+			this.transientFields = new ArrayList<>(columnConfig.getTransientFields());
 		} catch (Exception e) {
 			// Not good !
 			LOG.error("Couldn't read columns for entity '"+entity+"' from file '" + fc.getFullPath() + "'!\n"
 					+ "Create this file and add such a line for every column you want to show:\n"
 					+ "columnName=Name of Column on Web Page", e);
-		} finally {
-			if (br != null) {
-				try {
-					br.close();
-				} catch (IOException e) {
-					LOG.warn("Couldn't close file reader for resource '" + fc.getFullPath() + "'!", e);
-				}
+			this.columns = new TreeMap<>();
+			this.initialValues = new HashMap<>();
+		}
+	}
+
+	/**
+	 * Find the file cache of a 'columns.cfg' resource; first on
+	 * the file system, then within archives.
+	 *
+	 * @param res resource path
+	 * @return file cache or null if it doesn't exist
+	 */
+	private FileCache findColumnsConfig(String res) {
+		final ServletContext context = BeetRootConfigurationManager.getInstance().getServletContext();
+		try {
+			if (context == null)
+				return FileCacheManager.getInstance().findOrCreate(BeetRootConfigurationManager.getInstance().getRootPath() + res);
+			else
+				return FileCacheManager.getInstance().findOrCreate(Web.getRealPath(context) + res);
+		} catch (IOException e) {
+			LOG.trace("File '{}' not found on server, looking further within archives...", res);
+			try {
+				return FileCacheManager.getInstance().findOrCreateByResource("/" + res);
+			} catch (IOException e1) {
+				return null;
 			}
 		}
 	}
@@ -660,7 +546,13 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 */
 	public String[] getColumn(int idx) {
 
-		final String cfgLine = columns.get(Integer.valueOf(idx));
+		final Integer key = Integer.valueOf(idx);
+		final String cfgLine = columns.get(key);
+		// Pre-split, unless the line has been changed
+		if (columnConfig != null && cfgLine == columnConfig.getLines().get(key)) {
+			final ColumnConfig.Column col = columnConfig.getColumn(idx);
+			return new String[] {col.getName(), col.getLabel()};
+		}
 		final String params[] = cfgLine.split("=");
 		final String colName = params[0].trim();
 		String guiColName = params[1];
@@ -668,6 +560,16 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		return new String[] {colName, guiColName};
 	}
 
+	/**
+	 * Get the parsed column configuration if any; column descriptors
+	 * without string parsing.
+	 *
+	 * @return column configuration or null
+	 */
+	public ColumnConfig getColumnConfig() {
+		return columnConfig;
+	}
+
 	/**
 	 * Get SQL fields, e.g. 'col1, col2, col3' for queries (seleczs).
 	 *
@@ -685,6 +587,10 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 */
 	public String getColumnsForSql(boolean forModification) {
 
+		// Pre-computed, unless columns have been changed
+		if (columnConfig != null && columns.equals(columnConfig.getLines()) && transientFields.equals(columnConfig.getTransientFields()))
+			return columnConfig.getColumnsForSql(forModification);
+
 		String queryfields = "";
 
 		LOOP: for (int i = 1; i <= columns.size(); i++) {
@@ -1001,10 +907,14 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		String roles = "";
 		String permissions = "";
 
-		final List<Model> usersRoles = Model.where(UserRole.class, "user_id = ?", Integer.valueOf(currentUserId));
-		for (Iterator<Model> iterator = usersRoles.iterator(); iterator.hasNext();) {
-			final UserRole userRole = (UserRole) iterator.next();
-			final Role role = (Role) Model.read(Role.class, userRole.getRoleId());
+		final List<Role> usersRoles;
+		try {
+			usersRoles = BeetRootDatabaseManager.getInstance().getUserRoles(currentUserId);
+		} catch (SQLException e) {
+			LOG.error("Couldn't load roles of user with id = '{}'!", currentUserId, e);
+			return;
+		}
+		for (Role role : usersRoles) {
 			roles += role.getName()+",";
 			permissions += role.getPermissions()+",";
 		}
@@ -1030,28 +940,31 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		// this is no web-page call, so we have to get language from URL if any
 		currRessource = LanguageManager.getInstance().getResource(currRessource, session.getUri());
 
-		// prepare text buffer
-		final StringBuilder sb = new StringBuilder();
-
 		// process JSON templates
-		Scanner sc = null;
+		final StringBuilder sb;
 		try {
-			sc = getNewScanner(currRessource);
-			while (sc.hasNextLine()) {
-
-				String text = sc.nextLine();
-
-				// template specific variables
-				this.render(session);
-				this.renderAll(session);
-				final String res = this.replaceTemplateVariables(text, session);
-				if (res != null && res.length() != 0)
-					text = res;
+			final CompiledTemplate template = getCompiledTemplate(currRessource);
+			// prepare text buffer
+			sb = new StringBuilder(template.length() + this.getHtmlData().length());
+			for (Line line : template.getLines()) {
+
+				String text = line.getText();
+
+				if (line.hasVariables()) {
+					// template specific variables
+					this.render(session);
+					this.renderAll(session);
+					final String res = this.replaceTemplateVariables(text, session);
+					if (res != null && res.length() != 0)
+						text = res;
+				}
 
-				sb.append(text + "\n");
+				sb.append(text).append('\n');
 
-				parseTemplateData(sb, "{$data}");
-				parsePaginator(sb, "{$paginator}", session);
+				if (line.hasVariables()) {
+					parseTemplateData(sb, "{$data}");
+					parsePaginator(sb, "{$paginator}", session);
+				}
 			}
 		} catch (FileNotFoundException e) {
 			final String err = "Web resource '" + currRessource + "' not found!";
@@ -1061,9 +974,6 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 			final String err = "Web resource '" + currRessource + "' parsing error!";
 			LOG.error(err, ex);
 			return "PARERROR:" + currRessource + ":" + ex.getMessage();
-		} finally {
-			if (sc!= null)
-				sc.close();
 		}
 		return sb.toString();
 	}
@@ -1126,29 +1036,31 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		String currRessource = LanguageManager.getInstance().getBlockResource(this.getLayout(userSession), userSession);
 		String templateResource = getResource();
 
-		// prepare text buffer
-		final StringBuilder sb = new StringBuilder();
-
 		// process templates
-		Scanner sc = null;
+		final StringBuilder sb;
 		try {
-			sc = getNewScanner(currRessource);
-			LOOP: while (sc.hasNextLine()) {
-				String text = sc.nextLine();
+			final CompiledTemplate layout = getCompiledTemplate(currRessource);
+			// prepare text buffer; the layout is only a frame, the blocks make the page
+			sb = new StringBuilder(Math.max(layout.length(), pageSizeHint));
+			LOOP: for (Line line : layout.getLines()) {
+				String text = line.getText();
 				// Remove lines?
-				if(ish.continueRemoval(text, userSession, "overall"))
+				if(ish.continueRemoval(line, userSession, "overall"))
 					continue LOOP;
 
 
 				// 0. Layout templates and main template
 
-				if (text.contains("{#head}")) {
+				final int block = line.getBlock();
+				if (block == CompiledTemplate.BLOCK_NONE) {
+					// nothing to include
+				} else if (block == CompiledTemplate.BLOCK_HEAD) {
 					currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/head.html", userSession);
 					text = parseAndGetSubResource(text, currRessource, "{#head}", session, origId);
-				} else if (text.contains("{#header}")) {
+				} else if (block == CompiledTemplate.BLOCK_HEADER) {
 					currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/header.html", userSession);
 					text = parseAndGetSubResource(text, currRessource, "{#header}", session, origId);
-				} else if (text.contains("{#langmenu}")) {
+				} else if (block == CompiledTemplate.BLOCK_LANGMENU) {
 					if (this.showLangMenu(userSession)) {
 						if (LanguageManager.getInstance().getConfiguredLanguages().length > 1) {
 							currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/menu_lang.html", userSession);
@@ -1159,28 +1071,28 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 					} else {
 						text = "";
 					}
-				} else if (text.contains("{#menu}")) {
+				} else if (block == CompiledTemplate.BLOCK_MENU) {
 					if (this.showMenu(userSession)) {
 						currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/menu.html", userSession);
 						text = parseAndGetSubResource(text, currRessource, "{#menu}", session, origId);
 					} else {
 						text = "";
 					}
-				} else if (text.contains("{#thememenu}")) {
+				} else if (block == CompiledTemplate.BLOCK_THEMEMENU) {
 					if (user != null) {
 						currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/menu_theme.html", userSession);
 						text = parseAndGetSubResource(text, currRessource, "{#thememenu}", session, origId);
 					} else {
 						text = "";
 					}
-				} else if (text.contains("{#message}")) {
+				} else if (block == CompiledTemplate.BLOCK_MESSAGE) {
 					if (this.hasAnyMessage()) {
 						currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/message.html", userSession);
 						text = parseAndGetSubResource(text, currRessource, "{#message}", session, origId);
 					} else {
 						text = "";
 					}
-				} else if (text.contains("{#template}")) {
+				} else if (block == CompiledTemplate.BLOCK_TEMPLATE) {
 					currRessource = LanguageManager.getInstance().getBlockResource(this.getResource(), userSession);
 					try {
 						this.createTemplateContent(userSession, session);
@@ -1246,13 +1158,13 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 						LOG.error(err, e);
 						return "PARERROR:" + currRessource + ":" + e.getMessage();
 					}
-				} else if (text.contains("{#footer}")) {
+				} else if (block == CompiledTemplate.BLOCK_FOOTER) {
 					currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/footer.html", userSession);
 					text = parseAndGetSubResource(text, currRessource, "{#footer}", session, origId);
-				} else if (text.contains("{#dialog}")) {
+				} else if (block == CompiledTemplate.BLOCK_DIALOG) {
 					currRessource = LanguageManager.getInstance().getBlockResource("web/html/:lang/blocks/dialog.html", userSession);
 					text = parseAndGetSubResource(text, currRessource, "{#dialog}", session, origId);
-				} else if (text.contains("{#script")) { // {#scriptXXX}
+				} else if (block == CompiledTemplate.BLOCK_SCRIPT) { // {#scriptXXX}
 					final Matcher matcher = PATTERN_SCRIPT.matcher(text);
 					if (matcher.find()) {
 						final String scriptTag = matcher.group();
@@ -1263,6 +1175,13 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 				}
 
 
+				// Static line without variables and link references: nothing to replace!
+				if (block == CompiledTemplate.BLOCK_NONE && !line.hasVariables() && (!insertServletNameInTemplateRefs || !line.hasReferences())) {
+					sb.append(text).append('\n');
+					continue LOOP;
+				}
+
+
 				// 1. General variables!
 
 				// title
@@ -1311,10 +1230,12 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 
 
 				// 3. Replace further overall variables!
-				this.renderAll(session);
-				String resRepl = this.replaceVariables(text, session);
-				if (resRepl != null && resRepl.length() > 0)
-					text = resRepl;
+				if (text.indexOf("{$") != -1) {
+					this.renderAll(session);
+					String resRepl = this.replaceVariables(text, session);
+					if (resRepl != null && resRepl.length() > 0)
+						text = resRepl;
+				}
 
 
 				// 4. Replace template language translations if any.
@@ -1346,7 +1267,7 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 				}
 
 
-				sb.append(text + "\n");
+				sb.append(text).append('\n');
 			}
 
 		} catch (FileNotFoundException e) {
@@ -1357,10 +1278,8 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 			final String err = "Web resource '" + currRessource + "' parsing error!";
 			LOG.error(err, ex);
 			return "PARERROR:" + currRessource + ":" + ex.getMessage();
-		} finally {
-			if (sc!= null)
-				sc.close();
 		}
+		pageSizeHint = sb.length() + 1024;
 		return sb.toString();
 	}
 
@@ -1490,31 +1409,36 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 
 	private String getSubResource(String resource, BeetRootHTTPSession session) throws FileNotFoundException {
 		final Session userSession = session.getUserSession();
-		final StringBuilder sb = new StringBuilder();
 		//String lang = userSession.getUserLang();
 		String currRessource = LanguageManager.getInstance().getBlockResource(resource, userSession);
-		Scanner sc = getNewScanner(currRessource);
-		while (sc.hasNextLine()) {
-			sb.append(sc.nextLine() + "\n");
+		final CompiledTemplate template = getCompiledTemplate(currRessource);
+		final StringBuilder sb = new StringBuilder(template.length() + 1);
+		for (Line line : template.getLines()) {
+			sb.append(line.getText()).append('\n');
 		}
-		sc.close();
 		return sb.toString();
 	}
 
 	private String parseAndGetSubResource(String origText, String resource, String type, BeetRootHTTPSession session, int origId) throws FileNotFoundException {
 		final Session userSession = session.getUserSession();
-		final StringBuilder sb = new StringBuilder();
 		String lang = userSession.getUserLang();
 		String currRessource = LanguageManager.getInstance().getBlockResource(resource, userSession);
-		Scanner sc = getNewScanner(currRessource);
-		LOOP: while (sc.hasNextLine()) {
+		final CompiledTemplate template = getCompiledTemplate(currRessource);
+		final StringBuilder sb = new StringBuilder(template.length() + 64);
+		LOOP: for (Line line : template.getLines()) {
 
-			String text = sc.nextLine();
+			String text = line.getText();
 
 			// Remove lines?
-			if(ish.continueRemoval(text, userSession, "subresource"))
+			if(ish.continueRemoval(line, userSession, "subresource"))
 				continue LOOP;
 
+			// Nothing to replace
+			if (!line.hasVariables()) {
+				sb.append(text).append('\n');
+				continue LOOP;
+			}
+
 			switch (type) {
 				case "{#head}":
 					// title ->DONE in overall method
@@ -1652,34 +1576,33 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 				default:
 					break;
 			}
-			sb.append(text + "\n");
+			sb.append(text).append('\n');
 		}
-		sc.close();
 		return origText.replace(type, sb.toString());
 	}
 
 	private void addLine(String line) {
-		buffer.append(line + "\n");
+		buffer.append(line).append('\n');
 	}
 
 	private void createTemplateContent(Session userSession, BeetRootHTTPSession session) throws Exception {
-		Scanner sc = null;
+		CompiledTemplate template = null;
 		try {
-			sc = getNewScanner(userSession);
+			template = getCompiledTemplate(LanguageManager.getInstance().getResource(this.getResource(), userSession));
 		} catch (FileNotFoundException e) {
 			final String err = "Web resource '" + getResource() + "' not found!";
 			LOG.error(err, e);
 			addLine("<h1>"+err+"</h1>");
+			return;
 		}
 
-		LOOP: while (sc.hasNextLine()) {
-			String text = sc.nextLine();
+		buffer.ensureCapacity(template.length() + this.getHtmlHead().length() + this.getHtmlData().length());
+		LOOP: for (Line line : template.getLines()) {
 			// Remove lines?
-			if(ish.continueRemoval(text, userSession, "template"))
+			if(ish.continueRemoval(line, userSession, "template"))
 				continue LOOP;
-			addLine(text);
+			addLine(line.getText());
 		}
-		sc.close();
 	}
 
 	private boolean hasAnyMessage() {
@@ -1706,14 +1629,6 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		return s1 + e.substring(1);
 	}
 
-	private Scanner getNewScannerForSnippet(String resource, String originalResource) throws FileNotFoundException {
-		return getNewScanner(resource, originalResource);
-	}
-
-	private Scanner getNewScanner(Session userSession) throws FileNotFoundException {
-		return getNewScanner(LanguageManager.getInstance().getResource(this.getResource(), userSession));
-	}
-
 	/**
 	 * Getting a new scanner for a web resource (HTML template) to parse.
 	 *
@@ -1735,6 +1650,57 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 * @throws FileNotFoundException if file is not found
 	 */
 	protected Scanner getNewScanner(String resource, String originalResource) throws FileNotFoundException {
+		final FileCache fc = this.findTemplateFileCache(resource, originalResource);
+		try {
+			if (fc.isCached())
+				return new Scanner(fc.getTextData());
+			else
+				return new Scanner(fc.getData());
+		} catch (IOException e) {
+			throw new FileNotFoundException("File/resource '"+fc.getFullPath()+"' not found! Exception: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get the compiled template of a web resource (HTML template) to parse.
+	 *
+	 * @param resource resource string, e.g. 'web/html/en/&lt;entity&gt;/index.html'
+	 * @return compiled template
+	 * @throws FileNotFoundException if file is not found
+	 */
+	protected CompiledTemplate getCompiledTemplate(String resource) throws FileNotFoundException {
+		return this.getCompiledTemplate(resource, null);
+	}
+
+	/**
+	 * Get the compiled template of a web resource (HTML template) to parse.
+	 * Templates are compiled once and re-compiled only if their file changes.
+	 *
+	 * @param resource resource string, e.g. 'web/html/en/&lt;entity&gt;/index.html'
+	 * @param originalResource resource string, e.g. 'web/html/:lang/&lt;entity&gt;/index.html';
+	 * 			useful for looking up snippets
+	 * @return compiled template
+	 * @throws FileNotFoundException if file is not found
+	 */
+	protected CompiledTemplate getCompiledTemplate(String resource, String originalResource) throws FileNotFoundException {
+		final FileCache fc = this.findTemplateFileCache(resource, originalResource);
+		try {
+			return TemplateCacheManager.getInstance().findOrCompile(fc);
+		} catch (IOException e) {
+			throw new FileNotFoundException("File/resource '"+fc.getFullPath()+"' not found! Exception: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Find the file cache for a web resource; if the resource isn't found
+	 * the default language and finally no language is tried.
+	 *
+	 * @param resource resource string
+	 * @param originalResource original resource string or null
+	 * @return file cache
+	 * @throws FileNotFoundException if file is not found
+	 */
+	private FileCache findTemplateFileCache(String resource, String originalResource) throws FileNotFoundException {
 
 		if (originalResource == null)
 			originalResource = this.getResource();
@@ -1798,15 +1764,7 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 		if (fc == null) {
 			throw new FileNotFoundException("File/resource '"+resource+"' not found!");
 		}
-
-		try {
-			if (fc.isCached())
-				return new Scanner(fc.getTextData());
-			else
-				return new Scanner(fc.getData());
-		} catch (IOException e) {
-			throw new FileNotFoundException("File/resource '"+fc.getFullPath()+"' not found! Exception: " + e.getMessage());
-		}
+		return fc;
 	}
 
 	/**
@@ -1818,11 +1776,11 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 * @throws FileNotFoundException if file is not found
 	 */
 	protected StringBuilder readSnippetResource(String resource, Session userSession) throws FileNotFoundException {
-		final StringBuilder sb = new StringBuilder();
 		final String res = LanguageManager.getInstance().getResource(resource, userSession);
-		final Scanner sc = this.getNewScannerForSnippet(res, resource);
-		while (sc.hasNextLine()) {
-			sb.append(sc.nextLine() + "\n");
+		final CompiledTemplate template = this.getCompiledTemplate(res, resource);
+		final StringBuilder sb = new StringBuilder(template.length() + 1);
+		for (Line line : template.getLines()) {
+			sb.append(line.getText()).append('\n');
 		}
 		return sb;
 	}
@@ -2355,7 +2313,7 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 * @throws Exception
 	 */
 	private Response serveHandler(IHTTPSession session, Class<?> handlerClass, HandlerResponse stat) throws Exception {
-		final BaseHandler handler = (BaseHandler) handlerClass.getDeclaredConstructor().newInstance();
+		final BaseHandler handler = (BaseHandler) HandlerFactory.get(handlerClass, 0).newInstance();
 		return this.serveHandler(session, handler, stat);
 	}
 
@@ -2497,20 +2455,12 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 	 */
 	private Object construct(BeetRootHTTPSession session, Class<?> handlerClass, String entity, String msg, int messageType) throws Exception {
 		final Session userSession = session.getUserSession();
-		Constructor<?> constructor = null;
-        final Constructor<?> constructors[] = handlerClass.getDeclaredConstructors();
 		int ip = 3;
 		if (messageType == MSG_TYPE_INFO)
 			ip = 2;
-        for (int i = 0; i < constructors.length; i++) {
-			int pc = constructors[i].getParameterCount();
-			if (pc == ip) {
-				constructor = constructors[i];
-				break;
-			}
-		}
+		HandlerFactory factory = null;
         try {
-            constructor.setAccessible(true); // Yes, we do this
+        	factory = HandlerFactory.get(handlerClass, ip);
 		} catch (Exception e) {
 			String err = "Handler constructor error! - No implementation found for handler class '"+handlerClass.toString()+"' with "+ip+" parameters.";
 			LOG.error(err, e);
@@ -2521,9 +2471,9 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
         BaseHandler handler = null;
         try {
     		if (messageType == MSG_TYPE_INFO)
-    			handler = (BaseHandler) constructor.newInstance(entity, msg);
+    			handler = (BaseHandler) factory.newInstance(entity, msg);
     		else
-    			handler = (BaseHandler) constructor.newInstance(entity, msg, messageType);
+    			handler = (BaseHandler) factory.newInstance(entity, msg, messageType);
 		} catch (Exception e) {
 			String err = "Handler error! - No implementation found for handler class '"+handlerClass.toString()+"'!";
 			LOG.error(err, e);
@@ -3121,6 +3071,28 @@ public abstract class BaseHandler extends DefaultHandler implements Handler {
 			this.handler= handler;
 		}
 
+		/**
+		 * Continue removal of lines? Lines without "if"-tags only need
+		 * to be checked against the current removal states.
+		 *
+		 * @param line current compiled line
+		 * @param userSession user session
+		 * @param layer 'overall', 'template' or 'sub-resource'
+		 * @return true if removal should continue, otherwise false
+		 */
+		protected boolean continueRemoval(Line line, Session userSession, String layer) {
+			if (line.hasIfTags())
+				return continueRemoval(line.getText(), userSession, layer);
+			final Map<String, Boolean> currStates = ifTagStates.get(layer);
+			if (currStates == null)
+				return false;
+			for (Boolean state : currStates.values()) {
+				if (state.booleanValue())
+					return true;
+			}
+			return false;
+		}
+
 		/**
 		 * Continue removal of lines?
 		 *
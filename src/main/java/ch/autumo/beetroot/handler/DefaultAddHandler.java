@@ -35,6 +35,8 @@ import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.LanguageManager;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.RoleCacheManager;
+import ch.autumo.beetroot.cache.RowCountCacheManager;
 import ch.autumo.beetroot.crud.EventHandler;
 import ch.autumo.beetroot.utils.Helper;
 import ch.autumo.beetroot.utils.bean.Beans;
@@ -191,6 +193,9 @@ public abstract class DefaultAddHandler extends BaseHandler {
 			//NO SEMICOLON
 			stmt = conn.prepareStatement("INSERT INTO "+entity+" (" + columns + ") VALUES (" + values + ")", Statement.RETURN_GENERATED_KEYS);
 			stmt.executeUpdate();
+			RowCountCacheManager.getInstance().invalidate(entity);
+			BeetRootDatabaseManager.getInstance().invalidateProperties(entity);
+			RoleCacheManager.getInstance().invalidate(entity);
 			
 			// Get generated key
 			if (BeetRootDatabaseManager.getInstance().isOracleDb()) {
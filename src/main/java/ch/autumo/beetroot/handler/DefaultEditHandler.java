@@ -29,6 +29,8 @@ import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.Entity;
 import ch.autumo.beetroot.LanguageManager;
 import ch.autumo.beetroot.Model;
+import ch.autumo.beetroot.cache.EntityCacheManager;
+import ch.autumo.beetroot.cache.RoleCacheManager;
 import ch.autumo.beetroot.crud.EventHandler;
 import ch.autumo.beetroot.utils.Helper;
 import ch.autumo.beetroot.utils.bean.Beans;
@@ -169,6 +171,9 @@ public class DefaultEditHandler extends BaseHandler {
 			String stmtStr = "UPDATE "+getEntity()+" SET "+this.getUpdateSetClause(session, ON_OFF_MAP_NAME + "." + super.getEntity())+" WHERE id=" + id;
 			session.getUserSession().removeMap(ON_OFF_MAP_NAME + "." + super.getEntity()); // clear map here
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate(getEntity(), id);
+			BeetRootDatabaseManager.getInstance().invalidateProperties(getEntity());
+			RoleCacheManager.getInstance().invalidate(getEntity());
 
 			// Notify listeners
 			EventHandler.getInstance().notifyAfterUpdate(getBeanClass(), id);
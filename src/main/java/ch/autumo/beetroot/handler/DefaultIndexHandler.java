@@ -20,8 +20,13 @@ package ch.autumo.beetroot.handler;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +39,7 @@ import ch.autumo.beetroot.Entity;
 import ch.autumo.beetroot.LanguageManager;
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.RowCountCacheManager;
 import ch.autumo.beetroot.utils.Helper;
 import ch.autumo.beetroot.utils.bean.BeanProcessor;
 import ch.autumo.beetroot.utils.bean.Beans;
@@ -47,9 +53,14 @@ public class DefaultIndexHandler extends BaseHandler {
 
 	protected static final Logger LOG = LoggerFactory.getLogger(DefaultIndexHandler.class.getName());
 	
+	/** Size of the table data of the last page rendered per entity; used to pre-size the next one */
+	private static final Map<String, Integer> DATA_SIZE_HINTS = new ConcurrentHashMap<>();
+	private static final int ROW_SIZE_HINT = 512;
+	
 	private Map<String, Class<?>> refs = null;
 	
 	private int maxRecPerPage = 20;
+	private boolean keysetPagination = false;
 	
 	private int page = 1;
 	private int pages = 0;
@@ -78,6 +89,7 @@ public class DefaultIndexHandler extends BaseHandler {
 				LOG.warn(err, e2);
 			}
 		}
+		keysetPagination = BeetRootConfigurationManager.getInstance().getYesOrNo(Constants.KEY_WEB_KEYSET_PAGINATION);
 	}
 
 	/**
@@ -155,65 +167,92 @@ public class DefaultIndexHandler extends BaseHandler {
 		refs = Beans.getForeignReferences(super.getEmptyBean());
 
 		
+		// take care of user data !
+		String condition = null;
+		if (userSession != null && getEntity().equals("users")) {
+			final String username = userSession.getUserName();
+			final List<String> userroles = userSession.getUserRoles();
+			if (!userroles.contains("Administrator"))
+				condition = "username='"+username+"'";
+		}
+		
+		// Count separately; the result set only holds one page
+		rowCount = RowCountCacheManager.getInstance().count(this.entity, condition);
+		
+        if (rowCount < maxRecPerPage)
+        	pages = 1;
+        else {
+        	pages = rowCount / maxRecPerPage;
+            if (rowCount % maxRecPerPage > 0)
+            	pages++;
+        }
+        if (page < 1)
+        	page = 1;
+		
+        totalShown = maxRecPerPage;
+        if (rowCount < maxRecPerPage)
+        	totalShown = rowCount;
+        
+		// Keyset pagination is only possible when sorted by the unique ID
+		final boolean sortById = sortField == null || sortField.length() == 0 || sortField.equals("id");
+		final boolean desc = sortDir != null && sortDir.equalsIgnoreCase("desc");
+		final boolean keyset = keysetPagination && sortById;
+		
+		String where = condition;
+		boolean seek = false;
+		if (keyset && page > 1) {
+			// Last ID of the previously shown page: '<page>:<direction>:<id>'
+			final String last = (String) userSession.get("keyset-"+this.entity);
+			if (last != null) {
+				final String parts[] = last.split(":");
+				if (parts.length == 3 && parts[0].equals(String.valueOf(page - 1)) && parts[1].equals(desc ? "desc" : "asc")) {
+					final String seekClause = "id " + (desc ? "<" : ">") + " " + Integer.parseInt(parts[2]);
+					where = where == null ? seekClause : where + " AND " + seekClause;
+					seek = true;
+				}
+			}
+		}
+		
+		// Foreign keys are resolved after reading the page; one query per referenced entity
+		final List<Object> segments = new ArrayList<Object>();
+		final Map<Class<?>, Set<Integer>> references = new HashMap<Class<?>, Set<Integer>>();
+		
+		// Table data is rendered into one pre-sized buffer
+		final Integer sizeHint = DATA_SIZE_HINTS.get(this.entity);
+		final StringBuilder data = new StringBuilder(sizeHint != null ? sizeHint.intValue() : maxRecPerPage * ROW_SIZE_HINT);
+		data.append(htmlData);
+		
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null;
 		try {
 
 			conn = BeetRootDatabaseManager.getInstance().getConnection();
-			
-			// NOTE: TYPE_SCROLL_INSENSITIVE is very slow with Oracle Developer Database.
-			// Even when the logic is changed to use ROWNUM with the BETWEEN keyword to select
-			// records in a specific range. It seems cursors are slowed down, maybe it's a
-			// limitation/feature of the Oracle database that comes with the Developer VM;
-			// this is usually peanuts for Oracle databases.
-			stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+			stmt = conn.createStatement();
 			
 			String stmtStr = "SELECT id, "+super.getColumnsForSql()+" FROM " + this.entity;
+			if (where != null)
+				stmtStr += " WHERE " + where;
 			
-			// take care of user data !
-			if (userSession != null && getEntity().equals("users")) {
-				final String username = userSession.getUserName();
-				final List<String> userroles = userSession.getUserRoles();
-				if (!userroles.contains("Administrator"))
-					stmtStr += " WHERE username='"+username+"'";	
-			}
-			
+			// A stable order is required for paging
 			if (sortField != null && sortField.length() != 0)
 				stmtStr += " ORDER BY " + sortField;
+			else
+				stmtStr += " ORDER BY id";
 			if (sortDir != null && sortDir.length() != 0)
 				stmtStr += " " + sortDir.toUpperCase();
 			
+			// Let the database deliver the current page only
+			stmtStr = DB.paginate(stmtStr, seek ? 0 : (page - 1) * maxRecPerPage, maxRecPerPage);
+			
 			// NO SEMICOLON
 			//stmtStr += ";";
 			
+			stmt.setFetchSize(maxRecPerPage);
 			set = stmt.executeQuery(stmtStr);
 			
-	        if (set.last()) { 
-	        	rowCount = set.getRow();
-	          	set.beforeFirst();
-	        }
-	        
-	        if (rowCount < maxRecPerPage)
-	        	pages = 1;
-	        else {
-	        	pages = rowCount / maxRecPerPage;
-	            if (rowCount % maxRecPerPage > 0)
-	            	pages++;
-	        }
-	        
-	        // set before first record of current page!
-	        set.absolute((page - 1) * maxRecPerPage);
-	        
-	        if (rowCount >= maxRecPerPage) {
-	        	set.setFetchSize(maxRecPerPage); 
-	        }
-			
-	        totalShown = maxRecPerPage;
-	        if (rowCount < maxRecPerPage)
-	        	totalShown = rowCount;
-	        	
 			int counter = 0;
+			int lastId = -1;
 			
 			final BeanProcessor processor = new BeanProcessor();
 			
@@ -222,9 +261,9 @@ public class DefaultIndexHandler extends BaseHandler {
 				
 				// id
 				int idr = set.getInt("id");
+				lastId = idr;
 				
-				userSession.createIdPair(idr, getEntity());
-				String modifyID = userSession.getModifyId(idr, getEntity());
+				String modifyID = userSession.createIdPair(idr, getEntity());
 				
 				final Entity entity = Beans.createBean(getBeanClass(), set, processor);
 				this.prepare(session, entity);
@@ -236,7 +275,7 @@ public class DefaultIndexHandler extends BaseHandler {
 				// entries in every view.
 				
 				// columns
-				htmlData += "<tr>";
+				data.append("<tr>");
 				LOOP: for (int i = 1; i <= columns().size(); i++) {
 					
 					final String col[] = getColumn(i);
@@ -262,33 +301,36 @@ public class DefaultIndexHandler extends BaseHandler {
 					// it's a foreign key
 					if (entityClass != null) {
 						
-						final int refDbIdx = Integer.valueOf(val).intValue();
-						final Map.Entry<Integer, String> e = DB.getDisplayValue(entityClass, refDbIdx);
-						val = e.getValue();
-						
-						final String foreignEntity = Beans.classToTable(entityClass);
-						String foreignModifyID = userSession.getModifyId(refDbIdx, foreignEntity);
-						if (foreignModifyID == null)
-							foreignModifyID = userSession.createIdPair(refDbIdx, foreignEntity);
-
-						final String valLink = "<a href=\"/"+lang+"/"+foreignEntity+"/view?id="+foreignModifyID+"\">" + val + "</a>\n";
-						htmlData += "<td>" + valLink + "</td>";
+						if (val.length() == 0) {
+							data.append("<td></td>");
+						} else {
+							final Integer refDbIdx = Integer.valueOf(val);
+							references.computeIfAbsent(entityClass, k -> new HashSet<Integer>()).add(refDbIdx);
+							segments.add(data.toString());
+							segments.add(new ForeignReference(entityClass, refDbIdx.intValue()));
+							data.setLength(0);
+						}
 						
 					} else {
-						String td = extractSingleTableData(session, set, col[0], dbIdx, entity) + "\n";
+						final String td = extractSingleTableData(session, set, col[0], dbIdx, entity);
 						if (td.equalsIgnoreCase("<td>null</td>"))
-							td = "<td></td>";
-						htmlData += td;
+							data.append("<td></td>");
+						else
+							data.append(td);
+						data.append('\n');
 					}
 				}
 				
 				// generate actions
-				htmlData += this.generateActionsTableData(userSession, getEntity(), entity, modifyID, idr, lang);
+				data.append(this.generateActionsTableData(userSession, getEntity(), entity, modifyID, idr, lang));
 				
-				htmlData += "</tr>\n";
+				data.append("</tr>\n");
 				
 				counter++;
 			}
+			
+			if (keyset && counter > 0)
+				userSession.set("keyset-"+this.entity, page + ":" + (desc ? "desc" : "asc") + ":" + lastId);
 		
 		} finally {
 			if (set != null)
@@ -299,9 +341,17 @@ public class DefaultIndexHandler extends BaseHandler {
 				conn.close();
 		}
 		
+		// Resolve foreign keys
+		if (segments.isEmpty())
+			htmlData = data.toString();
+		else
+			htmlData = this.resolveForeignReferences(userSession, lang, segments, references, data);
+		DATA_SIZE_HINTS.put(this.entity, Integer.valueOf(htmlData.length() + 1024));
+		
 		final List<String> transientFields = super.getTransientFields();
 		
 		// table head
+		final StringBuilder head = new StringBuilder(htmlHead);
 		HEAD: for (int i = 1; i <= columns().size(); i++) {
 			
 			final String col[] = getColumn(i);
@@ -320,33 +370,90 @@ public class DefaultIndexHandler extends BaseHandler {
 				if (sortField.equals(col[0])) {
 					if (sortDir != null && sortDir.length() != 0 && sortDir.equals("asc")) {
 						if (transientFields.contains(col[0]))
-							htmlHead += "<th>"+displayName+"</th>\n";
+							head.append("<th>"+displayName+"</th>\n");
 						else
-							htmlHead += "<th><a class=\"asc\" href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=desc\">"+displayName+"</a></th>\n";
+							head.append("<th><a class=\"asc\" href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=desc\">"+displayName+"</a></th>\n");
 					}
 					else if (sortDir != null && sortDir.length() != 0 && sortDir.equals("desc")) {
 						if (transientFields.contains(col[0]))
-							htmlHead += "<th>"+displayName+"</th>\n";
+							head.append("<th>"+displayName+"</th>\n");
 						else
-							htmlHead += "<th><a class=\"desc\" href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n";
+							head.append("<th><a class=\"desc\" href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n");
 					}
 				} else {
 					if (transientFields.contains(col[0]))
-						htmlHead += "<th>"+displayName+"</th>\n";
+						head.append("<th>"+displayName+"</th>\n");
 					else
-						htmlHead += "<th><a href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n";
+						head.append("<th><a href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n");
 				}
 			} else {
 				if (transientFields.contains(col[0]))
-					htmlHead += "<th>"+displayName+"</th>\n";
+					head.append("<th>"+displayName+"</th>\n");
 				else
-					htmlHead += "<th><a href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n";
+					head.append("<th><a href=\"/"+lang+"/"+getEntity()+"?sort="+col[0]+"&amp;direction=asc\">"+displayName+"</a></th>\n");
 			}
 		}
+		htmlHead = head.toString();
 		
 		return null;
 	}
 	
+	/**
+	 * Resolve the foreign references of the page read with one query per 
+	 * referenced entity and insert the links to them into the table data.
+	 * 
+	 * @param userSession user session
+	 * @param lang user's language
+	 * @param segments table data segments and foreign references in order
+	 * @param references referenced IDs per entity class
+	 * @param tail table data after the last foreign reference
+	 * @return table data
+	 * @throws Exception exception
+	 */
+	private String resolveForeignReferences(Session userSession, String lang, List<Object> segments, Map<Class<?>, Set<Integer>> references, StringBuilder tail) throws Exception {
+		
+		final Map<Class<?>, Map<Integer, String>> displayValues = new HashMap<Class<?>, Map<Integer, String>>();
+		for (Map.Entry<Class<?>, Set<Integer>> entry : references.entrySet())
+			displayValues.put(entry.getKey(), DB.getDisplayValues(entry.getKey(), entry.getValue()));
+		
+		final StringBuilder data = new StringBuilder(tail.capacity() + segments.size() * 64);
+		for (Object segment : segments) {
+			if (segment instanceof ForeignReference) {
+				
+				final ForeignReference ref = (ForeignReference) segment;
+				final Map<Integer, String> values = displayValues.get(ref.entityClass);
+				final Integer key = Integer.valueOf(ref.id);
+				final String val = values.containsKey(key) ? values.get(key) : key.toString();
+				
+				final String foreignEntity = Beans.classToTable(ref.entityClass);
+				String foreignModifyID = userSession.getModifyId(ref.id, foreignEntity);
+				if (foreignModifyID == null)
+					foreignModifyID = userSession.createIdPair(ref.id, foreignEntity);
+
+				data.append("<td><a href=\"/").append(lang).append('/').append(foreignEntity).append("/view?id=").append(foreignModifyID)
+					.append("\">").append(val).append("</a>\n</td>");
+				
+			} else {
+				data.append((String) segment);
+			}
+		}
+		return data.append(tail).toString();
+	}
+	
+	/**
+	 * Foreign key of a table cell.
+	 */
+	private static final class ForeignReference {
+		
+		private final Class<?> entityClass;
+		private final int id;
+		
+		private ForeignReference(Class<?> entityClass, int id) {
+			this.entityClass = entityClass;
+			this.id = id;
+		}
+	}
+	
 	/**
 	 * Create actions table data. This must return a HTML &lt;td&gt;...&lt;/td&gt; section
 	 * with all actions possible on the index page. the actions possibly returned might 
@@ -365,40 +472,44 @@ public class DefaultIndexHandler extends BaseHandler {
 	 */
 	public String generateActionsTableData(Session userSession, String entity, Entity entityObj, String modifyID, int dbId, String lang) {
 		
-		String htmlData ="";
+		final StringBuilder htmlData = new StringBuilder(1024);
 		
 		// Actions !
-		htmlData += "<td class=\"actions\">\n";
+		htmlData.append("<td class=\"actions\">\n");
 		
 		// VIEW
-		htmlData += "<a href=\"/"+lang+"/"+getEntity()+"/view?id="+modifyID+"\">"+LanguageManager.getInstance().translate("base.name.view", userSession)+"</a>\n";
+		htmlData.append("<a href=\"/").append(lang).append('/').append(getEntity()).append("/view?id=").append(modifyID).append("\">")
+			.append(LanguageManager.getInstance().translate("base.name.view", userSession)).append("</a>\n");
 		
 		// EDIT
 		if (this.changeAllowed(userSession))
-			htmlData += "<a href=\"/"+lang+"/"+getEntity()+"/edit?id="+modifyID+"\">"+LanguageManager.getInstance().translate("base.name.edit", userSession)+"</a>\n";
+			htmlData.append("<a href=\"/").append(lang).append('/').append(getEntity()).append("/edit?id=").append(modifyID).append("\">")
+				.append(LanguageManager.getInstance().translate("base.name.edit", userSession)).append("</a>\n");
 		
 		// DELETE
 		if (this.deleteAllowed(userSession)) {
-			htmlData += "<form name=\"post_"+getEntity()+"_delete_"+modifyID+"\" style=\"display:none;\" method=\"post\" action=\"/"+getEntity()+"/delete?id="+modifyID+"\">\n";
-			htmlData += "<input type=\"hidden\" name=\"_method\" value=\"POST\">\n";
+			htmlData.append("<form name=\"post_").append(getEntity()).append("_delete_").append(modifyID)
+				.append("\" style=\"display:none;\" method=\"post\" action=\"/").append(getEntity()).append("/delete?id=").append(modifyID).append("\">\n");
+			htmlData.append("<input type=\"hidden\" name=\"_method\" value=\"POST\">\n");
 			if (BeetRootConfigurationManager.getInstance().useCsrf()) {
 				
 				final String formCsrfToken = userSession.getFormCsrfToken();
-				htmlData += "<input type=\"hidden\" name=\"_csrfToken\" value=\""+formCsrfToken+"\">\n";
+				htmlData.append("<input type=\"hidden\" name=\"_csrfToken\" value=\"").append(formCsrfToken).append("\">\n");
 			}
-			htmlData += "</form>\n";
-			htmlData += "<a class=\"dialogLink\" href=\"/"+lang+"/"+getEntity()+"/delete?id="+modifyID+"\" data-confirm-message=\""
-							+ LanguageManager.getInstance().translate("base.operation.delete.ask", userSession, this.getDeleteName(entityObj)) 
-							+ "\" data-form-name=\"post_"+getEntity()+"_delete_"+modifyID+"\">"
-							+ LanguageManager.getInstance().translate("base.name.delete", userSession)+"</a>\n";
+			htmlData.append("</form>\n");
+			htmlData.append("<a class=\"dialogLink\" href=\"/").append(lang).append('/').append(getEntity()).append("/delete?id=").append(modifyID)
+				.append("\" data-confirm-message=\"")
+				.append(LanguageManager.getInstance().translate("base.operation.delete.ask", userSession, this.getDeleteName(entityObj)))
+				.append("\" data-form-name=\"post_").append(getEntity()).append("_delete_").append(modifyID).append("\">")
+				.append(LanguageManager.getInstance().translate("base.name.delete", userSession)).append("</a>\n");
 		}
 		
 		final String addHtml = this.addAdditionalActions(userSession, entity, modifyID, dbId, lang);
 		if (addHtml != null && addHtml.length() !=0)
-			htmlData += addHtml;
+			htmlData.append(addHtml);
 		
-		htmlData += "</td>\n";
-		return htmlData;
+		htmlData.append("</td>\n");
+		return htmlData.toString();
 	}
 	
 	/**
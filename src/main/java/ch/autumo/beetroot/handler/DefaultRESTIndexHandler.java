@@ -21,6 +21,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 
+import org.nanohttpd.protocols.http.response.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +30,11 @@ import ch.autumo.beetroot.BeetRootDatabaseManager;
 import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.Entity;
+import ch.autumo.beetroot.cache.RowCountCacheManager;
 import ch.autumo.beetroot.utils.bean.BeanProcessor;
 import ch.autumo.beetroot.utils.bean.Beans;
+import ch.autumo.beetroot.utils.database.DB;
+import ch.autumo.beetroot.utils.web.Web;
 
 /**
  * Default JSON-REST handler for listing entities.
@@ -39,7 +43,15 @@ public class DefaultRESTIndexHandler extends BaseHandler {
 
 	protected static final Logger LOG = LoggerFactory.getLogger(DefaultRESTIndexHandler.class.getName());
 	
+	/** Replaced by the rows when streaming */
+	private static final String DATA_MARKER = "\u0000data\u0000";
+	/** Separator between rows */
+	private static final String ROW_SEPARATOR = ",\n";
+	
 	private int maxRecPerPage = 20;
+	private int maxFetchSize = 1000;
+	private boolean streaming = false;
+	private boolean streamed = false;
 	
 	private int page = 1;
 	private int pages = 0;
@@ -66,6 +78,10 @@ public class DefaultRESTIndexHandler extends BaseHandler {
 			maxRecPerPage = 20;
 			LOG.warn(err, e);
 		}
+		if (BeetRootConfigurationManager.isInitialized()) {
+			maxFetchSize = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_WEB_JSON_MAX_RECORDS_PER_PAGE, 1000);
+			streaming = BeetRootConfigurationManager.getInstance().getYesOrNo(Constants.KEY_WEB_JSON_STREAMING, Constants.NO);
+		}
 	}
 
 	/**
@@ -98,97 +114,80 @@ public class DefaultRESTIndexHandler extends BaseHandler {
 		final String fs = session.getParms().get("fetchsize");
 		if (fs != null && fs.length() != 0) {
 			try {
-				maxRecPerPage = Integer.valueOf(fs).intValue();
+				final int size = Integer.valueOf(fs).intValue();
+				if (size > 0)
+					maxRecPerPage = maxFetchSize > 0 ? Math.min(size, maxFetchSize) : size;
 			} catch (Exception e) {
 				LOG.warn("Couldn't parse fetch size number, using fetch size '"+maxRecPerPage+"'!", e);
 			}
 		}
 		
 		
+		// Count separately; the result set only holds one page
+		rowCount = RowCountCacheManager.getInstance().count(this.entity, null);
+		
+        if (rowCount < maxRecPerPage)
+        	pages = 1;
+        else {
+        	pages = rowCount / maxRecPerPage;
+            if (rowCount % maxRecPerPage > 0)
+            	pages++;
+        }
+        if (page < 1)
+        	page = 1;
+		
+        totalShown = maxRecPerPage;
+        if (rowCount < maxRecPerPage)
+        	totalShown = rowCount;
+		
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null; 
 		try {
 
 			conn = BeetRootDatabaseManager.getInstance().getConnection();
-			
-			// NOTE: TYPE_SCROLL_INSENSITIVE is very slow with Oracle Developer Database.
-			// Even when the logic is changed to use ROWNUM with the BETWEEN keyword to select
-			// records in a specific range. It seems cursors are slowed down, maybe it's a
-			// limitation/feature of the Oracle database that comes with the Developer VM;
-			// this is usually peanuts for Oracle databases.
-			stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+			stmt = conn.createStatement();
 			
 			String stmtStr = "SELECT id, "+super.getColumnsForSql()+" FROM " + this.entity;
 
-			
+			// A stable order is required for paging
 			if (sortField != null && sortField.length() != 0)
 				stmtStr += " ORDER BY " + sortField;
+			else
+				stmtStr += " ORDER BY id";
 			if (sortDir != null && sortDir.length() != 0)
 				stmtStr += " " + sortDir.toUpperCase();
 			
-			set = stmt.executeQuery(stmtStr);
-			
-	        if (set.last()) { 
-	        	rowCount = set.getRow();
-	          	set.beforeFirst();
-	        }
-	        
-	        if (rowCount < maxRecPerPage)
-	        	pages = 1;
-	        else {
-	        	pages = rowCount / maxRecPerPage;
-	            if (rowCount % maxRecPerPage > 0)
-	            	pages++;
-	        }
-	        
-	        // set before first record of current page!
-	        set.absolute((page - 1) * maxRecPerPage);
-	        
-	        if (rowCount >= maxRecPerPage) {
-	        	set.setFetchSize(maxRecPerPage); 
-	        }
+			// Let the database deliver the current page only
+			stmtStr = DB.paginate(stmtStr, (page - 1) * maxRecPerPage, maxRecPerPage);
 			
-	        totalShown = maxRecPerPage;
-	        if (rowCount < maxRecPerPage)
-	        	totalShown = rowCount;
-	        	
-			int counter = 0;
+			stmt.setFetchSize(Math.min(maxRecPerPage, 1000));
+			set = stmt.executeQuery(stmtStr);
 			
 			final BeanProcessor processor = new BeanProcessor();
 			
-			// table data
-			while (set.next() && counter < maxRecPerPage) {
-				
-				final Entity entity = Beans.createBean(getBeanClass(), set, processor);
-				this.prepare(session, entity);
-				
-				// columns
-				htmlData += "        {\n";
-				LOOP: for (int i = 1; i <= columns().size(); i++) {
-					
-					final String cfgLine = columns().get(Integer.valueOf(i));
-					final String params[] = cfgLine.split("=");
-					int dbIdx = i + 1; // because of additional id!
-					
-					final String jsonColTitle = params[0].trim();
-					final String jsonGuiColTitle = params[1].trim();
-					if (jsonGuiColTitle != null && jsonGuiColTitle.equals(Constants.GUI_COL_NO_SHOW)) // NO_SHOW option
-						continue LOOP;
-					
-					if (i == columns().size())
-						htmlData += extractSingleTableData(session, set, jsonColTitle, jsonGuiColTitle, dbIdx, entity)+ "\n";
-					else
-						htmlData += extractSingleTableData(session, set, jsonColTitle, jsonGuiColTitle, dbIdx, entity)+ ",\n";
+			// Stream rows straight from the result set into the response
+			if (streaming) {
+				final HandlerResponse response = this.createStreamResponse(session, processor, set, stmt, conn);
+				if (response != null) {
+					// Resources are closed by the stream
+					set = null;
+					stmt = null;
+					conn = null;
+					return response;
 				}
-				
-				if (counter + 1 == totalShown)
-					htmlData += "        }";
-				else
-					htmlData += "        },\n";
-				
+			}
+			
+			// table data
+			final StringBuilder data = new StringBuilder(htmlData);
+			int counter = 0;
+			while (counter < maxRecPerPage && set.next()) {
+				if (counter > 0)
+					data.append(ROW_SEPARATOR);
+				this.writeRow(session, processor, set, data);
 				counter++;
 			}
+			htmlData = data.toString();
 		
 		} finally {
 			if (set != null)
@@ -202,6 +201,84 @@ public class DefaultRESTIndexHandler extends BaseHandler {
 		return null;
 	}
 	
+	/**
+	 * Create the streamed JSON response: the JSON template is processed with
+	 * a marker instead of the rows, which are then rendered while the response
+	 * is sent.
+	 * 
+	 * @param session HTTP session
+	 * @param processor bean processor
+	 * @param set result set before first row
+	 * @param stmt statement
+	 * @param conn connection
+	 * @return handler response with the HTTP response or null if the template
+	 * 			can't be processed; then the usual error handling takes place
+	 * @throws Exception exception
+	 */
+	private HandlerResponse createStreamResponse(BeetRootHTTPSession session, BeanProcessor processor, ResultSet set, Statement stmt, Connection conn) throws Exception {
+		
+		final String prevData = htmlData;
+		htmlData = DATA_MARKER;
+		final String text = super.getText(session, -1);
+		htmlData = prevData;
+		
+		final int idx = text.indexOf(DATA_MARKER);
+		if (idx == -1)
+			return null; // template error
+		
+		final String prefix = text.substring(0, idx) + prevData;
+		final String suffix = text.substring(idx + DATA_MARKER.length());
+		final JsonRowStream stream = new JsonRowStream(prefix, suffix, set, maxRecPerPage, ROW_SEPARATOR,
+				(rs, out) -> this.writeRow(session, processor, rs, out), stmt, conn);
+		final Response response = Response.newChunkedResponse(getStatus(), getMimeType(), stream);
+		streamed = true;
+		return new HandlerResponse(HandlerResponse.STATE_OK, response);
+	}
+	
+	/**
+	 * Write the JSON object of the current row.
+	 * 
+	 * @param session HTTP session
+	 * @param processor bean processor
+	 * @param set result set at current row
+	 * @param out buffer
+	 * @throws Exception exception
+	 */
+	private void writeRow(BeetRootHTTPSession session, BeanProcessor processor, ResultSet set, StringBuilder out) throws Exception {
+		
+		final Entity entity = Beans.createBean(getBeanClass(), set, processor);
+		this.prepare(session, entity);
+		
+		// columns
+		out.append("        {\n");
+		boolean first = true;
+		LOOP: for (int i = 1; i <= columns().size(); i++) {
+			
+			final String col[] = getColumn(i);
+			final int dbIdx = i + 1; // because of additional id!
+			
+			final String jsonColTitle = col[0];
+			final String jsonGuiColTitle = col[1].trim();
+			if (jsonGuiColTitle != null && jsonGuiColTitle.equals(Constants.GUI_COL_NO_SHOW)) // NO_SHOW option
+				continue LOOP;
+			
+			final String field = extractSingleTableData(session, set, jsonColTitle, jsonGuiColTitle, dbIdx, entity);
+			if (field == null || field.length() == 0)
+				continue LOOP;
+			if (!first)
+				out.append(",\n");
+			out.append(field);
+			first = false;
+		}
+		out.append("\n        }");
+	}
+	
+	@Override
+	protected boolean isCustomResponse() {
+		// The streamed response is returned as custom response
+		return streamed;
+	}
+	
 	/**
 	 * Prepare call to to something with the current entity bean 
 	 * processed in the list if necessary. Called before all 
@@ -236,7 +313,10 @@ public class DefaultRESTIndexHandler extends BaseHandler {
 			val = "";
 		else
 			val = o.toString();
-		return "            \"" + guiColumnName + "\": \"" + val + "\"";
+		final StringBuilder field = new StringBuilder(val.length() + guiColumnName.length() + 20);
+		field.append("            \"");
+		Web.escapeJson(guiColumnName, field).append("\": \"");
+		return Web.escapeJson(val, field).append('"').toString();
 	}
 	
 	/**
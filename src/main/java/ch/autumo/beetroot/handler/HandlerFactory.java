@@ -0,0 +1,141 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.handler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ch.autumo.beetroot.BeetRootHTTPSession;
+
+/**
+ * Handler factory. The handler constructor with a given amount of
+ * parameters is looked up once per handler class and kept as method
+ * handle; so are 'initialize(BeetRootHTTPSession)' methods of handlers
+ * that aren't beetRoot handlers.
+ */
+public final class HandlerFactory {
+
+	private static final Map<Class<?>, Map<Integer, HandlerFactory>> FACTORIES = new ConcurrentHashMap<>();
+
+	private static final MethodType INITIALIZE_TYPE = MethodType.methodType(void.class, BeetRootHTTPSession.class);
+
+	private final Class<?> handlerClass;
+	private final int parameterCount;
+	private final MethodHandle constructor;
+	private volatile MethodHandle initialize = null;
+
+
+	private HandlerFactory(Class<?> handlerClass, int parameterCount) throws NoSuchMethodException, IllegalAccessException {
+
+		Constructor<?> c = null;
+		final Constructor<?> constructors[] = handlerClass.getDeclaredConstructors();
+		for (int i = 0; i < constructors.length; i++) {
+			if (constructors[i].getParameterCount() == parameterCount) {
+				c = constructors[i];
+				break;
+			}
+		}
+		if (c == null)
+			throw new NoSuchMethodException("No constructor with " + parameterCount + " parameters found for handler class '" + handlerClass.getName() + "'!");
+
+		c.setAccessible(true); // Yes, we do this
+
+		this.handlerClass = handlerClass;
+		this.parameterCount = parameterCount;
+		// (Object[]) -> Object
+		this.constructor = MethodHandles.lookup().unreflectConstructor(c)
+				.asSpreader(Object[].class, parameterCount)
+				.asType(MethodType.methodType(Object.class, Object[].class));
+	}
+
+	/**
+	 * Get the factory for handlers of the given class using the
+	 * constructor with the given amount of parameters.
+	 *
+	 * @param handlerClass handler class
+	 * @param parameterCount amount of constructor parameters
+	 * @return handler factory
+	 * @throws NoSuchMethodException if there's no such constructor
+	 * @throws IllegalAccessException if the constructor cannot be accessed
+	 */
+	public static HandlerFactory get(Class<?> handlerClass, int parameterCount) throws NoSuchMethodException, IllegalAccessException {
+
+		final Map<Integer, HandlerFactory> factories = FACTORIES.computeIfAbsent(handlerClass, k -> new ConcurrentHashMap<>());
+		final Integer key = Integer.valueOf(parameterCount);
+		HandlerFactory factory = factories.get(key);
+		if (factory == null) {
+			// Concurrent creations are harmless
+			factory = new HandlerFactory(handlerClass, parameterCount);
+			final HandlerFactory existing = factories.putIfAbsent(key, factory);
+			if (existing != null)
+				factory = existing;
+		}
+		return factory;
+	}
+
+	/**
+	 * Create a new handler.
+	 *
+	 * @param args constructor arguments
+	 * @return new handler
+	 * @throws Exception exception thrown by the constructor
+	 */
+	public Object newInstance(Object... args) throws Exception {
+		if (args.length != parameterCount)
+			throw new IllegalArgumentException("Handler class '" + handlerClass.getName() + "' expects " + parameterCount + " parameters, got " + args.length + "!");
+		try {
+			return constructor.invokeExact(args);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+	/**
+	 * Initialize a handler created by this factory with the HTTP session.
+	 *
+	 * @param handler handler
+	 * @param session HTTP session
+	 * @throws Exception if the handler has no initialize method or it fails
+	 */
+	public void initialize(Object handler, BeetRootHTTPSession session) throws Exception {
+		if (handler instanceof BaseHandler) {
+			((BaseHandler) handler).initialize(session);
+			return;
+		}
+		MethodHandle mh = this.initialize;
+		if (mh == null) {
+			mh = MethodHandles.publicLookup().findVirtual(handlerClass, "initialize", INITIALIZE_TYPE)
+					.asType(MethodType.methodType(void.class, Object.class, BeetRootHTTPSession.class));
+			this.initialize = mh;
+		}
+		try {
+			mh.invokeExact(handler, session);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+}
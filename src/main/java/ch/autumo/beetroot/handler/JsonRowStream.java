@@ -0,0 +1,196 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * JSON row stream. Renders the rows of a result set as JSON array
+ * elements when the response reads them, so a JSON list is never
+ * held as a whole in memory. The text before and after the rows
+ * comes from the JSON template. The result set and its statement
+ * and connection are closed when all rows are read or the stream
+ * is closed.
+ */
+final class JsonRowStream extends InputStream {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(JsonRowStream.class.getName());
+
+	/** Rendered characters per chunk */
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	/**
+	 * Renders one row.
+	 */
+	@FunctionalInterface
+	interface RowWriter {
+
+		/**
+		 * Render the current row of the result set; never call 'set.next()'!
+		 *
+		 * @param set result set at current row
+		 * @param out buffer to append the JSON object of the row to
+		 * @throws Exception exception
+		 */
+		void write(ResultSet set, StringBuilder out) throws Exception;
+	}
+
+	private final byte[] prefix;
+	private final byte[] suffix;
+	private final ResultSet set;
+	private final AutoCloseable resources[];
+	private final RowWriter writer;
+	private final int maxRows;
+	private final String separator;
+
+	private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+
+	private byte[] bytes;
+	private int pos = 0;
+	private int rows = 0;
+	private boolean prefixSent = false;
+	private boolean rowsDone = false;
+	private boolean suffixSent = false;
+	private boolean closed = false;
+
+
+	/**
+	 * New JSON row stream.
+	 *
+	 * @param prefix text before the rows
+	 * @param suffix text after the rows
+	 * @param set result set positioned before the first row
+	 * @param maxRows max. rows to render
+	 * @param separator separator between rows, e.g. ",\n"
+	 * @param writer row writer
+	 * @param resources resources to close, e.g. statement and connection
+	 */
+	JsonRowStream(String prefix, String suffix, ResultSet set, int maxRows, String separator, RowWriter writer, AutoCloseable... resources) {
+		this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+		this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+		this.set = set;
+		this.maxRows = maxRows;
+		this.separator = separator;
+		this.writer = writer;
+		this.resources = resources;
+	}
+
+	/**
+	 * Amount of rows rendered so far.
+	 *
+	 * @return rows
+	 */
+	int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!this.available(1))
+			return -1;
+		return bytes[pos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (!this.available(len))
+			return -1;
+		final int n = Math.min(len, bytes.length - pos);
+		System.arraycopy(bytes, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	private boolean available(int len) throws IOException {
+		while (bytes == null || pos >= bytes.length) {
+			pos = 0;
+			if (!prefixSent) {
+				prefixSent = true;
+				bytes = prefix;
+			} else if (!rowsDone) {
+				bytes = this.nextChunk();
+			} else if (!suffixSent) {
+				suffixSent = true;
+				bytes = suffix;
+			} else {
+				bytes = null;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte[] nextChunk() throws IOException {
+		chunk.setLength(0);
+		try {
+			while (chunk.length() < CHUNK_SIZE) {
+				if (rows >= maxRows || !set.next()) {
+					rowsDone = true;
+					this.release();
+					break;
+				}
+				if (rows > 0)
+					chunk.append(separator);
+				writer.write(set, chunk);
+				rows++;
+			}
+		} catch (Exception e) {
+			rowsDone = true;
+			this.release();
+			throw new IOException("Couldn't render JSON row " + (rows + 1) + "!", e);
+		}
+		return chunk.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void release() {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			set.close();
+		} catch (Exception e) {
+			LOG.debug("Couldn't close result set.", e);
+		}
+		for (AutoCloseable resource : resources) {
+			if (resource == null)
+				continue;
+			try {
+				resource.close();
+			} catch (Exception e) {
+				LOG.debug("Couldn't close resource.", e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		rowsDone = true;
+		suffixSent = true;
+		this.release();
+	}
+
+}
@@ -3,10 +3,14 @@
  */
 package ch.autumo.beetroot.handler.properties;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * Property. 
@@ -72,5 +76,39 @@ public class Property extends Model {
 	public Class<?> modelClass() {
 		return Property.class;
 	}
-	
+
+    @Override
+    public RowMapper<Property> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<Property> ROW_MAPPER = new RowMapper<Property>() {
+        @Override
+        public Property newBean() {
+            return new Property();
+        }
+        @Override
+        public boolean set(Property bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                case "name": bean.setName(rs.getString(index)); return true;
+                case "modified": bean.setModified(rs.getTimestamp(index)); return true;
+                case "value": bean.setValue(rs.getString(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(Property bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "created": return bean.getCreated();
+                case "name": return bean.getName();
+                case "modified": return bean.getModified();
+                case "value": return bean.getValue();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
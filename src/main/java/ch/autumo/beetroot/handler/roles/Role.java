@@ -3,10 +3,14 @@
  */
 package ch.autumo.beetroot.handler.roles;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * Role. 
@@ -83,6 +87,42 @@ public class Role extends Model {
     @Override
     public Class<?> modelClass() {
         return Role.class;
-    }	
-	
+    }
+
+    @Override
+    public RowMapper<Role> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<Role> ROW_MAPPER = new RowMapper<Role>() {
+        @Override
+        public Role newBean() {
+            return new Role();
+        }
+        @Override
+        public boolean set(Role bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "permissions": bean.setPermissions(rs.getString(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                case "name": bean.setName(rs.getString(index)); return true;
+                case "description": bean.setDescription(rs.getString(index)); return true;
+                case "modified": bean.setModified(rs.getTimestamp(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(Role bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "permissions": return bean.getPermissions();
+                case "created": return bean.getCreated();
+                case "name": return bean.getName();
+                case "description": return bean.getDescription();
+                case "modified": return bean.getModified();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
@@ -3,10 +3,14 @@
  */
 package ch.autumo.beetroot.handler.tasks;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * Task. 
@@ -173,5 +177,56 @@ public class Task extends Model {
 		return Task.class;
 	}
 
-	
+    @Override
+    public RowMapper<Task> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<Task> ROW_MAPPER = new RowMapper<Task>() {
+        @Override
+        public Task newBean() {
+            return new Task();
+        }
+        @Override
+        public boolean set(Task bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "monthofyear": bean.setMonthofyear(rs.getString(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                case "active": bean.setActive(rs.getBoolean(index)); return true;
+                case "minute": bean.setMinute(rs.getString(index)); return true;
+                case "dayofmonth": bean.setDayofmonth(rs.getString(index)); return true;
+                case "path": bean.setPath(rs.getString(index)); return true;
+                case "hour": bean.setHour(rs.getString(index)); return true;
+                case "name": bean.setName(rs.getString(index)); return true;
+                case "guid": bean.setGuid(rs.getString(index)); return true;
+                case "dayofweek": bean.setDayofweek(rs.getString(index)); return true;
+                case "laststatus": bean.setLaststatus(rs.getBoolean(index)); return true;
+                case "modified": bean.setModified(rs.getTimestamp(index)); return true;
+                case "lastexecuted": bean.setLastexecuted(rs.getTimestamp(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(Task bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "monthofyear": return bean.getMonthofyear();
+                case "created": return bean.getCreated();
+                case "active": return bean.getActive();
+                case "minute": return bean.getMinute();
+                case "dayofmonth": return bean.getDayofmonth();
+                case "path": return bean.getPath();
+                case "hour": return bean.getHour();
+                case "name": return bean.getName();
+                case "guid": return bean.getGuid();
+                case "dayofweek": return bean.getDayofweek();
+                case "laststatus": return bean.getLaststatus();
+                case "modified": return bean.getModified();
+                case "lastexecuted": return bean.getLastexecuted();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
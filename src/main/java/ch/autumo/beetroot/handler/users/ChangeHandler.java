@@ -32,6 +32,7 @@ import ch.autumo.beetroot.BeetRootDatabaseManager;
 import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.EntityCacheManager;
 import ch.autumo.beetroot.handler.BaseHandler;
 import ch.autumo.beetroot.handler.HandlerResponse;
 import ch.autumo.beetroot.utils.common.Time;
@@ -83,6 +84,7 @@ public class ChangeHandler extends BaseHandler {
 				else
 					stmtStr = "UPDATE users SET lasttoken='NONE', modified='" + Time.nowTimeStamp() + "' WHERE id=" + userid;
 				stmt.executeUpdate(stmtStr);
+				EntityCacheManager.getInstance().invalidate("users", userid);
 				
 			} finally {
 				
@@ -200,6 +202,7 @@ public class ChangeHandler extends BaseHandler {
 				
 					String stmtStr = "UPDATE users SET password='" + pass + "', lasttoken='NONE' WHERE id=" + userid;
 					stmt.executeUpdate(stmtStr);
+					EntityCacheManager.getInstance().invalidate("users", userid);
 				
 				} finally {
 					
@@ -18,15 +18,13 @@
 package ch.autumo.beetroot.handler.users;
 
 import java.sql.ResultSet;
-import java.util.Iterator;
 import java.util.List;
 
+import ch.autumo.beetroot.BeetRootDatabaseManager;
 import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.Entity;
 import ch.autumo.beetroot.LanguageManager;
-import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.handler.roles.Role;
-import ch.autumo.beetroot.handler.usersroles.UserRole;
 import ch.autumo.beetroot.utils.common.Time;
 import ch.autumo.beetroot.utils.database.DB;
 
@@ -48,10 +46,8 @@ public class ExtUsersIndexHandler extends UsersIndexHandler {
 
 		String strRoles = "";
 		if (columnName.equals("roles")) {
-			final List<Model> usersRoles = UserRole.where(UserRole.class, "user_id = ?", Integer.valueOf(entity.getId()));
-			for (Iterator<Model> iterator = usersRoles.iterator(); iterator.hasNext();) {
-				final UserRole userRole = (UserRole) iterator.next();
-				final Role role = (Role) userRole.getAssociatedReference(Role.class);
+			final List<Role> usersRoles = BeetRootDatabaseManager.getInstance().getUserRoles(entity.getId());
+			for (Role role : usersRoles) {
 				String name = role.getName();
 				name = LanguageManager.getInstance().translateOrDefVal("role."+name, name, session.getUserSession());
 				strRoles += name + ", ";
@@ -32,6 +32,7 @@ import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.LanguageManager;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.EntityCacheManager;
 import ch.autumo.beetroot.handler.BaseHandler;
 import ch.autumo.beetroot.handler.HandlerResponse;
 import ch.autumo.beetroot.mailing.MailerFactory;
@@ -96,6 +97,7 @@ public class ResetHandler extends BaseHandler {
 			else
 				stmtStr = "UPDATE users SET lasttoken='" + token + "', modified='" + Time.nowTimeStamp() + "' WHERE id=" + userid;
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate("users", userid);
 		
 		} finally {
 			if (set != null)
@@ -3,9 +3,13 @@
  */
 package ch.autumo.beetroot.handler.users;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * User. 
@@ -169,5 +173,57 @@ public class User extends Model {
 	public Class<?> modelClass() {
 		return User.class;
 	}
-    
+
+    @Override
+    public RowMapper<User> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<User> ROW_MAPPER = new RowMapper<User>() {
+        @Override
+        public User newBean() {
+            return new User();
+        }
+        @Override
+        public boolean set(User bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "firstname": bean.setFirstname(rs.getString(index)); return true;
+                case "password": bean.setPassword(rs.getString(index)); return true;
+                case "role": bean.setRole(rs.getString(index)); return true;
+                case "lasttoken": bean.setLasttoken(rs.getString(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                case "modified": bean.setModified(rs.getTimestamp(index)); return true;
+                case "lang": bean.setLang(rs.getString(index)); return true;
+                case "email": bean.setEmail(rs.getString(index)); return true;
+                case "phone": bean.setPhone(rs.getString(index)); return true;
+                case "username": bean.setUsername(rs.getString(index)); return true;
+                case "lastname": bean.setLastname(rs.getString(index)); return true;
+                case "secretkey": bean.setSecretkey(rs.getString(index)); return true;
+                case "two_fa": bean.setTwoFa(rs.getBoolean(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(User bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "firstname": return bean.getFirstname();
+                case "password": return bean.getPassword();
+                case "role": return bean.getRole();
+                case "lasttoken": return bean.getLasttoken();
+                case "created": return bean.getCreated();
+                case "modified": return bean.getModified();
+                case "lang": return bean.getLang();
+                case "email": return bean.getEmail();
+                case "phone": return bean.getPhone();
+                case "username": return bean.getUsername();
+                case "lastname": return bean.getLastname();
+                case "secretkey": return bean.getSecretkey();
+                case "two_fa": case "twoFa": return bean.getTwoFa();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
@@ -3,11 +3,15 @@
  */
 package ch.autumo.beetroot.handler.usersroles;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.handler.roles.Role;
 import ch.autumo.beetroot.handler.users.User;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * UserRole. 
@@ -66,6 +70,38 @@ public class UserRole extends Model {
     @Override
     public Class<?> modelClass() {
         return UserRole.class;
-    }	
-	
+    }
+
+    @Override
+    public RowMapper<UserRole> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<UserRole> ROW_MAPPER = new RowMapper<UserRole>() {
+        @Override
+        public UserRole newBean() {
+            return new UserRole();
+        }
+        @Override
+        public boolean set(UserRole bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "user_id": bean.setUserId(rs.getInt(index)); return true;
+                case "role_id": bean.setRoleId(rs.getInt(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(UserRole bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "user_id": case "userId": return bean.getUserId();
+                case "role_id": case "roleId": return bean.getRoleId();
+                case "created": return bean.getCreated();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
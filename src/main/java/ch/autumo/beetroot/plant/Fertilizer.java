@@ -368,6 +368,12 @@ public class Fertilizer {
 	private String processBean() {
 
 		final StringBuilder contents = new StringBuilder();
+		final String clsName = Beans.tableToClassName(this.dbEntity);
+		
+		// Row mapper switch cases; the ID is defined within the model
+		final StringBuilder setCases = new StringBuilder();
+		final StringBuilder getCases = new StringBuilder();
+		setCases.append("                case \"id\": bean.setId(rs.getInt(index)); return true;\n");
 	
 		/*
 		contents.append("    public " + Beans.tableToClassName(this.dbEntity) + "() {\n");
@@ -389,6 +395,15 @@ public class Fertilizer {
 				continue;
 			
 			String propertyName = this.propertyName(dbFieldName);
+			String properyNameMethodPart = this.propertyNameMethodPath(dbFieldName);
+			
+			final String rsGetter = this.getResultSetGetter(javaType);
+			if (rsGetter != null)
+				setCases.append("                case \""+dbFieldName+"\": bean.set"+properyNameMethodPart+"(rs."+rsGetter+"(index)); return true;\n");
+			if (propertyName.equals(dbFieldName))
+				getCases.append("                case \""+dbFieldName+"\": return bean.get"+properyNameMethodPart+"();\n");
+			else
+				getCases.append("                case \""+dbFieldName+"\": case \""+propertyName+"\": return bean.get"+properyNameMethodPart+"();\n");
 			
 			if (dbField.isUnique())
 				contents.append("    @Unique\n");
@@ -400,8 +415,6 @@ public class Fertilizer {
 			contents.append("    private " + javaType + " " + propertyName + ";\n");
 			contents.append("\n");
 			
-			String properyNameMethodPart = this.propertyNameMethodPath(dbFieldName);
-			
 			contents.append("    public " + javaType + " get" + properyNameMethodPart + "() {\n");
 			contents.append("        return "+propertyName+";\n");
 			contents.append("    }\n");
@@ -456,10 +469,42 @@ public class Fertilizer {
 		contents.append("\n");
 		contents.append("    @Override\n");
 		contents.append("    public Class<?> modelClass() {\n");
-		contents.append("        return " + Beans.tableToClassName(this.dbEntity) + ".class;\n");
+		contents.append("        return " + clsName + ".class;\n");
 		contents.append("    }");
 		
 		
+		// Row mapper: no reflection when reading rows and accessing fields
+		final String mapperType = "RowMapper<" + clsName + ">";
+		contents.append("\n");
+		contents.append("\n");
+		contents.append("    @Override\n");
+		contents.append("    public " + mapperType + " rowMapper() {\n");
+		contents.append("        return ROW_MAPPER;\n");
+		contents.append("    }\n");
+		contents.append("\n");
+		contents.append("    private static final " + mapperType + " ROW_MAPPER = new " + mapperType + "() {\n");
+		contents.append("        @Override\n");
+		contents.append("        public " + clsName + " newBean() {\n");
+		contents.append("            return new " + clsName + "();\n");
+		contents.append("        }\n");
+		contents.append("        @Override\n");
+		contents.append("        public boolean set(" + clsName + " bean, String column, ResultSet rs, int index) throws SQLException {\n");
+		contents.append("            switch (column) {\n");
+		contents.append(setCases);
+		contents.append("                default: return false;\n");
+		contents.append("            }\n");
+		contents.append("        }\n");
+		contents.append("        @Override\n");
+		contents.append("        public Object get(" + clsName + " bean, String field) {\n");
+		contents.append("            switch (field) {\n");
+		contents.append("                case \"id\": return bean.getId();\n");
+		contents.append(getCases);
+		contents.append("                default: return NO_FIELD;\n");
+		contents.append("            }\n");
+		contents.append("        }\n");
+		contents.append("    };");
+		
+		
 		return contents.toString();
 	}
 	
@@ -541,6 +586,32 @@ public class Fertilizer {
 		return javaType;
 	}
 	
+	/**
+	 * Get the result set getter method name for a Java type.
+	 * 
+	 * @param javaType Java type
+	 * @return result set getter method name or null
+	 */
+	private String getResultSetGetter(String javaType) {
+		
+		if (javaType == null)
+			return null;
+		switch (javaType) {
+			case "long": return "getLong";
+			case "byte": return "getByte";
+			case "boolean": return "getBoolean";
+			case "String": return "getString";
+			case "java.sql.Timestamp": return "getTimestamp";
+			case "java.sql.Date": return "getDate";
+			case "java.math.BigDecimal": return "getBigDecimal";
+			case "double": return "getDouble";
+			case "float": return "getFloat";
+			case "int": return "getInt";
+			case "short": return "getShort";
+			default: return null;
+		}
+	}
+	
 	/**
 	 * Add a foreign key mapping.
 	 * 
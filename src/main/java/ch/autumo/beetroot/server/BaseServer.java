@@ -21,21 +21,28 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.SystemUtils;
 import org.nanohttpd.protocols.http.NanoHTTPD;
@@ -116,6 +123,10 @@ public abstract class BaseServer {
 	protected String name = null;
 
 	private int serverTimeout = -1;
+	private int keepAlive = 0;
+
+	/** Client handlers of open admin connections */
+	private final Set<ClientHandler> clientHandlers = ConcurrentHashMap.newKeySet();
 
 	// start time
 	private long beetRootStart = 0;
@@ -306,6 +317,7 @@ public abstract class BaseServer {
 
 		// read some undocumented settings if available
 		serverTimeout = configMan.getIntNoWarn("server_timeout"); // in seconds !
+		keepAlive = configMan.getInt(Constants.KEY_ADMIN_COM_KEEP_ALIVE, 30); // in seconds !
 
 
 		//------------------------------------------------------------------------------
@@ -705,6 +717,9 @@ public abstract class BaseServer {
 	 */
 	private void shutDownExecutorService() {
 		clientExecutorService.shutdown();
+		// Kept-alive connections waiting for a next command are closed
+		for (ClientHandler handler : clientHandlers)
+			handler.closeIfWaiting();
 	    try {
 	        // Wait for tasks to complete for up to 60 seconds
 	        if (!clientExecutorService.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -1168,6 +1183,13 @@ public abstract class BaseServer {
 
 		private Socket clientSocket = null;
 		private DataInputStream in = null;
+		private DataOutputStream out = null;
+
+		/** Waiting for a next command on a kept-alive connection? */
+		private volatile boolean waiting = false;
+
+		/** Multiplexed commands being processed */
+		private final AtomicInteger processing = new AtomicInteger();
 
 		/**
 		 * Constructor.
@@ -1181,45 +1203,87 @@ public abstract class BaseServer {
 		@Override
 		public void run() {
 			ServerCommand command = null;
+			clientHandlers.add(this);
 			try {
 				in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
-				// server command from client received
-				command = Communicator.readCommand(in);
-
-				// Correct server name?
-				final String serverName = command.getServerName();
-				if (!serverName.equals(BaseServer.this.getServerName())) {
-					LOG.error("Server command: Wrong server name received, command is ignored!");
-					return;
-				}
-
-				// execute command
-				final ClientAnswer answer = BaseServer.this.processServerCommand(command);
-
-				// Health status request?
-				if (answer instanceof HealthAnswer) {
-					LOG.info("[HEALTH] signal received, printing server's health state to console.");
-					// print info
-					BaseServer.this.printHealthStatus(true);
-					return;
-				}
-
-				// Shutdown received?
-				if (answer instanceof StopAnswer) {
-					LOG.info("[STOP] signal received! Shutting down...");
-					if (!LOG.isInfoEnabled()) {
-						System.out.println("");
-						System.out.println(BaseServer.ansiServerName + " " + Colors.darkRed("[STOP]") + " signal received! Shutting down...");
+				if (keepAlive > 0)
+					clientSocket.setSoTimeout(keepAlive * 1000);
+				
+				// Commands are read until the client closes the connection or
+				// it is idle longer than the keep-alive time; clients that send
+				// one command per connection simply close it after the answer.
+				boolean first = true;
+				while (!BaseServer.this.serverStop) {
+					
+					// server command from client received
+					try {
+						waiting = !first;
+						command = Communicator.readCommand(in);
+					} catch (SocketTimeoutException e) {
+						if (first)
+							throw e;
+						if (processing.get() > 0)
+							continue; // not idle, answers are pending
+						LOG.trace("Kept-alive admin connection from '{}' closed.", clientSocket.getRemoteSocketAddress());
+						return;
+					} catch (EOFException e) {
+						if (first)
+							throw e;
+						LOG.trace("Kept-alive admin connection from '{}' closed.", clientSocket.getRemoteSocketAddress());
+						return;
+					} catch (SocketException e) {
+						if (first || !clientSocket.isClosed())
+							throw e;
+						return; // closed by shutdown
+					} finally {
+						waiting = false;
 					}
-					// only escape of this loop
-					BaseServer.this.serverStop = true;
-					Communicator.safeClose(serverSocket);
-					return;
+					first = false;
+	
+					// Correct server name?
+					final String serverName = command.getServerName();
+					if (!serverName.equals(BaseServer.this.getServerName())) {
+						LOG.error("Server command: Wrong server name received, command is ignored!");
+						return;
+					}
+	
+					// Multiplexed command: processed concurrently, its answer
+					// is sent with its request ID when it is ready
+					if (command.getRequestId() != 0 && keepAlive > 0) {
+						this.processMultiplexed(command);
+						continue;
+					}
+					
+					// execute command
+					final ClientAnswer answer = BaseServer.this.processServerCommand(command);
+	
+					// Health status request?
+					if (answer instanceof HealthAnswer) {
+						LOG.info("[HEALTH] signal received, printing server's health state to console.");
+						// print info
+						BaseServer.this.printHealthStatus(true);
+						return;
+					}
+	
+					// Shutdown received?
+					if (answer instanceof StopAnswer) {
+						LOG.info("[STOP] signal received! Shutting down...");
+						if (!LOG.isInfoEnabled()) {
+							System.out.println("");
+							System.out.println(BaseServer.ansiServerName + " " + Colors.darkRed("[STOP]") + " signal received! Shutting down...");
+						}
+						// only escape of this loop
+						BaseServer.this.serverStop = true;
+						Communicator.safeClose(serverSocket);
+						return;
+					}
+	
+					// We have to answer -> get output-stream to client
+					answer.setRequestId(command.getRequestId());
+		            if (!sendResponse(answer, command.isBinary()) || keepAlive <= 0)
+		            	return;
 				}
 
-				// We have to answer -> get output-stream to client
-	            sendResponse(answer);
-
 			} catch (UtilsException e) {
 				LOG.error("Admin server couldn't decode server command from a client; someone or something is sending false messages!");
 				LOG.error("  -> Either the secret key seed doesn't match or different encrypt modes");
@@ -1230,24 +1294,61 @@ public abstract class BaseServer {
 	        } catch (IOException e) {
 				LOG.error("Admin server listener failed! Possible invalid messages from '{}' received.", clientSocket.getRemoteSocketAddress(), e);
 			} finally {
+				clientHandlers.remove(this);
 				Communicator.safeClose(in);
+				Communicator.safeClose(out);
 	        	Communicator.safeClose(clientSocket);
 	        }
 		}
 
+		private void processMultiplexed(ServerCommand command) {
+			processing.incrementAndGet();
+			final Runnable task = () -> {
+				try {
+					ClientAnswer answer;
+					try {
+						answer = BaseServer.this.processServerCommand(command);
+					} catch (RuntimeException e) {
+						LOG.error("Server command '{}' failed!", command.getCommand(), e);
+						answer = new ClientAnswer(ClientAnswer.TYPE_ERROR, "Server command failed!", "null", 0, String.valueOf(e.getMessage()));
+					}
+					answer.setRequestId(command.getRequestId());
+					if (!this.sendResponse(answer, true))
+						Communicator.safeClose(clientSocket);
+				} finally {
+					processing.decrementAndGet();
+				}
+			};
+			try {
+				clientExecutorService.execute(task);
+			} catch (RejectedExecutionException e) {
+				task.run(); // shutting down
+			}
+		}
+
+		/**
+		 * Close the connection if it is idle.
+		 */
+		private void closeIfWaiting() {
+			if (waiting && processing.get() == 0)
+				Communicator.safeClose(clientSocket);
+		}
+
 	    /**
 	     * Sends the answer to the client using the output stream.
+	     *
+	     * @return true if the answer has been sent
 	     */
-	    private void sendResponse(ClientAnswer answer) {
-	        DataOutputStream out = null;
+	    private synchronized boolean sendResponse(ClientAnswer answer, boolean binary) {
 	        try {
-	            out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-	            Communicator.writeAnswer(answer, out);
+	        	if (out == null)
+	        		out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+	            Communicator.writeAnswer(answer, out, binary);
+	            return true;
 	        } catch (IOException e) {
 				LOG.error("Admin server client response failed! We recommend to restart the server!", e);
 				System.err.println(BaseServer.ansiErrServerName + " Admin server client response failed! We recommend to restart the server!");
-	        } finally {
-	            Communicator.safeClose(out);
+				return false;
 	        }
 	    }
 	}
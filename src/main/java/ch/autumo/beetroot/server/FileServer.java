@@ -23,18 +23,18 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -57,6 +57,7 @@ import ch.autumo.beetroot.server.message.file.FileAnswer;
 import ch.autumo.beetroot.server.message.file.PingUploadRequest;
 import ch.autumo.beetroot.server.modules.FileStorage;
 import ch.autumo.beetroot.utils.UtilsException;
+import ch.autumo.beetroot.utils.system.OS;
 
 
 /**
@@ -87,6 +88,9 @@ public class FileServer {
 	/** The upload queue */
 	private List<Upload> uploadQueue = Collections.synchronizedList(new ArrayList<Upload>());
 	
+	/** Chunked uploads in progress by check-sum and size */
+	private Map<String, ChunkedUpload> chunkedUploads = new HashMap<String, ChunkedUpload>();
+	
 	
 	/**
 	 * The file server.
@@ -185,6 +189,124 @@ public class FileServer {
 	}
 	
 	
+	/**
+	 * Find a download for a chunked transfer; it stays in the download
+	 * queue until it is released.
+	 * 
+	 * @param uniqueFileId unique file ID
+	 * @return download or null
+	 */
+	private Download findDownload(String uniqueFileId) {
+		synchronized (downloadQueue) {
+			for (Download download : downloadQueue) {
+				if (download.getFileId().equals(uniqueFileId))
+					return download;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Release a download after a chunked transfer; its temporary file
+	 * is deleted.
+	 * 
+	 * @param download download
+	 */
+	private void releaseDownload(Download download) {
+		downloadQueue.remove(download);
+		if (download.getFile().exists() && !download.getFile().delete())
+			LOG.warn("File '{}' couldn't be deleted after sending it to client!", download.getFile().getAbsolutePath());
+	}
+	
+	/**
+	 * Get the chunked upload for a file; it is started if an upload
+	 * for the file is queued.
+	 * 
+	 * @param size file size
+	 * @param checkSum file check-sum
+	 * @param chunkSize chunk size
+	 * @return chunked upload or null, if no upload is queued
+	 */
+	private synchronized ChunkedUpload getChunkedUpload(long size, String checkSum, int chunkSize) {
+		final String key = checkSum + Upload.ENTITY_DIVIDER_FILENAME_CHECKSUM + size;
+		ChunkedUpload chunked = chunkedUploads.get(key);
+		if (chunked != null && chunked.chunkSize != chunkSize) {
+			LOG.debug("Chunked upload of file '{}' restarted with another chunk size.", chunked.upload.getFileName());
+			chunkedUploads.remove(key);
+			chunked.file.delete();
+			chunked = null;
+		}
+		if (chunked == null) {
+			synchronized (uploadQueue) {
+				for (Upload upload : uploadQueue) {
+					if (upload.getSize() == size && upload.getCheckSum().equals(checkSum)) {
+						chunked = new ChunkedUpload(key, upload, chunkSize);
+						chunkedUploads.put(key, chunked);
+						break;
+					}
+				}
+			}
+		}
+		return chunked;
+	}
+	
+	/**
+	 * Remove a chunked upload.
+	 * 
+	 * @param chunked chunked upload
+	 */
+	private synchronized void removeChunkedUpload(ChunkedUpload chunked) {
+		chunkedUploads.remove(chunked.key, chunked);
+	}
+	
+	/**
+	 * Chunked upload in progress; the received chunks are written into
+	 * a partial file at their position. It is kept when streams fail, so
+	 * the client can resume the upload with the missing chunks.
+	 */
+	private static final class ChunkedUpload {
+		
+		private final String key;
+		private final Upload upload;
+		private final int chunkSize;
+		private final int chunks;
+		private final File file;
+		private final BitSet received = new BitSet();
+		private boolean finished = false;
+		
+		private ChunkedUpload(String key, Upload upload, int chunkSize) {
+			this.key = key;
+			this.upload = upload;
+			this.chunkSize = chunkSize;
+			this.chunks = FileTransfer.chunks(upload.getSize(), chunkSize);
+			this.file = new File(OS.getTemporaryDirectory() + upload.getFileName() + "." + upload.getCheckSum() + ".part");
+			if (file.exists())
+				file.delete();
+		}
+		
+		private synchronized byte[] getReceived() {
+			return received.toByteArray();
+		}
+		
+		private synchronized void received(int index) {
+			received.set(index);
+		}
+		
+		/**
+		 * Claim a complete upload for verification and storing;
+		 * only one stream gets it.
+		 * 
+		 * @return true if the upload is complete and has been claimed
+		 */
+		private synchronized boolean claim() {
+			if (finished || received.cardinality() < chunks)
+				return false;
+			finished = true;
+			return true;
+		}
+	}
+	
+	
 	// File Server
 	//------------------------------------------------------------------------------
 	
@@ -319,6 +441,12 @@ public class FileServer {
 					return;
 				}
 				
+				// Chunked transfer
+				if (command.getCommand().equals(FileTransfer.CMD_FILE_GET_CHUNKS)) {
+					this.sendChunks(command);
+					return;
+				}
+				
 				// execute command
 				final Download download = FileServer.this.processServerCommand(command);
 				// Deliver file!
@@ -326,7 +454,7 @@ public class FileServer {
 					DataOutputStream out = null;
 					try {
 						 out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-						 FileTransfer.writeFile(download, out);
+						 FileTransfer.writeFile(download, clientSocket, out);
 					} catch (IOException e) {
 						LOG.error("File server client response failed! We recommend to restart the server!", e);
 						System.err.println(BaseServer.ansiErrServerName + " File server client response failed! We recommend to restart the server!");
@@ -347,7 +475,50 @@ public class FileServer {
 				Communicator.safeClose(in);
 	        	Communicator.safeClose(clientSocket);
 	        }					
-		}		
+		}
+		
+		/**
+		 * Send the chunks the client requests until it ends the stream.
+		 * 
+		 * @param command chunked file get command
+		 */
+		private void sendChunks(ServerCommand command) {
+			DataOutputStream out = null;
+			try {
+				out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+				final Download download = FileServer.this.findDownload(command.getFileId());
+				final int chunkSize = Integer.parseInt(command.getEntity());
+				if (download == null || chunkSize <= 0) {
+					out.writeLong(-1);
+					out.flush();
+					return;
+				}
+				try (FileChannel fileChannel = FileChannel.open(download.getFile().toPath(), StandardOpenOption.READ)) {
+					final long size = fileChannel.size();
+					out.writeLong(size);
+					out.flush();
+					final int chunks = FileTransfer.chunks(size, chunkSize);
+					int index;
+					while ((index = in.readInt()) >= 0) {
+						if (index >= chunks)
+							throw new IOException("Invalid chunk index '" + index + "' requested!");
+						final long position = (long) index * chunkSize;
+						FileTransfer.writeChunk(fileChannel, position, (int) Math.min(chunkSize, size - position), out);
+						out.flush();
+					}
+					if (index == FileTransfer.CHUNK_DOWNLOAD_DONE) {
+						FileServer.this.releaseDownload(download);
+						LOG.trace("Server file '{}' sent in chunks!", download.getFileName());
+					}
+				}
+			} catch (NumberFormatException e) {
+				LOG.error("File server received an invalid chunk size '{}'!", command.getEntity());
+			} catch (IOException e) {
+				LOG.error("File server chunked client response failed!", e);
+	        } finally {
+	        	Communicator.safeClose(out);
+			}
+		}
 	}
 	
 	
@@ -474,21 +645,15 @@ public class FileServer {
 				in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
 				// Only files!
 				final long size = in.readLong();
+				if (size == FileTransfer.CHUNKED_UPLOAD) {
+					this.receiveChunks();
+					return;
+				}
 				for (Iterator<Upload> iterator = uploadQueue.iterator(); iterator.hasNext();) {
 					upload = iterator.next();
 					if (upload.getSize() == size) { // First check: file size
 						file = FileTransfer.readFile(in, upload.getFileName(), size);
-						final String absPath = file.getAbsolutePath();
-						final Path path = Paths.get(absPath);
-					    byte data[];
-					    String checkSum = null;
-						try {
-							data = Files.readAllBytes(path);
-						    byte hash[] = MessageDigest.getInstance("MD5").digest(data);
-						    checkSum = new BigInteger(1, hash).toString(16);
-						} catch (Exception e) {
-							throw new IOException("Couldn't build checksum for file '" + absPath + "!", e);
-						}						
+						final String checkSum = FileTransfer.checkSum(file);
 						if (upload.getCheckSum().equals(checkSum)) {
 							verified = true;
 							uploadQueue.remove(upload);
@@ -497,7 +662,7 @@ public class FileServer {
 					}
 				}
 				// Do work and create answers!
-				this.process(upload, file, verified);
+				this.answer(this.process(upload, file, verified));
 	        } catch (UtilsException e) {
 				LOG.error("File receiver couldn't decode server command from a client; someone or something is sending false messages!");
 				LOG.error("  -> Either the secret key seed doesn't match on both sides ('msg' mode) or");
@@ -517,20 +682,84 @@ public class FileServer {
 	        }
 		}
 		
-		private void process(Upload upload, File file, boolean verified) {
+		/**
+		 * Receive the chunks of a chunked upload until the client ends the
+		 * stream; the stream that completes the upload verifies and stores
+		 * the file.
+		 * 
+		 * @throws IOException IO exception
+		 */
+		private void receiveChunks() throws IOException {
+			final long size = in.readLong();
+			final String checkSum = in.readUTF();
+			final int chunkSize = in.readInt();
+			if (size < 0 || chunkSize <= 0)
+				throw new IOException("Invalid chunked upload received!");
+			
+			final ChunkedUpload chunked = FileServer.this.getChunkedUpload(size, checkSum, chunkSize);
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+			try {
+				if (chunked == null) {
+					out.writeInt(-1);
+					Communicator.writeAnswer(new FileAnswer("No matching file upload request found in upload queue!", ClientAnswer.TYPE_FILE_NOK), out);
+					return;
+				}
+				// Chunks received already
+				final byte received[] = chunked.getReceived();
+				out.writeInt(received.length);
+				out.write(received);
+				out.flush();
+				
+				try (FileChannel fileChannel = FileChannel.open(chunked.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+					int index;
+					while ((index = in.readInt()) != FileTransfer.CHUNK_STREAM_END) {
+						if (index < 0 || index >= chunked.chunks)
+							throw new IOException("Invalid chunk index '" + index + "' received!");
+						final long position = (long) index * chunkSize;
+						if (FileTransfer.readChunk(in, fileChannel, position, (int) Math.min(chunkSize, size - position)))
+							chunked.received(index);
+						else
+							LOG.warn("Chunk {} of file '{}' is corrupt; it must be sent again.", index, chunked.upload.getFileName());
+					}
+				}
+				
+				if (chunked.claim()) {
+					FileServer.this.removeChunkedUpload(chunked);
+					try {
+						final boolean verified = chunked.upload.getCheckSum().equals(FileTransfer.checkSum(chunked.file));
+						if (verified)
+							uploadQueue.remove(chunked.upload);
+						Communicator.writeAnswer(this.process(chunked.upload, chunked.file, verified), out);
+					} finally {
+						chunked.file.delete();
+					}
+				} else {
+					// incomplete; other streams are still sending or the client resumes
+					Communicator.writeAnswer(new ClientAnswer(chunked.upload.getFileName(), ClientAnswer.TYPE_OK), out);
+				}
+			} finally {
+				Communicator.safeClose(out);
+			}
+		}
+		
+		private void answer(ClientAnswer answer) {
+			DataOutputStream out = null;
+			try {
+				out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+				Communicator.writeAnswer(answer, out);
+			} catch (IOException e) {
+				LOG.error("File receiver client response failed! We recommend to restart the server!", e);
+				System.err.println(BaseServer.ansiErrServerName + " File receiver client response failed! We recommend to restart the server!");
+	        } finally {
+	        	Communicator.safeClose(out);
+			}			
+		}
+		
+		private ClientAnswer process(Upload upload, File file, boolean verified) {
 			// 0. PING answer (for health status)
-			if (upload.getFileName().startsWith(PingUploadRequest.PING_FILE_PREFIX)) {
+			if (upload != null && upload.getFileName().startsWith(PingUploadRequest.PING_FILE_PREFIX)) {
 				// Dummy answer!
-				DataOutputStream out = null;
-				try {
-					out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-					Communicator.writeAnswer(new FileAnswer(upload.getFileName(), "PING"), out);
-				} catch (IOException e) {
-					LOG.error("Ping receiver client response failed! We recommend to restart the server!", e);
-					System.err.println(BaseServer.ansiErrServerName + " Ping receiver client response failed! We recommend to restart the server!");
-		        } finally {
-		        	Communicator.safeClose(out);
-				}			
+				return new FileAnswer(upload.getFileName(), "PING");
 			// 1. Store file and return state of file storage
 			} else if (file != null && verified) {
 				// store it !
@@ -545,32 +774,13 @@ public class FileServer {
 					System.err.println(BaseServer.ansiErrServerName + " Couldn't store received file '"+upload.getFileName()+"'!");
 					uniqueFileId = null;
 				}					
-				DataOutputStream out = null;
-				try {
-					out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-					if (uniqueFileId != null)
-						Communicator.writeAnswer(new FileAnswer(upload.getFileName(), uniqueFileId), out);
-					else
-						Communicator.writeAnswer(new FileAnswer(upload.getFileName(), ClientAnswer.TYPE_FILE_NOK), out);
-					
-				} catch (IOException e) {
-					LOG.error("File receiver client response failed! We recommend to restart the server!", e);
-					System.err.println(BaseServer.ansiErrServerName + " File receiver client response failed! We recommend to restart the server!");
-		        } finally {
-		        	Communicator.safeClose(out);
-				}			
+				if (uniqueFileId != null)
+					return new FileAnswer(upload.getFileName(), uniqueFileId);
+				else
+					return new FileAnswer(upload.getFileName(), ClientAnswer.TYPE_FILE_NOK);
 			// 2. No file received of file couldn't be verified
 			} else {
-				DataOutputStream out = null;
-				try {
-					out = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-					Communicator.writeAnswer(new FileAnswer("No matching file upload request found in upload queue!", ClientAnswer.TYPE_FILE_NOK), out);
-				} catch (IOException e) {
-					LOG.error("File receiver client response failed! We recommend to restart the server!", e);
-					System.err.println(BaseServer.ansiErrServerName + " File receiver client response failed! We recommend to restart the server!");
-		        } finally {
-		        	Communicator.safeClose(out);
-				}							
+				return new FileAnswer("No matching file upload request found in upload queue!", ClientAnswer.TYPE_FILE_NOK);
 			}			
 		}
 	}
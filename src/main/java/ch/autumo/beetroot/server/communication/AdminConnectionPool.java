@@ -0,0 +1,187 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.transport.SocketFactory;
+
+
+/**
+ * Client-side pool of kept-alive admin server connections per host
+ * and port. A connection is borrowed for one command and its answer
+ * and released afterwards; idle connections are closed when they
+ * have been idle longer than half the keep-alive time, well before
+ * the server closes them, or when the pool for their end-point is
+ * full.
+ */
+final class AdminConnectionPool {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(AdminConnectionPool.class.getName());
+
+	private final Map<String, Deque<Connection>> idle = new ConcurrentHashMap<>();
+
+	private final long maxIdleMillis;
+	private final int maxIdle;
+
+
+	/**
+	 * Admin connection.
+	 */
+	static final class Connection {
+
+		private final String endPoint;
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+		private long lastUsed;
+
+		private Connection(String endPoint, Socket socket) throws IOException {
+			this.endPoint = endPoint;
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		Socket getSocket() {
+			return socket;
+		}
+
+		DataInputStream getInput() {
+			return in;
+		}
+
+		DataOutputStream getOutput() {
+			return out;
+		}
+
+		void close() {
+			Communicator.safeClose(in);
+			Communicator.safeClose(out);
+			Communicator.safeClose(socket);
+		}
+	}
+
+
+	/**
+	 * New pool.
+	 *
+	 * @param keepAlive keep-alive time of idle connections in seconds;
+	 * 			0 disables pooling
+	 * @param maxIdle max. idle connections per end-point
+	 */
+	AdminConnectionPool(int keepAlive, int maxIdle) {
+		this.maxIdleMillis = keepAlive * 500L;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Pooling enabled?
+	 *
+	 * @return true if so
+	 */
+	boolean isEnabled() {
+		return maxIdleMillis > 0 && maxIdle > 0;
+	}
+
+	/**
+	 * Borrow an idle connection.
+	 *
+	 * @param host host
+	 * @param port port
+	 * @return connection or null if none is available
+	 */
+	Connection borrow(String host, int port) {
+		final Deque<Connection> connections = idle.get(host + ":" + port);
+		if (connections == null)
+			return null;
+		final long now = System.currentTimeMillis();
+		Connection conn;
+		while ((conn = connections.pollFirst()) != null) {
+			if (now - conn.lastUsed < maxIdleMillis && !conn.socket.isClosed())
+				return conn;
+			conn.close();
+		}
+		return null;
+	}
+
+	/**
+	 * Open a new connection.
+	 *
+	 * @param socketFactory socket factory
+	 * @param host host
+	 * @param port port
+	 * @return connection
+	 * @throws IOException IO exception
+	 */
+	Connection open(SocketFactory socketFactory, String host, int port) throws IOException {
+		final Socket socket = socketFactory.create(host, port);
+		try {
+			return new Connection(host + ":" + port, socket);
+		} catch (IOException e) {
+			Communicator.safeClose(socket);
+			throw e;
+		}
+	}
+
+	/**
+	 * Release a connection after a complete command/answer exchange;
+	 * it is kept for re-use or closed.
+	 *
+	 * @param conn connection
+	 */
+	void release(Connection conn) {
+		if (!this.isEnabled()) {
+			conn.close();
+			return;
+		}
+		final Deque<Connection> connections = idle.computeIfAbsent(conn.endPoint, k -> new ConcurrentLinkedDeque<>());
+		if (connections.size() >= maxIdle) {
+			conn.close();
+			return;
+		}
+		conn.lastUsed = System.currentTimeMillis();
+		// LIFO: most recently used connections are the least likely to be timed out
+		connections.offerFirst(conn);
+	}
+
+	/**
+	 * Close all idle connections.
+	 */
+	void clear() {
+		for (Deque<Connection> connections : idle.values()) {
+			Connection conn;
+			while ((conn = connections.pollFirst()) != null)
+				conn.close();
+		}
+		LOG.trace("Admin connection pool cleared.");
+	}
+
+}
@@ -0,0 +1,397 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.security.SecureApplicationHolder;
+import ch.autumo.beetroot.server.message.AbstractMessage;
+
+
+/**
+ * Binary message frame of the admin protocol.
+ * <br><br>
+ * A frame starts with a header int: a magic value with the high bit set,
+ * so it can never be mistaken for the length of a string-format message,
+ * the format version and flags (compressed, encrypted). The body follows
+ * as a sequence of length-prefixed chunks terminated by an empty chunk,
+ * so messages are streamed without knowing their size up front and may
+ * be larger than {@link Communicator#MAX_MSG_SIZE}.
+ * <br><br>
+ * The body holds the typed fields of the message; they are compressed
+ * (deflate) and then encrypted (AES/CBC with a random IV in front) if
+ * the flags say so. Multiplexed messages carry their request ID as int
+ * between header and body.
+ */
+final class BinaryFrame {
+
+	/** Magic value of the header; negative as int */
+	static final int MAGIC = 0xBEE70000;
+	/** Format version */
+	static final int VERSION = 1;
+
+	private static final int FLAG_COMPRESSED = 0x01;
+	private static final int FLAG_ENCRYPTED = 0x02;
+	private static final int FLAG_REQUEST_ID = 0x04;
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int IV_SIZE = 16;
+	private static final String CIPHER_ALGORITHM = "AES/CBC/PKCS5Padding";
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static boolean enabled = false;
+	private static boolean compress = false;
+	private static boolean encrypt = false;
+	private static long maxSize = 0;
+	private static SecretKeySpec key = null;
+
+	static {
+		reInit();
+	}
+
+
+	/**
+	 * Re-initialize binary frame configuration.
+	 */
+	static synchronized void reInit() {
+		final BeetRootConfigurationManager config = BeetRootConfigurationManager.getInstance();
+		enabled = config.getString(Constants.KEY_ADMIN_COM_FORMAT, "string").equalsIgnoreCase("binary");
+		compress = config.getYesOrNo(Constants.KEY_ADMIN_COM_COMPRESS, Constants.NO);
+		final String mode = config.getString(Constants.KEY_ADMIN_COM_ENC);
+		encrypt = (mode != null && mode.equalsIgnoreCase("sha3"));
+		maxSize = config.getInt(Constants.KEY_ADMIN_COM_MAX_MSG_SIZE, 64) * 1024L * 1024L;
+		key = null;
+	}
+
+	/**
+	 * Send messages in the binary format ('admin_com_format')?
+	 *
+	 * @return true if so
+	 */
+	static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Is this int the header of a binary frame?
+	 *
+	 * @param head first int of a message
+	 * @return true if so
+	 */
+	static boolean isHeader(int head) {
+		return (head & 0xFFFF0000) == MAGIC;
+	}
+
+	/**
+	 * Write a message as binary frame.
+	 *
+	 * @param message message
+	 * @param out output stream
+	 * @throws IOException IO exception
+	 */
+	static void write(AbstractMessage message, DataOutputStream out) throws IOException {
+
+		final boolean compressed = compress;
+		final boolean encrypted = encrypt;
+		final int requestId = message.getRequestId();
+		out.writeInt(MAGIC | (VERSION << 8) | (compressed ? FLAG_COMPRESSED : 0) | (encrypted ? FLAG_ENCRYPTED : 0)
+				| (requestId != 0 ? FLAG_REQUEST_ID : 0));
+		if (requestId != 0)
+			out.writeInt(requestId);
+
+		OutputStream body = new ChunkedOutputStream(out);
+		if (encrypted) {
+			final byte iv[] = new byte[IV_SIZE];
+			RANDOM.nextBytes(iv);
+			body.write(iv);
+			body = new CipherOutputStream(body, cipher(Cipher.ENCRYPT_MODE, iv));
+		}
+		Deflater deflater = null;
+		if (compressed) {
+			deflater = new Deflater(Deflater.BEST_SPEED);
+			body = new DeflaterOutputStream(body, deflater, 8192);
+		}
+		try {
+			final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(body, 8192));
+			message.writeBinary(data);
+			// finishes compression and encryption and terminates the chunks;
+			// the connection itself stays open
+			data.close();
+		} finally {
+			if (deflater != null)
+				deflater.end();
+		}
+	}
+
+	/**
+	 * Read the request ID of a binary frame after its header has been
+	 * read; this must be done before the body is opened.
+	 *
+	 * @param head header
+	 * @param in input stream
+	 * @return request ID or 0 if none
+	 * @throws IOException IO exception
+	 */
+	static int readRequestId(int head, DataInputStream in) throws IOException {
+		if ((head & FLAG_REQUEST_ID) == 0)
+			return 0;
+		final int requestId = in.readInt();
+		if (requestId == 0)
+			throw new IOException("Invalid request ID in binary message!");
+		return requestId;
+	}
+
+	/**
+	 * Open the body of a binary frame after its header (and request ID)
+	 * has been read.
+	 * The returned stream must be closed after the message has been
+	 * parsed; this consumes the rest of the frame, but it doesn't close
+	 * the connection.
+	 *
+	 * @param head header
+	 * @param in input stream
+	 * @return body
+	 * @throws IOException IO exception
+	 */
+	static DataInputStream open(int head, DataInputStream in) throws IOException {
+
+		final int version = (head >>> 8) & 0xFF;
+		if (version != VERSION)
+			throw new IOException("Unsupported binary message version '" + version + "'!");
+		final boolean compressed = (head & FLAG_COMPRESSED) != 0;
+		final boolean encrypted = (head & FLAG_ENCRYPTED) != 0;
+		if (encrypted != encrypt)
+			throw new IOException("Binary message encryption doesn't match; check config 'admin_com_encrypt' on both sides!");
+
+		InputStream body = new ChunkedInputStream(in, maxSize);
+		if (encrypted) {
+			final byte iv[] = new byte[IV_SIZE];
+			new DataInputStream(body).readFully(iv);
+			body = new CipherInputStream(body, cipher(Cipher.DECRYPT_MODE, iv));
+		}
+		if (compressed)
+			body = new LimitedInputStream(new InflaterInputStream(body), maxSize);
+		return new DataInputStream(new BufferedInputStream(body, 8192));
+	}
+
+	private static Cipher cipher(int mode, byte iv[]) throws IOException {
+		try {
+			final Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+			cipher.init(mode, key(), new IvParameterSpec(iv));
+			return cipher;
+		} catch (GeneralSecurityException e) {
+			throw new IOException("Couldn't initialize binary message encryption!", e);
+		}
+	}
+
+	private static synchronized SecretKeySpec key() throws GeneralSecurityException {
+		if (key == null) {
+			// same key derivation as the string format
+			final String seed = SecureApplicationHolder.getInstance().getSecApp().getUniqueSecurityKey();
+			key = new SecretKeySpec(MessageDigest.getInstance("SHA3-256").digest(seed.getBytes(StandardCharsets.UTF_8)), "AES");
+		}
+		return key;
+	}
+
+
+	/**
+	 * Writes length-prefixed chunks; closing it writes the terminating
+	 * empty chunk and flushes, but keeps the connection open.
+	 */
+	private static final class ChunkedOutputStream extends OutputStream {
+
+		private final DataOutputStream out;
+		private final byte buffer[] = new byte[CHUNK_SIZE];
+		private int count = 0;
+		private boolean closed = false;
+
+		private ChunkedOutputStream(DataOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				this.writeChunk();
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte b[], int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == buffer.length)
+					this.writeChunk();
+				final int n = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void writeChunk() throws IOException {
+			if (count > 0) {
+				out.writeInt(count);
+				out.write(buffer, 0, count);
+				count = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			this.writeChunk();
+			out.writeInt(0);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Reads length-prefixed chunks up to the terminating empty chunk;
+	 * closing it skips the rest of the frame, but keeps the connection
+	 * open.
+	 */
+	private static final class ChunkedInputStream extends InputStream {
+
+		private final DataInputStream in;
+		private final long maxSize;
+		private long total = 0;
+		private int remaining = 0;
+		private boolean end = false;
+
+		private ChunkedInputStream(DataInputStream in, long maxSize) {
+			this.in = in;
+			this.maxSize = maxSize;
+		}
+
+		private boolean next() throws IOException {
+			while (remaining == 0 && !end) {
+				final int length = in.readInt();
+				if (length < 0 || length > CHUNK_SIZE) {
+					end = true; // out of sync; the connection can't be used anymore
+					throw new IOException("Invalid chunk length '" + length + "' in binary message!");
+				}
+				if (length == 0) {
+					end = true;
+				} else {
+					total += length;
+					if (total > maxSize) {
+						end = true;
+						throw new IOException("The communication message received is bigger than '" + maxSize + "' bytes, that's an invalid message!");
+					}
+					remaining = length;
+				}
+			}
+			return !end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!this.next())
+				return -1;
+			final int b = in.read();
+			if (b < 0)
+				throw new IOException("Connection closed within binary message!");
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte b[], int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!this.next())
+				return -1;
+			final int n = in.read(b, off, Math.min(len, remaining));
+			if (n < 0)
+				throw new IOException("Connection closed within binary message!");
+			remaining -= n;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			while (this.next()) {
+				in.skipBytes(remaining);
+				remaining = 0;
+			}
+		}
+	}
+
+	/**
+	 * Limits the size of decompressed data.
+	 */
+	private static final class LimitedInputStream extends FilterInputStream {
+
+		private final long maxSize;
+		private long total = 0;
+
+		private LimitedInputStream(InputStream in, long maxSize) {
+			super(in);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = super.read();
+			if (b >= 0)
+				this.count(1);
+			return b;
+		}
+
+		@Override
+		public int read(byte b[], int off, int len) throws IOException {
+			final int n = super.read(b, off, len);
+			if (n > 0)
+				this.count(n);
+			return n;
+		}
+
+		private void count(int n) throws IOException {
+			total += n;
+			if (total > maxSize)
+				throw new IOException("The decompressed communication message is bigger than '" + maxSize + "' bytes, that's an invalid message!");
+		}
+	}
+
+}
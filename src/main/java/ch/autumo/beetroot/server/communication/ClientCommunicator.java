@@ -17,15 +17,20 @@
  */
 package ch.autumo.beetroot.server.communication;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -36,6 +41,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 
 import ch.autumo.beetroot.BeetRootConfigurationManager;
@@ -48,6 +54,7 @@ import ch.autumo.beetroot.server.message.StopAnswer;
 import ch.autumo.beetroot.transport.DefaultSocketFactory;
 import ch.autumo.beetroot.transport.SecureSocketFactory;
 import ch.autumo.beetroot.transport.SocketFactory;
+import ch.autumo.beetroot.utils.UtilsException;
 import ch.autumo.beetroot.utils.security.SSL;
 
 
@@ -67,6 +74,31 @@ public class ClientCommunicator extends Communicator {
 	
 	private static boolean webOverride = false;
 	
+	/** Max. pooled HTTP tunnel connections */
+	private static final int HTTP_MAX_CONNECTIONS = 16;
+	
+	/** Kept-alive admin server connections */
+	private static AdminConnectionPool connectionPool = null;
+	
+	/** Shared HTTP tunnel client; created when first used */
+	private static CloseableHttpClient httpClient = null;
+	
+	/** Web API key, decoded once */
+	private static String webApiKey = null;
+	
+	/** Keep-alive time of idle admin server connections in seconds */
+	private static int keepAlive = 0;
+	
+	/** Multiplexed admin server connections for asynchronous commands */
+	private static final Map<String, MultiplexedConnection> multiplexed = new HashMap<>();
+	
+	/** Executor for asynchronous commands that aren't multiplexed */
+	private static final ExecutorService asyncExecutor = Executors.newCachedThreadPool(r -> {
+		final Thread thread = new Thread(r, "beetRoot-Admin-Async");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
 	static {
 		reInit();
 	}
@@ -74,7 +106,17 @@ public class ClientCommunicator extends Communicator {
 	/**
 	 * Re-initialize client communicator.
 	 */
-	public static void reInit() {
+	public static synchronized void reInit() {
+		
+		// release connections of the previous configuration
+		if (connectionPool != null)
+			connectionPool.clear();
+		for (MultiplexedConnection conn : multiplexed.values())
+			conn.close();
+		multiplexed.clear();
+		safeClose(httpClient);
+		httpClient = null;
+		webApiKey = null;
 		
 		// read some undocumented settings if available
 		clientTimeout = BeetRootConfigurationManager.getInstance().getIntNoWarn("client_timeout"); // in seconds !
@@ -99,6 +141,47 @@ public class ClientCommunicator extends Communicator {
 		
 		// Undocumented feature; forces to route every server command through web tunnel if command are HTTP tunneled 
 		webOverride = BeetRootConfigurationManager.getInstance().getYesOrNoNoWarn("admin_com_web_override");
+		
+		BinaryFrame.reInit();
+		keepAlive = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_ADMIN_COM_KEEP_ALIVE, 30);
+		connectionPool = new AdminConnectionPool(keepAlive, BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_ADMIN_COM_POOL_SIZE, 4));
+	}
+	
+	/**
+	 * Shared HTTP client for tunneled server commands; its pooled
+	 * connections are re-used by all commands.
+	 * 
+	 * @return HTTP client
+	 * @throws Exception exception
+	 */
+	private static synchronized CloseableHttpClient getHttpClient() throws Exception {
+		if (httpClient == null) {
+			if (https) {
+				httpClient = SSL.makePooledSSLHttpClient(SSL.getKeystoreFile(), SSL.getKeystorePw(), RequestConfig.DEFAULT, HTTP_MAX_CONNECTIONS);
+			} else {
+				final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+				connectionManager.setDefaultMaxPerRoute(HTTP_MAX_CONNECTIONS);
+				connectionManager.setMaxTotal(HTTP_MAX_CONNECTIONS * 2);
+				httpClient = HttpClientBuilder.create().setConnectionManager(connectionManager).build();
+			}
+		}
+		return httpClient;
+	}
+	
+	/**
+	 * Web API key for tunneled server commands.
+	 * 
+	 * @return web API key
+	 * @throws UtilsException utilities exception
+	 */
+	private static synchronized String getWebApiKey() throws UtilsException {
+		if (webApiKey == null) {
+			if (pwEncoded)
+				webApiKey = BeetRootConfigurationManager.getInstance().getDecodedString("admin_com_web_api_key", SecureApplicationHolder.getInstance().getSecApp());
+			else
+				webApiKey = BeetRootConfigurationManager.getInstance().getString("admin_com_web_api_key");
+		}
+		return webApiKey;
 	}
 	
 	
@@ -114,11 +197,6 @@ public class ClientCommunicator extends Communicator {
 	 */
 	public static ClientAnswer sendServerCommand(ServerCommand command) throws Exception {
 		
-		Socket socket = null;
-		DataOutputStream output = null;
-		DataInputStream input = null;
-		
-		CloseableHttpClient httpClient = null;
 		CloseableHttpResponse response = null;
 
 		int timeout = command.getTimeout();
@@ -139,18 +217,9 @@ public class ClientCommunicator extends Communicator {
 						  .setSocketTimeout(timeout)
 						  .setCookieSpec(CookieSpecs.STANDARD).build();
 				
-				if (https)
-					httpClient = SSL.makeSSLHttpClient(SSL.getKeystoreFile(), SSL.getKeystorePw(), config);
-				else
-					httpClient = HttpClientBuilder.create().setDefaultRequestConfig(config).build();
-				
 				final String apiKeyName = BeetRootConfigurationManager.getInstance().getString("web_api_key_name");
-				String webApiKey = null;
-				if (pwEncoded)
-					webApiKey = BeetRootConfigurationManager.getInstance().getDecodedString("admin_com_web_api_key", SecureApplicationHolder.getInstance().getSecApp());
-				else
-					webApiKey = BeetRootConfigurationManager.getInstance().getString("admin_com_web_api_key");
-				final HttpPost request = new HttpPost("/" + Constants.URI_SRV_CMD + "?" + apiKeyName + "=" + webApiKey);
+				final HttpPost request = new HttpPost("/" + Constants.URI_SRV_CMD + "?" + apiKeyName + "=" + getWebApiKey());
+				request.setConfig(config);
 				
 				request.addHeader("user-agent", USER_AGENT);
 				request.addHeader(HTTP_HEADER_ACCEPT_JSON[0], HTTP_HEADER_ACCEPT_JSON[1]);
@@ -167,12 +236,13 @@ public class ClientCommunicator extends Communicator {
 				
 				// HTTP or HTTPS
 				if (https)
-					response = httpClient.execute(new HttpHost(command.getHost(), port, "https"), request);
+					response = getHttpClient().execute(new HttpHost(command.getHost(), port, "https"), request);
 				else
-					response = httpClient.execute(new HttpHost(command.getHost(), port, "http"), request);
+					response = getHttpClient().execute(new HttpHost(command.getHost(), port, "http"), request);
 				
 				checkHttpResponse(response);
 				final HttpEntity responseBodyentity = response.getEntity();
+				// consumes the entity, so the connection is released to the pool 
 				final String json = EntityUtils.toString(responseBodyentity);
 				
 				if (command.getCommand().equals(CMD_STOP))
@@ -186,32 +256,19 @@ public class ClientCommunicator extends Communicator {
 				
 			// B) Default sockets 
 			} else {
-			
-				socket = socketFactory.create(command.getHost(), command.getPort());
-				socket.setSoTimeout(timeout);
-				output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-	
-				output.writeInt(command.getDataLength());
-				final PrintWriter writer = new PrintWriter(output, true);
-				writer.println(command.getTransferString());
 				
-				LOG.trace("Server command '"+command.getCommand()+"' sent!");
-				writer.flush();
-				
-				if (command.getCommand().equals(CMD_STOP)) {
-					// we cannot expect an answer, because the server is already down
-					return new StopAnswer();
-				} else if (command.getCommand().equals(CMD_HEALTH)) {
-					return new HealthAnswer();
-				} else {
-					// read answer
-					input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
-					answer = readAnswer(input);
+				if (isInternalCommand(command)) {
+					// we cannot expect an answer, the connection isn't kept
+					sendInternalCommand(command, timeout);
+					if (command.getCommand().equals(CMD_STOP))
+						return new StopAnswer();
+					else
+						return new HealthAnswer();
 				}
+				
+				return exchange(command, timeout);
 			}
 			
-			return answer;
-			
 		} catch (UnknownHostException e) {
 			LOG.error(command.getServerName() + " admin server cannot be contacted at "+command.getHost()+":"+command.getPort()+"! Host seems to be unknown or cannot be resolved. [UHE]", e);
 			throw e;
@@ -219,16 +276,127 @@ public class ClientCommunicator extends Communicator {
 			LOG.error(command.getServerName() + " admin server cannot be contacted at "+command.getHost()+":"+command.getPort()+"! PS: Is it really running? [IO]", e);
 			throw e;
 		} finally {
-			
 			safeClose(response);
-			safeClose(httpClient);
-			
-			safeClose(input);
+		}
+	}
+
+	/**
+	 * Send a server command client side without waiting for the answer.
+	 * <br><br>
+	 * In the 'sockets' mode with the binary message format and kept-alive
+	 * connections, commands are multiplexed: all commands to a server
+	 * share one connection and answers arrive in any order. Otherwise
+	 * the command is sent by {@link #sendServerCommand(ServerCommand)}
+	 * in a background thread.
+	 * 
+	 * @param command server command
+	 * @return future client answer; it completes exceptionally if the
+	 * 			command couldn't be sent or the answer timed out
+	 */
+	public static CompletableFuture<ClientAnswer> sendServerCommandAsync(ServerCommand command) {
+		
+		final boolean web = webOverride || (command.getMode().equalsIgnoreCase("web") && !command.isForceSockets());
+		if (web || isInternalCommand(command) || !BinaryFrame.isEnabled() || keepAlive <= 0) {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return sendServerCommand(command);
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}, asyncExecutor);
+		}
+		
+		final int timeout = clientTimeout > 0 ? clientTimeout * 1000 : command.getTimeout();
+		try {
+			// A connection closed since it has been looked up is replaced once
+			for (int i = 0; i < 2; i++) {
+				final CompletableFuture<ClientAnswer> answer = getMultiplexedConnection(command.getHost(), command.getPort()).send(command, timeout);
+				if (answer != null)
+					return answer;
+			}
+			throw new IOException("Multiplexed admin server connection closed while sending!");
+		} catch (IOException e) {
+			LOG.error(command.getServerName() + " admin server cannot be contacted at "+command.getHost()+":"+command.getPort()+"! PS: Is it really running? [IO]", e);
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+	
+	private static synchronized MultiplexedConnection getMultiplexedConnection(String host, int port) throws IOException {
+		final String endPoint = host + ":" + port;
+		MultiplexedConnection conn = multiplexed.get(endPoint);
+		if (conn == null || conn.isClosed()) {
+			// Closed by the client before the server closes it as idle,
+			// so commands are hardly ever sent to a closing connection
+			conn = new MultiplexedConnection(endPoint, socketFactory.create(host, port), keepAlive * 500);
+			multiplexed.put(endPoint, conn);
+		}
+		return conn;
+	}
+	
+	/**
+	 * Send a server command and read its answer over a pooled connection.
+	 * If a re-used connection has been closed by the server in the meantime
+	 * and the command couldn't be written, it is sent over a new connection;
+	 * once written, it isn't sent again, since the server might have
+	 * executed it already.
+	 * 
+	 * @param command server command
+	 * @param timeout socket timeout in milliseconds
+	 * @return client answer
+	 * @throws IOException IO exception
+	 */
+	private static ClientAnswer exchange(ServerCommand command, int timeout) throws IOException {
+		
+		final AdminConnectionPool pool = connectionPool;
+		AdminConnectionPool.Connection conn = pool.borrow(command.getHost(), command.getPort());
+		if (conn != null) {
+			boolean written = false;
+			try {
+				conn.getSocket().setSoTimeout(timeout);
+				writeCommand(command, conn.getOutput());
+				written = true;
+				final ClientAnswer answer = readAnswer(conn.getInput());
+				pool.release(conn);
+				return answer;
+			} catch (SocketTimeoutException | UtilsException | RuntimeException e) {
+				// the server is busy or the answer is invalid, don't repeat the command
+				conn.close();
+				throw e;
+			} catch (IOException e) {
+				conn.close();
+				if (written)
+					throw e;
+				LOG.trace("Kept-alive admin server connection is closed, using a new connection: {}", e.getMessage());
+			}
+		}
+		
+		conn = pool.open(socketFactory, command.getHost(), command.getPort());
+		try {
+			conn.getSocket().setSoTimeout(timeout);
+			writeCommand(command, conn.getOutput());
+			final ClientAnswer answer = readAnswer(conn.getInput());
+			pool.release(conn);
+			return answer;
+		} catch (IOException | RuntimeException e) {
+			conn.close();
+			throw e;
+		}
+	}
+	
+	private static void sendInternalCommand(ServerCommand command, int timeout) throws IOException {
+		Socket socket = null;
+		DataOutputStream output = null;
+		try {
+			socket = socketFactory.create(command.getHost(), command.getPort());
+			socket.setSoTimeout(timeout);
+			output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			writeCommand(command, output);
+		} finally {
 			safeClose(output);
 			safeClose(socket);
 		}
 	}
-
+	
 	/**
 	 * Read an answer from the server client side.
 	 * 
@@ -237,7 +405,31 @@ public class ClientCommunicator extends Communicator {
 	 * @throws IOException IO exception
 	 */
 	public static ClientAnswer readAnswer(DataInputStream in) throws IOException {
-	    return ClientAnswer.parse(read(in));
+		final int head = in.readInt();
+		if (BinaryFrame.isHeader(head)) {
+			final int requestId = BinaryFrame.readRequestId(head, in);
+			try (DataInputStream frame = BinaryFrame.open(head, in)) {
+				final ClientAnswer answer = ClientAnswer.parseBinary(frame);
+				answer.setRequestId(requestId);
+				return answer;
+			}
+		}
+	    return ClientAnswer.parse(read(in, head));
+	}
+	
+	/**
+	 * Write a server command client side in the configured format.
+	 * 
+	 * @param command server command
+	 * @param out output stream
+	 * @throws IOException IO exception
+	 */
+	private static void writeCommand(ServerCommand command, DataOutputStream out) throws IOException {
+		if (BinaryFrame.isEnabled())
+			BinaryFrame.write(command, out);
+		else
+			write(command.getData(), out);
+		LOG.trace("Server command '"+command.getCommand()+"' sent!");
 	}
 	
 }
@@ -18,14 +18,27 @@
 package ch.autumo.beetroot.server.communication;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,10 +47,12 @@ import ch.autumo.beetroot.BeetRootConfigurationManager;
 import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.server.message.ClientAnswer;
 import ch.autumo.beetroot.server.message.ServerCommand;
+import ch.autumo.beetroot.server.message.file.UploadRequest;
 import ch.autumo.beetroot.transport.DefaultSocketFactory;
 import ch.autumo.beetroot.transport.SecureSocketFactory;
 import ch.autumo.beetroot.transport.SocketFactory;
 import ch.autumo.beetroot.utils.security.SSL;
+import ch.autumo.beetroot.utils.system.OS;
 
 
 /**
@@ -57,6 +72,26 @@ public class ClientFileTransfer extends FileTransfer {
 	
 	/** use SSL sockets? */
 	private static boolean sslSockets = false;
+	
+	/** transfer files in chunks? */
+	private static boolean chunked = false;
+	
+	/** max. rounds of a chunked transfer; each round resumes with the missing chunks */
+	public static int MAX_CHUNK_ROUNDS = 3;
+	
+	/**
+	 * Bytes per millisecond the server is expected to verify at least when
+	 * it checks a completely uploaded file; extends the timeout for the
+	 * final answer of chunked uploads.
+	 */
+	private static final int VERIFY_BYTES_PER_MS = 64 * 1024;
+	
+	/** executor for the parallel streams of chunked transfers */
+	private static final ExecutorService streamExecutor = Executors.newCachedThreadPool(r -> {
+		final Thread thread = new Thread(r, "beetRoot-File-Stream");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	/** file server port */
 	protected static int portFileServer = -1;
@@ -96,6 +131,9 @@ public class ClientFileTransfer extends FileTransfer {
 		final String mode = BeetRootConfigurationManager.getInstance().getString(Constants.KEY_ADMIN_COM_ENC);
 		sslSockets = (mode != null && mode.equalsIgnoreCase("ssl"));
 		
+		// Chunked transfers?
+		chunked = BeetRootConfigurationManager.getInstance().getYesOrNo(Constants.KEY_ADMIN_FILE_CHUNKED, Constants.NO);
+		
 		if (sslSockets) {
 			try {
 		        socketFactory = new SecureSocketFactory(SSL.makeSSLSocketFactory(), null);
@@ -135,6 +173,9 @@ public class ClientFileTransfer extends FileTransfer {
 	 */
 	public static File getFile(String fileId, String filename, int timeout) throws Exception {
 		
+		if (chunked)
+			return getFileChunked(fileId, filename, timeout);
+		
 		//send signal and end !
 		Socket socket = null;
 		DataInputStream input = null;
@@ -198,6 +239,9 @@ public class ClientFileTransfer extends FileTransfer {
 	 */
 	public static ClientAnswer sendFile(File file, int timeout) throws Exception {
 		
+		if (chunked)
+			return sendFileChunked(file, checkSum(file), timeout);
+		
 		//send signal and end !
 		Socket socket = null;
 		DataOutputStream output = null;
@@ -211,18 +255,8 @@ public class ClientFileTransfer extends FileTransfer {
 			output = new DataOutputStream(socket.getOutputStream());
 			socket.setSoTimeout(timeout);
 
-			final FileInputStream fileInputStream = new FileInputStream(file);
-			
-	        // send file size
-			output.writeLong(file.length());
-	        // break file into chunks
-	        final byte buffer[] = new byte[bufferLen];
-	        int bytes = 0;
-	        while ((bytes = fileInputStream.read(buffer)) != -1) {
-	        	output.write(buffer, 0, bytes);
-	        	output.flush();
-	        }
-	        fileInputStream.close();			
+	        // send file size and content
+			sendFile(file, socket, output);
 			
 			LOG.trace("File '" + file.getName() + "' sent!");
 			
@@ -248,6 +282,243 @@ public class ClientFileTransfer extends FileTransfer {
 		}
 	}
 	
+	/**
+	 * Get file in chunks over parallel streams; see {@link #getFileChunked(String, String, int)}.
+	 * 
+	 * @param fileId unique file ID
+	 * @param filename file name
+	 * @return file
+	 * @throws Exception also if file isn't found/available!
+	 */
+	public static File getFileChunked(String fileId, String filename) throws Exception {
+		return getFileChunked(fileId, filename, Communicator.TIMEOUT * 1000);
+	}
+	
+	/**
+	 * Get file in chunks over parallel streams. The streams request
+	 * chunks until all of them have been received; every chunk is
+	 * verified by its check-sum. Chunks that are corrupt or whose
+	 * stream failed are requested again in the next round.
+	 * 
+	 * @param fileId unique file ID
+	 * @param filename file name
+	 * @param timeout socket timeout
+	 * @return file
+	 * @throws Exception exception
+	 */
+	public static File getFileChunked(String fileId, String filename, int timeout) throws Exception {
+		
+		if (clientTimeout > 0)
+			timeout = clientTimeout;
+		
+		final File f = new File(OS.getTemporaryDirectory() + filename);
+		final BitSet received = new BitSet();
+		final AtomicBoolean released = new AtomicBoolean();
+		Exception failure = null;
+		try (FileChannel fileChannel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			
+			for (int round = 0; round < MAX_CHUNK_ROUNDS; round++) {
+				
+				// The first stream tells the file size
+				final ChunkStream first;
+				try {
+					first = new ChunkStream(fileId, timeout);
+				} catch (IOException e) {
+					LOG.warn("File server cannot be contacted at "+hostAdmin+":"+portFileServer+" for chunked download, round " + (round + 1) + ": " + e.getMessage());
+					failure = e;
+					continue;
+				}
+				if (first.size < 0) {
+					first.close();
+					throw new FileNotFoundException("No file found with unique file ID '" + fileId + "'!");
+				}
+				final long size = first.size;
+				final int chunks = chunks(size, chunkSize);
+				final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+				synchronized (received) {
+					for (int i = received.nextClearBit(0); i < chunks; i = received.nextClearBit(i + 1))
+						queue.add(Integer.valueOf(i));
+				}
+				
+				final int parallel = Math.max(1, Math.min(streams, queue.size()));
+				final List<Future<Void>> futures = new ArrayList<>();
+				futures.add(streamExecutor.submit(() -> receiveChunks(first, fileChannel, size, chunks, queue, received, released)));
+				for (int i = 1; i < parallel; i++) {
+					final int t = timeout;
+					futures.add(streamExecutor.submit(() -> receiveChunks(new ChunkStream(fileId, t), fileChannel, size, chunks, queue, received, released)));
+				}
+				for (Future<Void> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						LOG.warn("Chunked download stream of file ID '" + fileId + "' failed, round " + (round + 1) + ": " + e.getCause().getMessage());
+						failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+					}
+				}
+				synchronized (received) {
+					if (received.cardinality() == chunks) {
+						LOG.trace("File '{}' received in {} chunk(s).", filename, chunks);
+						return f;
+					}
+				}
+			}
+		}
+		
+		f.delete();
+		if (failure != null)
+			throw failure;
+		throw new IOException("File with unique file ID '" + fileId + "' couldn't be received completely!");
+	}
+	
+	private static Void receiveChunks(ChunkStream stream, FileChannel fileChannel, long size, int chunks, Queue<Integer> queue, BitSet received, AtomicBoolean released) throws IOException {
+		try {
+			Integer index;
+			while ((index = queue.poll()) != null) {
+				stream.output.writeInt(index.intValue());
+				stream.output.flush();
+				final long position = (long) index.intValue() * chunkSize;
+				if (readChunk(stream.input, fileChannel, position, (int) Math.min(chunkSize, size - position))) {
+					synchronized (received) {
+						received.set(index.intValue());
+					}
+				} else {
+					LOG.warn("Chunk {} of a file received is corrupt; it is requested again.", index);
+				}
+			}
+			// The stream that sees the file complete first lets the server release it
+			final boolean complete;
+			synchronized (received) {
+				complete = received.cardinality() == chunks;
+			}
+			stream.output.writeInt(complete && released.compareAndSet(false, true) ? CHUNK_DOWNLOAD_DONE : CHUNK_STREAM_END);
+			stream.output.flush();
+		} finally {
+			stream.close();
+		}
+		return null;
+	}
+	
+	/**
+	 * Send a file client side in chunks over parallel streams; see 
+	 * {@link #sendFileChunked(UploadRequest, int)}.
+	 * 
+	 * @param request upload request that has been sent to the server
+	 * @return file answer
+	 * @throws Exception exception
+	 */
+	public static ClientAnswer sendFileChunked(UploadRequest request) throws Exception {
+		return sendFileChunked(request, Communicator.TIMEOUT * 1000);
+	}
+	
+	/**
+	 * Send a file client side in chunks over parallel streams - a file
+	 * store must be available server side. The server keeps the chunks
+	 * it has received until the file is complete; chunks that are corrupt
+	 * or whose stream failed are sent again in the next round, and an
+	 * upload interrupted otherwise is resumed by sending the same file
+	 * again.
+	 * 
+	 * @param request upload request that has been sent to the server
+	 * @param timeout timeout socket timeout in milliseconds
+	 * @return file answer
+	 * @throws Exception exception
+	 */
+	public static ClientAnswer sendFileChunked(UploadRequest request, int timeout) throws Exception {
+		return sendFileChunked(request.getFile(), request.getCheckSum(), timeout);
+	}
+	
+	private static ClientAnswer sendFileChunked(File file, String checkSum, int timeout) throws Exception {
+		
+		if (clientTimeout > 0)
+			timeout = clientTimeout;
+		
+		final long size = file.length();
+		final int chunks = chunks(size, chunkSize);
+		final int parallel = Math.max(1, Math.min(streams, chunks));
+		Exception failure = null;
+		for (int round = 0; round < MAX_CHUNK_ROUNDS; round++) {
+			
+			final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+			for (int i = 0; i < chunks; i++)
+				queue.add(Integer.valueOf(i));
+			final List<Future<ClientAnswer>> futures = new ArrayList<>();
+			for (int i = 0; i < parallel; i++) {
+				final int t = timeout;
+				futures.add(streamExecutor.submit(() -> sendChunks(file, size, checkSum, queue, t)));
+			}
+			
+			ClientAnswer answer = null;
+			for (Future<ClientAnswer> future : futures) {
+				try {
+					final ClientAnswer streamAnswer = future.get();
+					// stored (file ID) before failed before incomplete
+					if (answer == null || streamAnswer.getType() == ClientAnswer.TYPE_FILE_OK
+							|| (streamAnswer.getType() == ClientAnswer.TYPE_FILE_NOK && answer.getType() != ClientAnswer.TYPE_FILE_OK))
+						answer = streamAnswer;
+				} catch (ExecutionException e) {
+					LOG.warn("File receiver stream at "+hostAdmin+":"+portFileReceiver+" failed, round " + (round + 1) + ": " + e.getCause().getMessage());
+					failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+			if (answer != null && answer.getType() != ClientAnswer.TYPE_OK) {
+				LOG.trace("File '{}' sent in {} chunk(s)!", file.getName(), chunks);
+				return answer;
+			}
+		}
+		
+		if (failure != null)
+			throw failure;
+		return new ClientAnswer("File '" + file.getName() + "' couldn't be sent completely!", ClientAnswer.TYPE_FILE_NOK);
+	}
+	
+	private static ClientAnswer sendChunks(File file, long size, String checkSum, Queue<Integer> queue, int timeout) throws IOException {
+		
+		Socket socket = null;
+		DataOutputStream output = null;
+		DataInputStream input = null;
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			
+			socket = socketFactory.create(hostAdmin, portFileReceiver);
+			socket.setSoTimeout(timeout);
+			output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			
+			output.writeLong(CHUNKED_UPLOAD);
+			output.writeLong(size);
+			output.writeUTF(checkSum);
+			output.writeInt(chunkSize);
+			output.flush();
+			
+			// Chunks the server has already
+			final int length = input.readInt();
+			if (length < 0) // no upload request
+				return ClientFileTransfer.readAnswer(input);
+			final byte bits[] = new byte[length];
+			input.readFully(bits);
+			final BitSet received = BitSet.valueOf(bits);
+			
+			Integer index;
+			while ((index = queue.poll()) != null) {
+				if (received.get(index.intValue()))
+					continue;
+				final long position = (long) index.intValue() * chunkSize;
+				output.writeInt(index.intValue());
+				writeChunk(fileChannel, position, (int) Math.min(chunkSize, size - position), output);
+			}
+			output.writeInt(CHUNK_STREAM_END);
+			output.flush();
+			
+			// The server verifies the whole file if it is complete now
+			socket.setSoTimeout(timeout + (int) Math.min(Integer.MAX_VALUE - timeout, size / VERIFY_BYTES_PER_MS));
+			return ClientFileTransfer.readAnswer(input);
+			
+		} finally {
+			Communicator.safeClose(input);
+			Communicator.safeClose(output);
+			Communicator.safeClose(socket);
+		}
+	}
+	
 	/**
 	 * Read a file answer from the server client side when it received a file.
 	 * Server must answer with a file answer when it has received a file.
@@ -259,4 +530,46 @@ public class ClientFileTransfer extends FileTransfer {
 	public static ClientAnswer readAnswer(DataInputStream in) throws IOException {
 	    return ClientAnswer.parse(Communicator.read(in));
 	}		
+
+	
+	/**
+	 * Stream of a chunked download.
+	 */
+	private static final class ChunkStream {
+		
+		private final Socket socket;
+		private final DataInputStream input;
+		private final DataOutputStream output;
+		private final long size;
+		
+		/**
+		 * Open a stream.
+		 * 
+		 * @param fileId unique file ID
+		 * @param timeout socket timeout
+		 * @throws IOException IO exception
+		 */
+		private ChunkStream(String fileId, int timeout) throws IOException {
+			socket = socketFactory.create(hostAdmin, portFileServer);
+			try {
+				socket.setSoTimeout(timeout);
+				output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				final ServerCommand command = new ServerCommand(ServerCommand.DISPATCHER_ID_INTERNAL, FileTransfer.CMD_FILE_GET_CHUNKS, fileId);
+				command.setEntity(Integer.toString(chunkSize));
+				Communicator.write(command.getData(), output);
+				size = input.readLong();
+			} catch (IOException e) {
+				Communicator.safeClose(socket);
+				throw e;
+			}
+		}
+		
+		private void close() {
+			Communicator.safeClose(input);
+			Communicator.safeClose(output);
+			Communicator.safeClose(socket);
+		}
+	}
+	
 }
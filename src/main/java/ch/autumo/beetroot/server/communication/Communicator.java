@@ -22,7 +22,6 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
@@ -85,13 +84,26 @@ public class Communicator {
 	 * @throws IOException IO exception
 	 */
 	public static void writeAnswer(ClientAnswer answer, DataOutputStream out) throws IOException {
+		writeAnswer(answer, out, false);
+	}
+	
+	/**
+	 * Write/send client answer from server to client.
+	 * 
+	 * @param answer client answer
+	 * @param out output stream
+	 * @param binary send in the binary format, usually if the
+	 * 			server command has been received in this format
+	 * @throws IOException IO exception
+	 */
+	public static void writeAnswer(ClientAnswer answer, DataOutputStream out, boolean binary) throws IOException {
 		
-		out.writeInt(answer.getDataLength());
-		final PrintWriter writer = new PrintWriter(out, true);
-		writer.println(answer.getTransferString());
+		if (binary)
+			BinaryFrame.write(answer, out);
+		else
+			write(answer.getData(), out);
 		
 		LOG.trace("Server command '"+answer.getAnswer()+"' sent!");
-		writer.flush();			
 	}
 	
 	/**
@@ -102,7 +114,16 @@ public class Communicator {
 	 * @throws IOException IO exception
 	 */
 	public static ServerCommand readCommand(DataInputStream in) throws IOException {
-	    return ServerCommand.parse(read(in));
+		final int head = in.readInt();
+		if (BinaryFrame.isHeader(head)) {
+			final int requestId = BinaryFrame.readRequestId(head, in);
+			try (DataInputStream frame = BinaryFrame.open(head, in)) {
+				final ServerCommand command = ServerCommand.parseBinary(frame);
+				command.setRequestId(requestId);
+				return command;
+			}
+		}
+	    return ServerCommand.parse(read(in, head));
 	}
 
 	/**
@@ -150,8 +171,22 @@ public class Communicator {
 	 * @throws IOException IO exception
 	 */
 	protected static String read(DataInputStream in) throws IOException {
+		return read(in, in.readInt());
+	}
+	
+	/**
+	 * Server- or client-side read of a string-format message
+	 * whose length has been read already.
+	 * 
+	 * @param in input stream
+	 * @param length message length
+	 * @return unparsed data
+	 * @throws IOException IO exception
+	 */
+	protected static String read(DataInputStream in, int length) throws IOException {
 		
-		final int length = in.readInt();
+		if (length < 0)
+			throw new IOException("The communication message received has an invalid length '"+length+"'!");
 		
 		// In any case, if the length read is too big, e.g., when a malformed client request is sent,
 		// this could lead to a out-of-memory-error in the heap space!
@@ -163,28 +198,27 @@ public class Communicator {
 			throw new IOException("The communication message received is bigger than '"+MAX_MSG_SIZE+"' bytes, that's an invalid message!");
 		}
 		
+		// Read exactly one message, so the bytes of a following
+		// message on a kept-alive connection are left untouched
 		final byte[] messageByte = new byte[length];
-	    boolean end = false;
-	    final StringBuilder dataString = new StringBuilder(length);
-	    int totalBytesRead = 0;
-	    
-	    while (!end) {
-	    	
-	        int currentBytesRead = in.read(messageByte);
-	        totalBytesRead = currentBytesRead + totalBytesRead;
-	        if(totalBytesRead <= length) {
-	            dataString.append(new String(messageByte, 0, currentBytesRead, StandardCharsets.UTF_8));
-	        } else {
-	            dataString.append(new String(messageByte, 0, length - totalBytesRead + currentBytesRead, StandardCharsets.UTF_8));
-	        }
-	        
-	        if (dataString.length() >= length) {
-	            end = true;
-	        }
-	    }
-	    
-	    return dataString.toString();
-	}	
+		in.readFully(messageByte);
+	    return new String(messageByte, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Server- or client-side write of one message: data length
+	 * followed by the data. No line terminator is sent, so further
+	 * messages can follow on the same connection.
+	 * 
+	 * @param data message data
+	 * @param out output stream
+	 * @throws IOException IO exception
+	 */
+	protected static void write(byte[] data, DataOutputStream out) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+		out.flush();
+	}
 	
 	/**
 	 * Safe close for closeable object  (e.g. stream, socket).
@@ -19,10 +19,18 @@ package ch.autumo.beetroot.server.communication;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,12 +54,32 @@ public class FileTransfer {
 	
 	/** File get */
 	public static final String CMD_FILE_GET = "FILE_GET";
+	/** File get in chunks */
+	public static final String CMD_FILE_GET_CHUNKS = "FILE_GET_CHUNKS";
+	
+	/**
+	 * Sent instead of the file size to the file receiver, if the file
+	 * is uploaded in chunks; never a valid file size.
+	 */
+	public static final long CHUNKED_UPLOAD = 0xBEE7C4C4BEE7C4C4L;
+	/** Chunk index that ends a chunk stream */
+	public static final int CHUNK_STREAM_END = -1;
+	/** Chunk index that ends a chunked download; the server releases the file */
+	public static final int CHUNK_DOWNLOAD_DONE = -2;
 	
 	/** default buffer length in Kb for sending bits of a file */
 	public static int DEFAULT_BUFFER_LEN = 32;
+	/** default chunk size in MB for chunked transfers */
+	public static int DEFAULT_CHUNK_SIZE = 8;
+	/** default amount of parallel streams for chunked transfers */
+	public static int DEFAULT_STREAMS = 4;
 	
 	/** buffer length for sending bits of a file */
 	protected static int bufferLen = 1024 * DEFAULT_BUFFER_LEN;
+	/** chunk size in bytes for chunked transfers */
+	protected static int chunkSize = 1024 * 1024 * DEFAULT_CHUNK_SIZE;
+	/** amount of parallel streams for chunked transfers */
+	protected static int streams = DEFAULT_STREAMS;
 	
 	static {
 		// Buffer size
@@ -60,6 +88,15 @@ public class FileTransfer {
 			bufferLen = DEFAULT_BUFFER_LEN;
 		
 		bufferLen = bufferLen * 1024;
+		
+		// Chunked transfers
+		chunkSize = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_ADMIN_FILE_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+		if (chunkSize < 1)
+			chunkSize = DEFAULT_CHUNK_SIZE;
+		chunkSize = chunkSize * 1024 * 1024;
+		streams = BeetRootConfigurationManager.getInstance().getInt(Constants.KEY_ADMIN_FILE_STREAMS, DEFAULT_STREAMS);
+		if (streams < 1)
+			streams = 1;
 	}		
 	
 	
@@ -78,19 +115,26 @@ public class FileTransfer {
 	 * @throws IOException IO exception
 	 */
 	public static void writeFile(Download download, DataOutputStream output) throws IOException {
+		writeFile(download, null, output);
+	}
+	
+	/**
+	 * Write/send file from server to client. If the socket has a channel,
+	 * the file is transferred by the operating system without copying it
+	 * through the heap.
+	 * 
+	 * NOTE: The file referenced by the download will be deleted after sending
+	 * it to the client; only provide temporary files (copy of the originals)
+	 * within the download!
+	 * 
+	 * @param download download file
+	 * @param socket client socket or null
+	 * @param output output stream of the socket
+	 * @throws IOException IO exception
+	 */
+	public static void writeFile(Download download, Socket socket, DataOutputStream output) throws IOException {
 		
-		final FileInputStream fileInputStream = new FileInputStream(download.getFile());
-		
-        // send file size
-		output.writeLong(download.getFile().length());  
-        // break file into chunks
-        final byte buffer[] = new byte[bufferLen];
-        int bytes = 0;
-        while ((bytes = fileInputStream.read(buffer)) != -1) {
-        	output.write(buffer, 0, bytes);
-        	output.flush();
-        }
-        fileInputStream.close();
+		sendFile(download.getFile(), socket, output);
 
 		LOG.trace("Server file '{}' sent!", download.getFileName());
         
@@ -117,18 +161,159 @@ public class FileTransfer {
 	 */
 	public static File readFile(DataInputStream in, String fileName, long size) throws IOException {
 
+		// Read from the stream, not the socket's channel: blocking channel
+		// reads ignore the socket timeout and the stream may have buffered
+		// the first bytes of the file already
 		long length = size;
 		final File f = new File(OS.getTemporaryDirectory() + fileName);
-		final FileOutputStream fileOutputStream = new FileOutputStream(f);
-		final byte buffer[] = new byte[bufferLen];
-		int bytes = 0;
-        while (length > 0 && (bytes = in.read(buffer, 0, (int)Math.min(buffer.length, length))) != -1) {
-            fileOutputStream.write(buffer,0,bytes);
-            length -= bytes; // read up to file size
-        }
-        fileOutputStream.close();
+		try (FileChannel fileChannel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(bufferLen);
+			int bytes = 0;
+	        while (length > 0 && (bytes = in.read(buffer.array(), 0, (int)Math.min(buffer.capacity(), length))) != -1) {
+	        	buffer.limit(bytes);
+	        	while (buffer.hasRemaining())
+	        		fileChannel.write(buffer);
+	        	buffer.clear();
+	            length -= bytes; // read up to file size
+	        }
+		}
 		
 	    return f;
 	}	
 	
+	/**
+	 * Server/client side check-sum of a file; the file is streamed, so
+	 * it may be of any size.
+	 * 
+	 * @param file file
+	 * @return check-sum (MD5, hex)
+	 * @throws IOException IO exception
+	 */
+	public static String checkSum(File file) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final MessageDigest digest = MessageDigest.getInstance("MD5");
+			final ByteBuffer buffer = ByteBuffer.allocate(bufferLen);
+			while (fileChannel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		    return new BigInteger(1, digest.digest()).toString(16);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Couldn't build checksum for file '" + file.getAbsolutePath() + "!", e);
+		}
+	}
+	
+	/**
+	 * Amount of chunks of a file.
+	 * 
+	 * @param size file size
+	 * @param chunkSize chunk size
+	 * @return amount of chunks
+	 */
+	public static int chunks(long size, int chunkSize) {
+		return (int) ((size + chunkSize - 1) / chunkSize);
+	}
+	
+	/**
+	 * Server/client side chunk send: the chunk's content followed by its
+	 * check-sum (CRC32C); the receiver knows the length of the chunk.
+	 * 
+	 * @param fileChannel file channel
+	 * @param position position of the chunk within the file
+	 * @param length length of the chunk
+	 * @param output output stream
+	 * @throws IOException IO exception
+	 */
+	public static void writeChunk(FileChannel fileChannel, long position, int length, DataOutputStream output) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(Math.min(bufferLen, length));
+		final CRC32C crc = new CRC32C();
+		final long end = position + length;
+		while (position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			final int bytes = fileChannel.read(buffer, position);
+			if (bytes < 0)
+				throw new IOException("File has been truncated while sending a chunk of it!");
+			crc.update(buffer.array(), 0, bytes);
+			output.write(buffer.array(), 0, bytes);
+			position += bytes;
+		}
+		output.writeLong(crc.getValue());
+	}
+	
+	/**
+	 * Server/client side chunk read; see {@link #writeChunk(FileChannel, long, int, DataOutputStream)}.
+	 * The chunk is written into the file at its position, even if it is
+	 * corrupt; it must be transferred again then.
+	 * 
+	 * @param input input stream
+	 * @param fileChannel file channel
+	 * @param position position of the chunk within the file
+	 * @param length length of the chunk
+	 * @return true if the chunk's check-sum matches
+	 * @throws IOException IO exception
+	 */
+	public static boolean readChunk(DataInputStream input, FileChannel fileChannel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(Math.max(1, Math.min(bufferLen, length)));
+		final CRC32C crc = new CRC32C();
+		while (length > 0) {
+			final int bytes = input.read(buffer.array(), 0, Math.min(buffer.capacity(), length));
+			if (bytes < 0)
+				throw new EOFException("Connection closed within a chunk!");
+			crc.update(buffer.array(), 0, bytes);
+			buffer.clear();
+			buffer.limit(bytes);
+			while (buffer.hasRemaining())
+				position += fileChannel.write(buffer, position);
+			length -= bytes;
+		}
+		return input.readLong() == crc.getValue();
+	}
+	
+	/**
+	 * Server/client side file send: file size followed by the content.
+	 * <br><br>
+	 * Over a socket with a channel (plain sockets of the default socket
+	 * factories), the content is transferred with
+	 * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+	 * so the operating system copies it directly from the file to the
+	 * socket. SSL sockets have no channel; the content is written through
+	 * the output stream in chunks of the configured buffer size. The output
+	 * is flushed once at the end, not after every chunk.
+	 * 
+	 * @param file file
+	 * @param socket socket or null
+	 * @param output output stream of the socket
+	 * @throws IOException IO exception
+	 */
+	protected static void sendFile(File file, Socket socket, DataOutputStream output) throws IOException {
+		
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			
+			final long size = fileChannel.size();
+	        // send file size
+			output.writeLong(size);
+			
+			final SocketChannel socketChannel = socket != null ? socket.getChannel() : null;
+			if (socketChannel != null && socketChannel.isBlocking()) {
+				output.flush();
+				long position = 0;
+				while (position < size) {
+					final long bytes = fileChannel.transferTo(position, size - position, socketChannel);
+					if (bytes <= 0 && fileChannel.size() < size)
+						throw new IOException("File '" + file.getName() + "' has been truncated while sending it!");
+					position += bytes;
+				}
+			} else {
+				final ByteBuffer buffer = ByteBuffer.allocate(bufferLen);
+				while (fileChannel.read(buffer) != -1) {
+					output.write(buffer.array(), 0, buffer.position());
+					buffer.clear();
+				}
+				output.flush();
+			}
+		}
+	}
+	
 }
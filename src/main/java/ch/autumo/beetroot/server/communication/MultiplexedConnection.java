@@ -0,0 +1,190 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.server.message.ClientAnswer;
+import ch.autumo.beetroot.server.message.ServerCommand;
+
+
+/**
+ * Multiplexed admin server connection. Server commands are sent as binary
+ * frames tagged with a request ID, so many commands can be in flight at
+ * the same time; a reader thread completes the pending command of each
+ * answer, in whatever order the answers arrive. The connection closes
+ * itself when no command is pending for a while; it can't be used
+ * anymore afterwards.
+ */
+final class MultiplexedConnection {
+
+	protected static final Logger LOG = LoggerFactory.getLogger(MultiplexedConnection.class.getName());
+
+	private final String endPoint;
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	private final Map<Integer, CompletableFuture<ClientAnswer>> pending = new ConcurrentHashMap<>();
+	private final AtomicInteger nextId = new AtomicInteger();
+
+	private boolean closed = false;
+
+
+	/**
+	 * New multiplexed connection; starts its reader.
+	 *
+	 * @param endPoint host and port
+	 * @param socket connected socket
+	 * @param idleTimeout time in milliseconds after which the connection
+	 * 			is closed if no command is pending
+	 * @throws IOException IO exception
+	 */
+	MultiplexedConnection(String endPoint, Socket socket, int idleTimeout) throws IOException {
+		this.endPoint = endPoint;
+		this.socket = socket;
+		try {
+			socket.setSoTimeout(idleTimeout);
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		} catch (IOException e) {
+			Communicator.safeClose(socket);
+			throw e;
+		}
+		final Thread reader = new Thread(this::read, "beetRoot-Admin-Reader(" + endPoint + ")");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Is this connection closed?
+	 *
+	 * @return true if so
+	 */
+	synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Send a server command.
+	 *
+	 * @param command server command
+	 * @param timeout time in milliseconds to wait for the answer
+	 * @return future answer or null if the connection has been closed;
+	 * 			a new connection must be used then
+	 */
+	CompletableFuture<ClientAnswer> send(ServerCommand command, int timeout) {
+
+		final CompletableFuture<ClientAnswer> future = new CompletableFuture<>();
+		final int requestId;
+		synchronized (this) {
+			if (closed)
+				return null;
+			int id = nextId.incrementAndGet();
+			if (id == 0) // 0 means 'no request ID'
+				id = nextId.incrementAndGet();
+			requestId = id;
+			pending.put(Integer.valueOf(requestId), future);
+			try {
+				command.setRequestId(requestId);
+				BinaryFrame.write(command, out);
+				LOG.trace("Server command '{}' sent with request ID {}.", command.getCommand(), requestId);
+			} catch (IOException e) {
+				this.fail(e);
+				return future;
+			} finally {
+				command.setRequestId(0);
+			}
+		}
+		return future.orTimeout(timeout, TimeUnit.MILLISECONDS)
+				.whenComplete((answer, e) -> pending.remove(Integer.valueOf(requestId), future));
+	}
+
+	/**
+	 * Close the connection; pending commands fail.
+	 */
+	void close() {
+		this.fail(new IOException("Admin server connection to " + endPoint + " has been closed!"));
+	}
+
+	private void read() {
+		try {
+			while (true) {
+				final int head;
+				try {
+					head = in.readInt();
+				} catch (SocketTimeoutException e) {
+					synchronized (this) {
+						if (pending.isEmpty()) {
+							LOG.trace("Idle multiplexed admin server connection to {} closed.", endPoint);
+							closed = true;
+							Communicator.safeClose(socket);
+							return;
+						}
+					}
+					continue;
+				}
+				if (!BinaryFrame.isHeader(head))
+					throw new IOException("Multiplexed admin server connection to " + endPoint + " received an answer that isn't a binary frame!");
+				final int requestId = BinaryFrame.readRequestId(head, in);
+				final ClientAnswer answer;
+				try (DataInputStream frame = BinaryFrame.open(head, in)) {
+					answer = ClientAnswer.parseBinary(frame);
+				}
+				final CompletableFuture<ClientAnswer> future = pending.remove(Integer.valueOf(requestId));
+				if (future != null)
+					future.complete(answer);
+				else
+					LOG.debug("Answer for unknown or timed out request ID {} from {} ignored.", requestId, endPoint);
+			}
+		} catch (IOException | RuntimeException e) {
+			if (!this.isClosed())
+				LOG.debug("Multiplexed admin server connection to {} failed: {}", endPoint, e.getMessage());
+			this.fail(e);
+		}
+	}
+
+	private void fail(Exception e) {
+		final List<CompletableFuture<ClientAnswer>> failed;
+		synchronized (this) {
+			closed = true;
+			Communicator.safeClose(socket);
+			failed = new ArrayList<>(pending.values());
+			pending.clear();
+		}
+		for (CompletableFuture<ClientAnswer> future : failed)
+			future.completeExceptionally(e);
+	}
+
+}
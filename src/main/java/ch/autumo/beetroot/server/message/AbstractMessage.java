@@ -19,6 +19,8 @@ package ch.autumo.beetroot.server.message;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -67,6 +69,8 @@ public abstract class AbstractMessage {
 	/** internal message part separator regular expression */
 	public static final String INTERNAL_MSG_PART_SEPARATOR_REGEXP = "\\|";
 
+	// Strings longer than this are read in steps of this size
+	private static final int STRING_READ_STEP = 64 * 1024;
 	
 	/** server name */
 	public static String serverName;
@@ -96,6 +100,12 @@ public abstract class AbstractMessage {
 	/** Additional transport object. */
 	protected Serializable object = null;
 
+	/** Received in the binary format? */
+	protected transient boolean binary = false;
+
+	/** Request ID of a multiplexed binary message; 0 if none. */
+	protected transient int requestId = 0;
+
 	
 	/**
 	 * Constructor.
@@ -279,6 +289,47 @@ public abstract class AbstractMessage {
 	 */
 	public abstract String getTransferString() throws IOException;
 
+	/**
+	 * Write the binary representation; this includes all set information
+	 * including the additional object if set. Fields are written typed and
+	 * the object is serialized directly into the stream; encryption and
+	 * compression are applied by the binary frame the stream belongs to.
+	 * 
+	 * @param out output stream of a binary frame
+	 * @throws IOException IO exception
+	 */
+	public abstract void writeBinary(DataOutputStream out) throws IOException;
+	
+	/**
+	 * Has this message been received in the binary format?
+	 * Answers should be sent in the same format.
+	 * 
+	 * @return true if so
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+	
+	/**
+	 * Request ID of a multiplexed binary message; it relates an answer
+	 * to its server command on a connection shared by concurrent commands.
+	 * 
+	 * @return request ID or 0 if none
+	 */
+	public int getRequestId() {
+		return requestId;
+	}
+	
+	/**
+	 * Set the request ID of a multiplexed binary message; usually set by
+	 * the communicator. An answer carries the ID of its server command.
+	 * 
+	 * @param requestId request ID or 0 for none
+	 */
+	public void setRequestId(int requestId) {
+		this.requestId = requestId;
+	}
+	
 	/**
 	 * Get JSON representation; this includes all set information including
 	 * the additional object if set.
@@ -305,6 +356,85 @@ public abstract class AbstractMessage {
 		ois.close();
 	}
 
+	/**
+	 * Write the object of this message, if any, in the binary format.
+	 * Internal method, don't call it.
+	 * 
+	 * @param out output stream
+	 * @throws IOException IO exception
+	 */
+	protected void writeBinaryObject(DataOutputStream out) throws IOException {
+		out.writeBoolean(this.object != null);
+		if (this.object != null) {
+			final ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(this.object);
+			oos.flush();
+		}
+	}
+	
+	/**
+	 * Read the object of this message, if any, in the binary format.
+	 * Internal method, don't call it.
+	 * 
+	 * @param in input stream
+	 * @throws IOException IO exception
+	 */
+	protected void readBinaryObject(DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			final ObjectInputStream ois = new ObjectInputStream(in);
+			try {
+				this.object = (Serializable) ois.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Class not found for transferred object", e);
+			}
+		}
+		this.binary = true;
+	}
+	
+	/**
+	 * Write a string in the binary format: UTF-8 length and bytes.
+	 * Null is written as "null" like in the string format.
+	 * 
+	 * @param out output stream
+	 * @param value value
+	 * @throws IOException IO exception
+	 */
+	protected static void writeString(DataOutputStream out, String value) throws IOException {
+		final byte bytes[] = (value == null ? "null" : value).getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Read a string in the binary format. The length read isn't trusted:
+	 * long strings are read in steps, so memory only grows with the bytes
+	 * actually received, which the frame limits to the max. message size.
+	 * 
+	 * @param in input stream
+	 * @return value
+	 * @throws IOException IO exception
+	 */
+	protected static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Invalid string length '" + length + "' in binary message!");
+		if (length <= STRING_READ_STEP) {
+			final byte bytes[] = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(STRING_READ_STEP);
+		final byte buffer[] = new byte[STRING_READ_STEP];
+		int remaining = length;
+		while (remaining > 0) {
+			final int n = Math.min(remaining, buffer.length);
+			in.readFully(buffer, 0, n);
+			bytes.write(buffer, 0, n);
+			remaining -= n;
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
 	/**
 	 * Serialize this object with FasterXML/Jackson. Internal method,
 	 * don't call it.
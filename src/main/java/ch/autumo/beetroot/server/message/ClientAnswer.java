@@ -17,6 +17,8 @@
  */
 package ch.autumo.beetroot.server.message;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 import org.json.JSONObject;
@@ -195,6 +197,38 @@ public class ClientAnswer extends AbstractMessage {
 		return answer;
 	}	
 
+	@Override
+	public void writeBinary(DataOutputStream out) throws IOException {
+		out.writeInt(type);
+		writeString(out, message.trim());
+		writeString(out, entity.trim());
+		out.writeLong(id);
+		writeString(out, fileId);
+		writeString(out, errorReason.trim());
+		super.writeBinaryObject(out);
+	}
+	
+	/**
+	 * Create a new client answer out of the binary format.
+	 * 
+	 * @param in input stream of a binary frame
+	 * @return parsed client answer
+	 * @throws IOException IO exception
+	 */
+	public static ClientAnswer parseBinary(DataInputStream in) throws IOException {
+		
+		final ClientAnswer answer = new ClientAnswer();
+		answer.type = in.readInt();
+		answer.message = readString(in);
+		answer.entity = readString(in);
+		answer.id = in.readLong();
+		answer.fileId = readString(in);
+		answer.errorReason = readString(in);
+		answer.readBinaryObject(in);
+		
+		return answer;
+	}
+	
 	@Override
 	public String getJsonTransferString() throws IOException {
 		final StringBuilder json = new StringBuilder();
@@ -17,6 +17,8 @@
  */
 package ch.autumo.beetroot.server.message;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 import org.json.JSONObject;
@@ -290,6 +292,40 @@ public class ServerCommand extends AbstractMessage {
 		return command;
 	}
 
+	@Override
+	public void writeBinary(DataOutputStream out) throws IOException {
+		writeString(out, serverName);
+		writeString(out, dispatcherId);
+		writeString(out, message.trim());
+		writeString(out, entity.trim());
+		out.writeLong(id);
+		writeString(out, fileId);
+		writeString(out, domain);
+		super.writeBinaryObject(out);
+	}
+	
+	/**
+	 * Create a new server command out of the binary format.
+	 * 
+	 * @param in input stream of a binary frame
+	 * @return parsed server command
+	 * @throws IOException IO exception
+	 */
+	public static ServerCommand parseBinary(DataInputStream in) throws IOException {
+		
+		final ServerCommand command = new ServerCommand();
+		command.serverName = readString(in);
+		command.dispatcherId = readString(in);
+		command.message = readString(in);
+		command.entity = readString(in);
+		command.id = in.readLong();
+		command.fileId = readString(in);
+		command.domain = readString(in);
+		command.readBinaryObject(in);
+		
+		return command;
+	}
+	
 	@Override
 	public String getJsonTransferString() throws IOException {
 		
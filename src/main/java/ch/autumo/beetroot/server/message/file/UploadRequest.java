@@ -19,13 +19,9 @@ package ch.autumo.beetroot.server.message.file;
 
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
 
 import ch.autumo.beetroot.server.communication.Communicator;
+import ch.autumo.beetroot.server.communication.FileTransfer;
 import ch.autumo.beetroot.server.message.ServerCommand;
 
 /**
@@ -34,6 +30,7 @@ import ch.autumo.beetroot.server.message.ServerCommand;
 public class UploadRequest extends ServerCommand {
 
 	private File file = null;
+	private String checkSum = null;
 	
 	/**
 	 * Divider character for entity holding file name and check-sum.
@@ -71,19 +68,8 @@ public class UploadRequest extends ServerCommand {
 		this.file = file;
 		
 		// Set Entity which is a combination of file-name and checksum
-		final String absPath = file.getAbsolutePath();
-		final Path path = Paths.get(absPath); 
-        final String fileName = path.getFileName().toString(); 
-
-	    byte data[];
-	    String checkSum = null;
-		try {
-			data = Files.readAllBytes(path);
-		    byte hash[] = MessageDigest.getInstance("MD5").digest(data);
-		    checkSum = new BigInteger(1, hash).toString(16);
-		} catch (Exception e) {
-			throw new IOException("Couldn't build checksum for file '" + absPath + "!", e);
-		}
+        final String fileName = file.getName(); 
+	    this.checkSum = FileTransfer.checkSum(file);
         
 		super.setEntity(fileName + ENTITY_DIVIDER_FILENAME_CHECKSUM + checkSum);		
 	}
@@ -97,4 +83,13 @@ public class UploadRequest extends ServerCommand {
 		return this.file;
 	}
 	
+	/**
+	 * Get file check-sum.
+	 *  
+	 * @return check-sum
+	 */
+	public String getCheckSum() {
+		return this.checkSum;
+	}
+	
 }
@@ -18,16 +18,28 @@
 package ch.autumo.beetroot.transport;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
 
 /**
- * Default Server Socket Factory.
+ * Default Server Socket Factory. The server socket is created through
+ * a blocking server socket channel, so accepted sockets have a channel
+ * files can be sent to without copying them through the heap.
  */
 public class DefaultServerSocketFactory implements ServerSocketFactory {
 
     @Override
     public ServerSocket create(int port) throws IOException {
-        return new ServerSocket(port);
+    	final ServerSocket serverSocket = ServerSocketChannel.open().socket();
+    	try {
+    		serverSocket.setReuseAddress(true);
+    		serverSocket.bind(new InetSocketAddress(port), 50);
+    	} catch (IOException e) {
+    		serverSocket.close();
+    		throw e;
+    	}
+        return serverSocket;
     }
 
 }
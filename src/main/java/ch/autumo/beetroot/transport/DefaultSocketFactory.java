@@ -18,16 +18,24 @@
 package ch.autumo.beetroot.transport;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 
 /**
- * Default Socket Factory.
+ * Default Socket Factory. Sockets are created through a blocking
+ * socket channel, so files can be sent without copying them through
+ * the heap (see {@link java.nio.channels.FileChannel#transferTo}).
  */
 public class DefaultSocketFactory implements SocketFactory {
 
 	@Override
 	public Socket create(String host, int port) throws IOException {
-		return new Socket(host, port);
+		final InetSocketAddress address = new InetSocketAddress(host, port);
+		if (address.isUnresolved())
+			throw new UnknownHostException(host);
+		return SocketChannel.open(address).socket();
 	}
 
 }
@@ -16,8 +16,8 @@
  */
 package ch.autumo.beetroot.utils.bean;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -166,11 +166,10 @@ public class BeanProcessor {
 		if (!rs.next()) {
 			return results;
 		}
-		final BeanField beanfields[] = Beans.getBeanFieldsAsArray(type);
-		final ResultSetMetaData rsmd = rs.getMetaData();
-		final int[] columnToProperty = this.mapColumnsToProperties(rsmd, beanfields);
+		final EntityMetadata metadata = EntityMetadata.of(type);
+		final int[] columnToProperty = metadata.getColumnMapping(rs.getMetaData(), this::mapColumnsToProperties);
 		do {
-			results.add(this.createBean(rs, type, beanfields, columnToProperty));
+			results.add(this.createBean(rs, type, metadata, columnToProperty));
 		} while (rs.next());
 		return results;
 	}
@@ -180,14 +179,14 @@ public class BeanProcessor {
 	 * 
 	 * @param rs The result set.
 	 * @param type The bean type (the return type of the object).
-	 * @param beanFields The bean fields.
+	 * @param metadata The entity meta data.
 	 * @param columnToProperty The column indices in the result set.
 	 * @return An initialized object.
 	 * @throws SQLException if a database error occurs.
 	 */
-	private Entity createBean(ResultSet rs, Class<?> type, BeanField beanFields[], int columnToProperty[]) throws SQLException {
+	private Entity createBean(ResultSet rs, Class<?> type, EntityMetadata metadata, int columnToProperty[]) throws SQLException {
 		final Entity entity = (Entity) this.newInstance(type);
-		return populateBean(rs, entity, beanFields, columnToProperty);
+		return populateBean(rs, entity, metadata, columnToProperty);
 	}
 
 	/**
@@ -199,10 +198,10 @@ public class BeanProcessor {
 	 * @throws SQLException if a database error occurs.
 	 */
 	public Entity populateBean(ResultSet rs, Entity entity) throws SQLException {
-		final ResultSetMetaData rsmd = rs.getMetaData();
-		final BeanField beanfields[] = Beans.getBeanFieldsAsArray(entity.getClass());
-		final int[] columnToProperty = this.mapColumnsToProperties(rsmd, beanfields);
-		return populateBean(rs, entity, beanfields, columnToProperty);
+		// Bean fields and column mappings are held by the entity meta data
+		final EntityMetadata metadata = EntityMetadata.of(entity.getClass());
+		final int[] columnToProperty = metadata.getColumnMapping(rs.getMetaData(), this::mapColumnsToProperties);
+		return populateBean(rs, entity, metadata, columnToProperty);
 	}
 
 	/**
@@ -211,17 +210,23 @@ public class BeanProcessor {
 	 *
 	 * @param rs The result set.
 	 * @param entity The bean to be populated.
-	 * @param beanFields The bean fields.
+	 * @param metadata The entity meta data.
 	 * @param columnToProperty The column indices in the result set.
 	 * @return An initialized object.
 	 * @throws SQLException if a database error occurs.
 	 */
-	private Entity populateBean(ResultSet rs, Entity entity, BeanField beanFields[], int columnToProperty[]) throws SQLException {
+	private Entity populateBean(ResultSet rs, Entity entity, EntityMetadata metadata, int columnToProperty[]) throws SQLException {
+		final BeanField beanFields[] = metadata.getBeanFieldArray();
+		final RowMapper<Entity> mapper = this.rowMapper(metadata);
 		for (int i = 1; i < columnToProperty.length; i++) {
 			if (columnToProperty[i] == PROPERTY_NOT_FOUND) {
 				continue;
 			}
 			final BeanField beanField = beanFields[columnToProperty[i]];
+			// Generated row mapper first
+			if (mapper != null && mapper.set(entity, beanField.getDbName(), rs, i)) {
+				continue;
+			}
 			final Class<?> propType = beanField.getType();
 			Object value = null;
 			if (propType != null) {
@@ -230,26 +235,39 @@ public class BeanProcessor {
 					value = PRIMITIV_TYPES.get(propType);
 				}
 			}
-			this.callSetter(entity, beanField, value);
+			this.callSetter(entity, beanField, metadata.getSetter(columnToProperty[i]), value);
 		}
 		return entity;
 	}
 
 	/**
-	 * Calls the setter method on the target object for the given property. If no
-	 * setter method exists for the property, this method does nothing.
+	 * Get the generated row mapper of an entity if any.
+	 * 
+	 * @param metadata entity meta data
+	 * @return row mapper or null
+	 * @throws SQLException if the row mapper cannot be accessed
+	 */
+	private RowMapper<Entity> rowMapper(EntityMetadata metadata) throws SQLException {
+		try {
+			return metadata.getRowMapper();
+		} catch (final Exception e) {
+			throw new SQLException("Cannot access row mapper of " + metadata.getEntityClass().getName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Calls the setter method on the target object for the given property.
 	 * 
 	 * @param target The object to set the property on.
-	 * @param prop The property to set.
+	 * @param beanField The property to set.
+	 * @param setter The setter '(Object, Object)void'.
 	 * @param value The value to pass into the setter.
 	 * @throws SQLException if an error occurs setting the property.
 	 */
-	private void callSetter(Object target, BeanField beanField, Object value) throws SQLException {
-		final Method setter = getWriteMethod(target, beanField, value);
-		if (setter == null || setter.getParameterTypes().length != 1)
-			return;
+	private void callSetter(Object target, BeanField beanField, MethodHandle setter, Object value) throws SQLException {
 		try {
-			final Class<?> firstParam = setter.getParameterTypes()[0];
+			// Setters are looked up with the field type
+			final Class<?> firstParam = beanField.getType();
             for (final PropertyHandler handler : PROPERTY_HANDLERS) {
                 if (handler.match(firstParam, value)) {
                     value = handler.apply(firstParam, value);
@@ -262,9 +280,11 @@ public class BeanProcessor {
 						+ value.getClass().getName() + " to " + firstParam.getName());
 				// value cannot be null here because isCompatibleType allows null
 			}
-			setter.invoke(target, value);
-		} catch (final IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
-			throw new SQLException("Cannot set " + beanField.getBeanName() + ": " + e.getMessage());
+			setter.invokeExact(target, value);
+		} catch (final SQLException e) {
+			throw e;
+		} catch (final Throwable t) {
+			throw new SQLException("Cannot set " + beanField.getBeanName() + ": " + t.getMessage());
 		}
 	}
 
@@ -356,9 +376,8 @@ public class BeanProcessor {
 	 */
 	protected <T> T newInstance(Class<T> c) throws SQLException {
 		try {
-			return c.getDeclaredConstructor().newInstance();
-		} catch (final IllegalAccessException | InstantiationException | InvocationTargetException
-				| NoSuchMethodException e) {
+			return c.cast(EntityMetadata.of(c).newInstance());
+		} catch (final Exception e) {
 			throw new SQLException("Cannot create " + c.getName() + ": " + e.getMessage());
 		}
 	}
@@ -17,7 +17,6 @@
  */
 package ch.autumo.beetroot.utils.bean;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.sql.ResultSet;
@@ -187,10 +186,7 @@ public class Beans {
 	 * @throws SQLException SQL exception
 	 */
 	public static Model createBean(Class<?> beanClass) throws Exception {
-		final Constructor<?> constructor = beanClass.getDeclaredConstructor();
-        constructor.setAccessible(true);
-        final Model bean = (Model) constructor.newInstance();
-        return bean;
+        return (Model) EntityMetadata.of(beanClass).newInstance();
 	}
 	
 	/**
@@ -225,32 +221,15 @@ public class Beans {
 	
 	/**
 	 * Get foreign references map if any or null.
-	 * The map holds pairs of DB foreign keys and referenced primary tabel names.
+	 * The map holds pairs of DB foreign keys and referenced primary tabel names;
+	 * it is resolved once per bean class and cannot be modified.
 	 * 
 	 * @param emptyBean an empty bean to access static references if any
 	 * @return foreign references map
 	 * @throws Exception exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static Map<String, Class<?>> getForeignReferences(Entity emptyBean) throws Exception {
-		Map<String, Class<?>> map = null;
-		Method getFR = null;
-		Class<?> clz = emptyBean.getClass();
-		while (clz != null) {
-			try {
-				getFR = clz.getDeclaredMethod("getForeignReferences");
-				clz = null;
-			} catch (Exception e) {
-				clz = clz.getSuperclass();
-			}
-		}
-		if (getFR != null) {
-			map = (Map<String, Class<?>>) getFR.invoke(emptyBean);
-		} else {
-			// No refs, that's fine!
-			map  = null;
-		}
-		return map;
+		return EntityMetadata.of(emptyBean.getClass()).getForeignReferences(emptyBean);
 	}
 	
 	/**
@@ -261,24 +240,7 @@ public class Beans {
 	 * @throws Exception exception
 	 */
 	public static String getDisplayField(Entity emptyBean) throws Exception {
-		String displayField = null;
-		Method getDV = null;
-		Class<?> clz = emptyBean.getClass();
-		while (clz != null) {
-			try {
-				getDV = clz.getDeclaredMethod("getDisplayField");
-				clz = null;
-			} catch (Exception e) {
-				clz = clz.getSuperclass();
-			}
-		}
-		if (getDV != null) {
-			displayField = (String) getDV.invoke(emptyBean);
-		} else {
-			LOG.info("No display field getter found in bean of type '"+emptyBean.getClass().getName()+", but it might be used to be shown as a reference entity' -> using 'id'!");
-			displayField = "id";
-		}
-		return displayField;
+		return EntityMetadata.of(emptyBean.getClass()).getDisplayField(emptyBean);
 	}
 
 	/**
@@ -292,10 +254,10 @@ public class Beans {
 	 * @param model model
 	 */
 	public static void updateModel(Entity entity, Map<String, Map<String, BeanField>> model) {
-		Class<?> clz = entity.getClass();
-		final String tableName = Beans.classToTable(clz);
+		final EntityMetadata metadata = EntityMetadata.of(entity.getClass());
+		final String tableName = metadata.getTableName();
 		if (!model.containsKey(tableName)) {
-			final Map<String, BeanField> beanFields = Beans.getBeanFields(clz);
+			final Map<String, BeanField> beanFields = metadata.getBeanFields();
 			// Only when we have columns, we have a table so to speak!
 	    	// If there are no bean field for this table, something is wrong,
 	    	// it is not a beetRoot model then!
@@ -305,7 +267,8 @@ public class Beans {
 	}
 
 	/**
-	 * Get bean fields.
+	 * Get bean fields by reflection; use {@link EntityMetadata#getBeanFields()}
+	 * to access them without reflection.
 	 * 
 	 * @param clz bean class
 	 * @return bean fields map
@@ -368,8 +331,7 @@ public class Beans {
 	 * @return bean fields array
 	 */
 	public static BeanField[] getBeanFieldsAsArray(Class<?> clz) {
-		final Map<String, BeanField> beanFields = Beans.getBeanFields(clz);
-		return beanFields.values().toArray(new BeanField[beanFields.size()]);
+		return EntityMetadata.of(clz).getBeanFieldArray().clone();
 	}
 	
 }
@@ -0,0 +1,475 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.utils.bean;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.autumo.beetroot.Entity;
+import ch.autumo.beetroot.Model;
+
+
+/**
+ * Entity meta data; built once per entity class from the bean
+ * annotations PLANT has generated: table name, bean fields,
+ * accessors as method handles, display field, foreign
+ * references and the generated row mapper if any. Display
+ * field and foreign references are resolved once with the
+ * first bean at hand, they are constants of PLANT-generated
+ * beans.
+ */
+public final class EntityMetadata {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EntityMetadata.class.getName());
+
+	private static final Map<Class<?>, EntityMetadata> REGISTRY = new ConcurrentHashMap<>();
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/** Max. amount of cached column mappings per entity */
+	private static final int MAX_COLUMN_MAPPINGS = 64;
+
+	/** Marks a property without getter */
+	private static final MethodHandle NO_GETTER = MethodHandles.constant(Object.class, null);
+
+	private final Class<?> entityClass;
+	private final String tableName;
+	private final Map<String, BeanField> beanFields;
+	private final BeanField fields[];
+	private final MethodHandle getters[];
+	private final MethodHandle setters[];
+	private final Map<String, Integer> indexes = new HashMap<>();
+	private final MethodHandle constructor;
+
+	// Getters by requested property name, e.g. 'user_id' or 'userId'
+	private final Map<String, MethodHandle> propertyGetters = new ConcurrentHashMap<>();
+	// Column to property mappings by result set column labels
+	private final Map<String, int[]> columnMappings = new ConcurrentHashMap<>();
+
+	private volatile String displayField = null;
+	private volatile boolean referencesResolved = false;
+	private volatile Map<String, Class<?>> foreignReferences = null;
+	private volatile boolean rowMapperResolved = false;
+	private volatile RowMapper<Entity> rowMapper = null;
+
+
+	private EntityMetadata(Class<?> entityClass) {
+
+		this.entityClass = entityClass;
+		this.tableName = Beans.classToTable(entityClass);
+		this.beanFields = Collections.unmodifiableMap(Beans.getBeanFields(entityClass));
+		this.fields = beanFields.values().toArray(new BeanField[beanFields.size()]);
+		this.getters = new MethodHandle[fields.length];
+		this.setters = new MethodHandle[fields.length];
+
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				final Method getter = fields[i].getGetterMethod();
+				getter.setAccessible(true);
+				getters[i] = lookup.unreflect(getter).asType(GETTER_TYPE);
+				final Method setter = fields[i].getSetterMethod();
+				setter.setAccessible(true);
+				setters[i] = lookup.unreflect(setter).asType(SETTER_TYPE);
+				indexes.put(fields[i].getDbName(), Integer.valueOf(i));
+			}
+		} catch (IllegalAccessException e) {
+			LOG.error("Accessors of bean class '"+entityClass.getName()+"' cannot be accessed! Your bean is corrupted!", e);
+			throw new RuntimeException(e); // not good!
+		}
+
+		MethodHandle c = null;
+		try {
+			final Constructor<?> con = entityClass.getDeclaredConstructor();
+			con.setAccessible(true);
+			c = lookup.unreflectConstructor(con).asType(MethodType.methodType(Object.class));
+		} catch (Exception e) {
+			// Abstract classes or no default constructor; beans cannot be created
+			LOG.trace("No default constructor accessible for bean class '{}'.", entityClass.getName());
+		}
+		this.constructor = c;
+	}
+
+	/**
+	 * Get the entity meta data of the given entity class.
+	 *
+	 * @param entityClass entity class
+	 * @return entity meta data
+	 */
+	public static EntityMetadata of(Class<?> entityClass) {
+		EntityMetadata metadata = REGISTRY.get(entityClass);
+		if (metadata == null) {
+			// Concurrent creations are harmless
+			metadata = new EntityMetadata(entityClass);
+			final EntityMetadata existing = REGISTRY.putIfAbsent(entityClass, metadata);
+			if (existing != null)
+				metadata = existing;
+		}
+		return metadata;
+	}
+
+	/**
+	 * Get entity class.
+	 *
+	 * @return entity class
+	 */
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * Get database table name.
+	 *
+	 * @return table name
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * Get bean fields: database column name -&gt; bean field.
+	 *
+	 * @return unmodifiable bean fields map
+	 */
+	public Map<String, BeanField> getBeanFields() {
+		return beanFields;
+	}
+
+	/**
+	 * Get bean fields as array; shared, must not be modified!
+	 * Indexes correspond to {@link #getSetter(int)}.
+	 *
+	 * @return bean fields array
+	 */
+	public BeanField[] getBeanFieldArray() {
+		return fields;
+	}
+
+	/**
+	 * Get setter '(Object, Object)void' of the bean field with the given index.
+	 *
+	 * @param index bean field array index
+	 * @return setter
+	 */
+	public MethodHandle getSetter(int index) {
+		return setters[index];
+	}
+
+	/**
+	 * Create a new empty bean.
+	 *
+	 * @return new bean
+	 * @throws Exception if the bean cannot be created
+	 */
+	public Object newInstance() throws Exception {
+		final RowMapper<Entity> mapper = this.getRowMapper();
+		if (mapper != null)
+			return mapper.newBean();
+		return this.construct();
+	}
+
+	private Object construct() throws Exception {
+		if (constructor == null)
+			throw new InstantiationException("Bean class '" + entityClass.getName() + "' has no accessible default constructor!");
+		try {
+			return constructor.invokeExact();
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+	/**
+	 * Get the value of a bean field.
+	 *
+	 * @param bean bean
+	 * @param dbName database column name
+	 * @return value
+	 * @throws Exception if there's no such bean field or the getter fails
+	 */
+	public Object getValue(Object bean, String dbName) throws Exception {
+		final RowMapper<Entity> mapper = this.getRowMapper();
+		if (mapper != null) {
+			final Object value = mapper.get((Entity) bean, dbName);
+			if (value != RowMapper.NO_FIELD)
+				return value;
+		}
+		return invokeGetter(getters[indexOf(dbName)], bean);
+	}
+
+	/**
+	 * Set the value of a bean field.
+	 *
+	 * @param bean bean
+	 * @param dbName database column name
+	 * @param value value
+	 * @throws Exception if there's no such bean field or the setter fails
+	 */
+	public void setValue(Object bean, String dbName, Object value) throws Exception {
+		try {
+			setters[indexOf(dbName)].invokeExact(bean, value);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+	private int indexOf(String dbName) throws NoSuchFieldException {
+		final Integer idx = indexes.get(dbName);
+		if (idx == null)
+			throw new NoSuchFieldException("No bean field for column '" + dbName + "' in bean class '" + entityClass.getName() + "'!");
+		return idx.intValue();
+	}
+
+	/**
+	 * Get a property value by bean property name or database field name,
+	 * e.g. 'userId' or 'user_id'. Any getter is considered, not only
+	 * the ones of database columns.
+	 *
+	 * @param bean bean
+	 * @param propertyName bean property name or database field name
+	 * @return value or null
+	 * @throws Exception if there's no getter for the property or the getter fails
+	 */
+	public Object getProperty(Object bean, String propertyName) throws Exception {
+		final RowMapper<Entity> mapper = this.getRowMapper();
+		if (mapper != null) {
+			final Object value = mapper.get((Entity) bean, propertyName);
+			if (value != RowMapper.NO_FIELD)
+				return value;
+		}
+		MethodHandle getter = propertyGetters.get(propertyName);
+		if (getter == null) {
+			getter = this.findGetter(propertyName);
+			propertyGetters.put(propertyName, getter);
+		}
+		if (getter == NO_GETTER)
+			throw new NoSuchMethodException("No getter for property '" + propertyName + "' found in bean class '" + entityClass.getName() + "'!");
+		return invokeGetter(getter, bean);
+	}
+
+	private MethodHandle findGetter(String propertyName) {
+		String fieldName = propertyName;
+		if (fieldName.contains("_")) {
+			final StringBuilder newName = new StringBuilder(fieldName.length());
+			boolean nextIsUpper = false;
+			for (char c : fieldName.toCharArray()) {
+				if (nextIsUpper) {
+					c = Character.toUpperCase(c);
+					nextIsUpper = false;
+				}
+			    if (c != '_')
+			    	newName.append(c);
+			    else
+			    	nextIsUpper = true;
+			}
+			fieldName = newName.toString();
+		}
+		final String mName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1, fieldName.length());
+		// We also include super-classes!
+		Class<?> clz = entityClass;
+		while (clz != null) {
+			try {
+				final Method method = clz.getDeclaredMethod(mName);
+				method.setAccessible(true);
+				return MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE);
+			} catch (Exception e) {
+				clz = clz.getSuperclass();
+			}
+		}
+		return NO_GETTER;
+	}
+
+	private static Object invokeGetter(MethodHandle getter, Object bean) throws Exception {
+		try {
+			return getter.invokeExact(bean);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+	/**
+	 * Get the row mapper generated by PLANT if any. A sub-class inherits
+	 * the row mapper of its generated super-class, but that one creates
+	 * and maps super-class beans only; it isn't used for the sub-class.
+	 *
+	 * @return row mapper or null
+	 * @throws Exception if a bean cannot be created to access the row mapper
+	 */
+	@SuppressWarnings("unchecked")
+	public RowMapper<Entity> getRowMapper() throws Exception {
+		if (!rowMapperResolved) {
+			if (Model.class.isAssignableFrom(entityClass) && constructor != null) {
+				final RowMapper<Entity> mapper = (RowMapper<Entity>) (RowMapper<?>) ((Model) this.construct()).rowMapper();
+				if (mapper != null && mapper.newBean().getClass() == entityClass)
+					rowMapper = mapper;
+				else if (mapper != null)
+					LOG.trace("Inherited row mapper not used for bean class '{}'.", entityClass.getName());
+			}
+			rowMapperResolved = true;
+		}
+		return rowMapper;
+	}
+
+	/**
+	 * Get display field name.
+	 *
+	 * @return display field name
+	 * @throws Exception exception
+	 */
+	public String getDisplayField() throws Exception {
+		String df = displayField;
+		if (df == null)
+			df = this.getDisplayField((Entity) this.newInstance());
+		return df;
+	}
+
+	/**
+	 * Get display field name.
+	 *
+	 * @param bean a bean to access the display field if not yet resolved
+	 * @return display field name
+	 * @throws Exception exception
+	 */
+	public String getDisplayField(Entity bean) throws Exception {
+		String df = displayField;
+		if (df == null) {
+			final Method getDV = findMethod("getDisplayField");
+			if (getDV != null) {
+				df = (String) getDV.invoke(bean);
+			} else {
+				LOG.info("No display field getter found in bean of type '"+entityClass.getName()+", but it might be used to be shown as a reference entity' -> using 'id'!");
+				df = "id";
+			}
+			displayField = df;
+		}
+		return df;
+	}
+
+	/**
+	 * Get foreign references map if any or null; pairs of DB foreign keys
+	 * and referenced entity classes.
+	 *
+	 * @return unmodifiable foreign references map or null
+	 * @throws Exception exception
+	 */
+	public Map<String, Class<?>> getForeignReferences() throws Exception {
+		if (!referencesResolved)
+			return this.getForeignReferences((Entity) this.newInstance());
+		return foreignReferences;
+	}
+
+	/**
+	 * Get foreign references map if any or null; pairs of DB foreign keys
+	 * and referenced entity classes.
+	 *
+	 * @param bean a bean to access the foreign references if not yet resolved
+	 * @return unmodifiable foreign references map or null
+	 * @throws Exception exception
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<String, Class<?>> getForeignReferences(Entity bean) throws Exception {
+		if (!referencesResolved) {
+			final Method getFR = findMethod("getForeignReferences");
+			if (getFR != null) {
+				final Map<String, Class<?>> refs = (Map<String, Class<?>>) getFR.invoke(bean);
+				foreignReferences = refs == null ? null : Collections.unmodifiableMap(new HashMap<>(refs));
+			}
+			// No refs, that's fine!
+			referencesResolved = true;
+		}
+		return foreignReferences;
+	}
+
+	private Method findMethod(String name) {
+		Class<?> clz = entityClass;
+		while (clz != null) {
+			try {
+				final Method method = clz.getDeclaredMethod(name);
+				method.setAccessible(true);
+				return method;
+			} catch (Exception e) {
+				clz = clz.getSuperclass();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the column to property mapping for the given result set meta data;
+	 * computed by the mapper once per distinct column set.
+	 *
+	 * @param rsmd result set meta data
+	 * @param mapper computes the mapping if not cached
+	 * @return column to property mapping
+	 * @throws SQLException SQL exception
+	 */
+	int[] getColumnMapping(ResultSetMetaData rsmd, ColumnMapper mapper) throws SQLException {
+		final int cols = rsmd.getColumnCount();
+		final StringBuilder key = new StringBuilder();
+		for (int col = 1; col <= cols; col++) {
+			String columnName = rsmd.getColumnLabel(col);
+			if (null == columnName || 0 == columnName.length())
+				columnName = rsmd.getColumnName(col);
+			key.append(columnName).append(',');
+		}
+		final String k = key.toString();
+		int mapping[] = columnMappings.get(k);
+		if (mapping == null) {
+			mapping = mapper.map(rsmd, fields);
+			if (columnMappings.size() < MAX_COLUMN_MAPPINGS)
+				columnMappings.put(k, mapping);
+		}
+		return mapping;
+	}
+
+	/**
+	 * Maps result set columns to bean field indexes.
+	 */
+	@FunctionalInterface
+	interface ColumnMapper {
+		int[] map(ResultSetMetaData rsmd, BeanField beanFields[]) throws SQLException;
+	}
+
+	/**
+	 * Amount of registered entity classes.
+	 *
+	 * @return amount of entity classes
+	 */
+	public static int size() {
+		return REGISTRY.size();
+	}
+
+}
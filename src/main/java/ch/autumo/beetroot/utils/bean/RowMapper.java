@@ -0,0 +1,72 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.utils.bean;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import ch.autumo.beetroot.Entity;
+import ch.autumo.beetroot.Model;
+
+
+/**
+ * Row mapper of an entity; generated by PLANT and returned by
+ * {@link Model#rowMapper()}. It maps result set columns to bean
+ * properties and accesses bean properties without reflection.
+ * If an entity has no row mapper, the bean processor and the
+ * entity meta data fall back to their method handles.
+ *
+ * @param <T> entity type
+ */
+public interface RowMapper<T extends Entity> {
+
+	/**
+	 * Returned by {@link #get(Entity, String)} for unknown fields.
+	 */
+	public static final Object NO_FIELD = new Object();
+
+	/**
+	 * Create a new empty bean.
+	 *
+	 * @return new bean
+	 */
+	public T newBean();
+
+	/**
+	 * Set the bean property of a database column from the result set.
+	 *
+	 * @param bean bean
+	 * @param column database column name, e.g. 'user_id'
+	 * @param rs result set at current position
+	 * @param index result set column index
+	 * @return true if the column is known and has been set
+	 * @throws SQLException SQL exception
+	 */
+	public boolean set(T bean, String column, ResultSet rs, int index) throws SQLException;
+
+	/**
+	 * Get a bean property value.
+	 *
+	 * @param bean bean
+	 * @param field database column name or bean property name,
+	 * 			e.g. 'user_id' or 'userId'
+	 * @return value or {@link #NO_FIELD} if the field is unknown
+	 */
+	public Object get(T bean, String field);
+
+}
@@ -32,6 +32,8 @@ public class MIME {
 	public static List<String> mimeOctetList;
 	/** Allowed archive mime types. */
 	public static List<String> mimeArchiveList;
+	/** Compressible mime types. */
+	public static List<String> mimeCompressibleList;
 	
 	/**
 	 * Is supported text mime type?
@@ -70,4 +72,17 @@ public class MIME {
 		return mimeArchiveList.contains(mimeType);
 	}
 	
+	/**
+	 * Is compressible mime type? Compressed variants are served
+	 * for these mime types, if the client accepts them.
+	 * 
+	 * @param mimeType mime type
+	 * @return true if so
+	 */
+	public static boolean isMimeTypeCompressible(String mimeType) {
+		if (mimeCompressibleList == null)
+			mimeCompressibleList = BeetRootConfigurationManager.getInstance().getMimeTypes("ws_mime_compressible");
+		return mimeCompressibleList.contains(mimeType);
+	}
+	
 }
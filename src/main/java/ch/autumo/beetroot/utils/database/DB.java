@@ -25,6 +25,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -41,7 +42,11 @@ import ch.autumo.beetroot.Constants;
 import ch.autumo.beetroot.Entity;
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.Session;
+import ch.autumo.beetroot.cache.EntityCacheManager;
+import ch.autumo.beetroot.cache.RoleCacheManager;
+import ch.autumo.beetroot.cache.RowCountCacheManager;
 import ch.autumo.beetroot.utils.bean.Beans;
+import ch.autumo.beetroot.utils.bean.EntityMetadata;
 import ch.autumo.beetroot.utils.web.Web;
 
 
@@ -67,6 +72,11 @@ public class DB {
 	 */
 	public static final int SORT_BY_VALUE = 1;
 	
+	/**
+	 * Maximum amount of values in a SQL 'IN'-list; Oracle's limit.
+	 */
+	public static final int MAX_IN_LIST_SIZE = 1000;
+	
 	/**
 	 * Get display values: &lt;ID:displayValue&gt;.
 	 * Max. 200 records to be returned.
@@ -108,7 +118,7 @@ public class DB {
 		Statement stmt = null;
 		ResultSet set = null;
 		
-		final String displayColumn =  Beans.getDisplayField(Beans.createBean(entityClass));
+		final String displayColumn =  EntityMetadata.of(entityClass).getDisplayField();
 		String orderFiled = (sortType == SORT_BY_VALUE) ? displayColumn : "id"; 
 		final String table = Beans.classToTable(entityClass);
 		
@@ -147,7 +157,7 @@ public class DB {
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null;
-		final String displayColumn =  Beans.getDisplayField(Beans.createBean(entityClass));
+		final String displayColumn =  EntityMetadata.of(entityClass).getDisplayField();
 		final String table = Beans.classToTable(entityClass);
 		Map.Entry<Integer, String> entry = null;
 		try {
@@ -169,6 +179,55 @@ public class DB {
 		return entry;		
 	}
 
+	/**
+	 * Get display values for the given IDs: &lt;ID:displayValue&gt;;
+	 * one query per {@value #MAX_IN_LIST_SIZE} IDs. IDs without 
+	 * a record are not contained in the result.
+	 * 
+	 * @param entityClass class
+	 * @param ids ids
+	 * @return entries
+	 * @throws Exception exception
+	 */
+	public static Map<Integer, String> getDisplayValues(Class<?> entityClass, Collection<Integer> ids) throws Exception {
+		final Map<Integer, String> map = new HashMap<Integer, String>();
+		if (ids.isEmpty())
+			return map;
+		final String displayColumn =  EntityMetadata.of(entityClass).getDisplayField();
+		final String table = Beans.classToTable(entityClass);
+		final List<Integer> idList = new ArrayList<Integer>(ids);
+		Connection conn = null;
+		Statement stmt = null;
+		ResultSet set = null;
+		try {
+			conn = BeetRootDatabaseManager.getInstance().getConnection();
+			stmt = conn.createStatement();
+			for (int from = 0; from < idList.size(); from += MAX_IN_LIST_SIZE) {
+				final List<Integer> chunk = idList.subList(from, Math.min(from + MAX_IN_LIST_SIZE, idList.size()));
+				final StringBuilder stmtStr = new StringBuilder("SELECT id, ").append(displayColumn).append(" FROM ").append(table).append(" WHERE id IN (");
+				for (int i = 0; i < chunk.size(); i++) {
+					if (i > 0)
+						stmtStr.append(',');
+					stmtStr.append(chunk.get(i).intValue());
+				}
+				stmtStr.append(')');
+				set = stmt.executeQuery(stmtStr.toString());
+				while (set.next())
+					map.put(Integer.valueOf(set.getInt(1)), set.getString(2));
+				set.close();
+				set = null;
+			}
+		} finally {
+			if (set != null)
+				set.close();
+			if (stmt != null)
+				stmt.close();
+			if (conn != null)
+				conn.close();    	
+		}
+		return map;		
+	}
+	
 	/**
 	 * Escape single value for DB.
 	 * 
@@ -205,6 +264,7 @@ public class DB {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE users SET secretkey='"+newSecretUserKey+"' WHERE id=" + userId;
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate("users", userId);
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -290,6 +350,7 @@ public class DB {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE users SET settings='"+settingsStr+"' WHERE id=" + userSession.getUserId();
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate("users", userSession.getUserId());
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -316,6 +377,17 @@ public class DB {
 	 * @throws SQLException SQL exception
 	 */
 	public static int countRows(String table) throws SQLException {
+		return countRows(table, null);
+	}
+	
+	/**
+	 * Count rows of table that match a condition.
+	 * @param table table DB name
+	 * @param condition SQL condition without 'WHERE' or null
+	 * @return amount of rows or -1 if something bad happens
+	 * @throws SQLException SQL exception
+	 */
+	public static int countRows(String table, String condition) throws SQLException {
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null;
@@ -323,7 +395,10 @@ public class DB {
 		try {
 			conn = BeetRootDatabaseManager.getInstance().getConnection();
 			stmt = conn.createStatement();
-			set = stmt.executeQuery("SELECT count(*) FROM " + table);
+			if (condition == null || condition.length() == 0)
+				set = stmt.executeQuery("SELECT count(*) FROM " + table);
+			else
+				set = stmt.executeQuery("SELECT count(*) FROM " + table + " WHERE " + condition);
 			if(!set.next()) {
 				set.close();
 				stmt.close();
@@ -342,8 +417,27 @@ public class DB {
 		return amount;
 	}	
 	
+	/**
+	 * Append a database-specific clause to a select statement that limits
+	 * the result to one page of records, so the database doesn't deliver
+	 * the whole table: 'OFFSET x ROWS FETCH NEXT y ROWS ONLY' for Oracle,
+	 * 'LIMIT y OFFSET x' for all other databases.
+	 * 
+	 * @param stmtStr select statement, should contain an 'ORDER BY' clause
+	 * @param offset amount of records to skip
+	 * @param amount max. amount of records to deliver
+	 * @return select statement with page clause
+	 */
+	public static String paginate(String stmtStr, int offset, int amount) {
+		if (BeetRootDatabaseManager.getInstance().isOracleDb())
+			return stmtStr + " OFFSET " + offset + " ROWS FETCH NEXT " + amount + " ROWS ONLY";
+		else
+			return stmtStr + " LIMIT " + amount + " OFFSET " + offset;
+	}
+	
 	/**
 	 * Select a record of type clz (entity class).
+	 * Cached entities are read through the entity cache.
 	 * 
 	 * @param entityClass entity class
 	 * @param id DB record id
@@ -351,11 +445,16 @@ public class DB {
 	 * @throws SQLException SQL exception
 	 */
 	public static Model selectRecord(Class<?> entityClass, int id) throws SQLException {
+		// Read-through, if the entity is cached
+		final EntityCacheManager cache = EntityCacheManager.getInstance();
+		Model entity = cache.get(entityClass, id);
+		if (entity != null)
+			return entity;
+		final long stamp = cache.stamp(entityClass);
 		final String table = Beans.classToTable(entityClass);
 		Connection conn = null;
 		Statement stmt = null;
 		ResultSet set = null;
-		Model entity = null;
 		try {
 			conn = BeetRootDatabaseManager.getInstance().getConnection();
 			stmt = conn.createStatement();
@@ -364,6 +463,7 @@ public class DB {
 			if (set.next()) { // one record !
 				entity = Beans.createBean(entityClass, set);
 				entity.setStored(true);
+				cache.put(entityClass, entity, stamp);
 			}
 		} finally {
 			if (set != null)
@@ -413,7 +513,7 @@ public class DB {
 	 * @throws Exception exception
 	 */
 	public static List<Model> selectRecords(Class<?> entityClass, int amount, int sortType) throws Exception {
-		final String displayColumn = Beans.getDisplayField(Beans.createBean(entityClass));
+		final String displayColumn = EntityMetadata.of(entityClass).getDisplayField();
 		String orderFiled = (sortType == SORT_BY_VALUE) ? displayColumn : "id"; 
 		final String table = Beans.classToTable(entityClass);
 		Connection conn = null;
@@ -485,7 +585,7 @@ public class DB {
 	 * @throws Exception exception
 	 */
 	public static List<Model> selectRecords(Class<?> entityClass, String condition, Object values[], int amount, int sortType) throws Exception {
-		final String displayColumn = Beans.getDisplayField(Beans.createBean(entityClass));
+		final String displayColumn = EntityMetadata.of(entityClass).getDisplayField();
 		final String orderFiled = (sortType == SORT_BY_VALUE) ? displayColumn : "id"; 
 		final String table = Beans.classToTable(entityClass);
 		Connection conn = null;
@@ -596,6 +696,8 @@ public class DB {
 			stmt = conn.createStatement();
 			String stmtStr = "DELETE FROM "+entity+" WHERE " + clause;
 			stmt.executeUpdate(stmtStr);
+			RowCountCacheManager.getInstance().invalidate(entity);
+			EntityCacheManager.getInstance().invalidate(entity);
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -651,6 +753,10 @@ public class DB {
 			stmt = conn.createStatement();
 			String stmtStr = "DELETE FROM "+entity+" WHERE id=" + id;
 			stmt.executeUpdate(stmtStr);
+			RowCountCacheManager.getInstance().invalidate(entity);
+			EntityCacheManager.getInstance().invalidate(entity, id);
+			BeetRootDatabaseManager.getInstance().invalidateProperties(entity);
+			RoleCacheManager.getInstance().invalidate(entity);
 		} finally {
 			if (stmt != null)
 				stmt.close();
@@ -687,6 +793,9 @@ public class DB {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE "+tabelName+" SET " + updateClause + " WHERE id=" + entity.getId();
 			stmt.executeUpdate(stmtStr);
+			EntityCacheManager.getInstance().invalidate(tabelName, entity.getId());
+			BeetRootDatabaseManager.getInstance().invalidateProperties(tabelName);
+			RoleCacheManager.getInstance().invalidate(tabelName);
 		} catch (SQLException e) {
 			LOG.error("Couldn't update entity!", e);
 			throw e;
@@ -722,6 +831,9 @@ public class DB {
 			//NO SEMICOLON
 			stmt = conn.prepareStatement("INSERT INTO "+tableName+" (" + columns + ") VALUES (" + values + ")", Statement.RETURN_GENERATED_KEYS);
 			stmt.executeUpdate();
+			RowCountCacheManager.getInstance().invalidate(tableName);
+			BeetRootDatabaseManager.getInstance().invalidateProperties(tableName);
+			RoleCacheManager.getInstance().invalidate(tableName);
 			// Get generated key
 			boolean found = false;
 
@@ -932,7 +1044,8 @@ public class DB {
 	}
 
 	/**
-	 * Retire a global DB connection.
+	 * Retire a global DB connection. Caches of entities changed
+	 * within its transaction are invalidated once more.
 	 * 
 	 * @see #newGlobalConnection()
 	 * 
@@ -942,6 +1055,19 @@ public class DB {
 		BeetRootDatabaseManager.getInstance().retireGlobalConnection(conn);
 	}
 	
+	/**
+	 * Invalidate caches for a change within a global transaction; again
+	 * when the connection is retired, because entities and row counts
+	 * read concurrently before the commit are still the old ones.
+	 * 
+	 * @param conn global connection
+	 * @param invalidation cache invalidation
+	 */
+	private static void invalidateInTransaction(Connection conn, Runnable invalidation) {
+		invalidation.run();
+		BeetRootDatabaseManager.getInstance().onRetire(conn, invalidation);
+	}
+	
 	/**
 	 * Insert new entity.
 	 * 
@@ -964,6 +1090,11 @@ public class DB {
 			//NO SEMICOLON
 			stmt = conn.prepareStatement("INSERT INTO "+tableName+" (" + columns + ") VALUES (" + values + ")", Statement.RETURN_GENERATED_KEYS);
 			stmt.executeUpdate();
+			invalidateInTransaction(conn, () -> {
+				RowCountCacheManager.getInstance().invalidate(tableName);
+				BeetRootDatabaseManager.getInstance().invalidateProperties(tableName);
+				RoleCacheManager.getInstance().invalidate(tableName);
+			});
 			// Get generated key
 			boolean found = false;
 
@@ -1036,6 +1167,12 @@ public class DB {
 			stmt = conn.createStatement();
 			final String stmtStr = "UPDATE "+tabelName+" SET " + updateClause + " WHERE id=" + entity.getId();
 			stmt.executeUpdate(stmtStr);
+			final int id = entity.getId();
+			invalidateInTransaction(conn, () -> {
+				EntityCacheManager.getInstance().invalidate(tabelName, id);
+				BeetRootDatabaseManager.getInstance().invalidateProperties(tabelName);
+				RoleCacheManager.getInstance().invalidate(tabelName);
+			});
 		} catch (Exception e) {
 			ex = true;
 			LOG.error("Couldn't update entity within global transaction!", e);
@@ -1068,6 +1205,12 @@ public class DB {
 			stmt = conn.createStatement();
 			String stmtStr = "DELETE FROM "+entity+" WHERE id=" + id;
 			stmt.executeUpdate(stmtStr);
+			invalidateInTransaction(conn, () -> {
+				RowCountCacheManager.getInstance().invalidate(entity);
+				EntityCacheManager.getInstance().invalidate(entity, id);
+				BeetRootDatabaseManager.getInstance().invalidateProperties(entity);
+				RoleCacheManager.getInstance().invalidate(entity);
+			});
 		} catch (Exception e) {
 			ex = true;
 			LOG.error("Couldn't delete entity within global transaction!", e);
@@ -1106,6 +1249,10 @@ public class DB {
 			stmt = conn.createStatement();
 			String stmtStr = "DELETE FROM "+entity+" WHERE " + clause;
 			stmt.executeUpdate(stmtStr);
+			invalidateInTransaction(conn, () -> {
+				RowCountCacheManager.getInstance().invalidate(entity);
+				EntityCacheManager.getInstance().invalidate(entity);
+			});
 		} catch (Exception e) {
 			ex = true;
 			LOG.error("Couldn't delete relation entity within global transaction!", e);
@@ -0,0 +1,216 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.utils.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.security.SecureApplicationHolder;
+
+
+/**
+ * Stateless ID tokens. A token encodes a database ID for an entity
+ * and a user session without storing anything: the ID and an HMAC
+ * tag over (entity, ID) are encrypted as one AES block with a key
+ * derived from the security key seed and the session ID. Tokens are
+ * therefore only valid within the session and entity they have been
+ * created for, and they can be decoded by every server instance
+ * sharing the same security key seed. A session revokes its tokens
+ * by deriving its key for a new epoch.
+ */
+public class IdTokens {
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+	private static final String CIPHER_ALGORITHM = "AES/ECB/NoPadding";
+
+	private static final int BLOCK_SIZE = 16;
+	private static final int ID_SIZE = 4;
+	/** Base64 length of one block without padding */
+	private static final int TOKEN_LENGTH = 22;
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(IdTokens::newMac);
+	private static final ThreadLocal<Cipher> ENCRYPT = ThreadLocal.withInitial(IdTokens::newCipher);
+	private static final ThreadLocal<Cipher> DECRYPT = ThreadLocal.withInitial(IdTokens::newCipher);
+
+	private static volatile Boolean enabled = null;
+	private static byte[] masterKey = null;
+
+
+	/**
+	 * Are stateless ID tokens enabled ('web_stateless_ids')?
+	 *
+	 * @return true if so
+	 */
+	public static boolean isEnabled() {
+		if (enabled == null)
+			enabled = Boolean.valueOf(BeetRootConfigurationManager.isInitialized()
+					&& BeetRootConfigurationManager.getInstance().getYesOrNo(Constants.KEY_WEB_STATELESS_IDS, Constants.NO));
+		return enabled.booleanValue();
+	}
+
+	/**
+	 * Derive the key of a session; it should be kept by the session,
+	 * so it isn't derived for every token.
+	 *
+	 * @param sessionId session ID
+	 * @return session key
+	 */
+	public static byte[] sessionKey(String sessionId) {
+		return sessionKey(sessionId, 0);
+	}
+
+	/**
+	 * Derive the key of a session for an epoch; tokens are only valid
+	 * within the epoch they have been created in, so a session revokes
+	 * all its tokens by starting a new epoch.
+	 *
+	 * @param sessionId session ID
+	 * @param epoch epoch
+	 * @return session key
+	 */
+	public static byte[] sessionKey(String sessionId, int epoch) {
+		final Mac mac = MAC.get();
+		try {
+			mac.init(new SecretKeySpec(masterKey(), MAC_ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new SecurityException("Couldn't derive session key!", e);
+		}
+		mac.update(sessionId.getBytes(StandardCharsets.UTF_8));
+		if (epoch != 0) {
+			final byte[] epochBytes = new byte[ID_SIZE];
+			putInt(epochBytes, epoch);
+			mac.update(epochBytes);
+		}
+		return mac.doFinal();
+	}
+
+	/**
+	 * Encode a database ID.
+	 *
+	 * @param sessionKey session key
+	 * @param entity entity
+	 * @param id database ID
+	 * @return token
+	 */
+	public static String encode(byte[] sessionKey, String entity, int id) {
+		final byte[] block = new byte[BLOCK_SIZE];
+		putInt(block, id);
+		System.arraycopy(tag(sessionKey, entity, id), 0, block, ID_SIZE, BLOCK_SIZE - ID_SIZE);
+		try {
+			final Cipher cipher = ENCRYPT.get();
+			cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(sessionKey, 0, BLOCK_SIZE, "AES"));
+			return ENCODER.encodeToString(cipher.doFinal(block));
+		} catch (GeneralSecurityException e) {
+			throw new SecurityException("Couldn't encode ID!", e);
+		}
+	}
+
+	/**
+	 * Decode a token.
+	 *
+	 * @param sessionKey session key
+	 * @param entity entity
+	 * @param token token
+	 * @return database ID or -1 if the token isn't valid for the
+	 * 			session and entity
+	 */
+	public static int decode(byte[] sessionKey, String entity, String token) {
+		if (token == null || token.length() != TOKEN_LENGTH)
+			return -1;
+		final byte[] block;
+		try {
+			final byte[] encrypted = DECODER.decode(token);
+			final Cipher cipher = DECRYPT.get();
+			cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(sessionKey, 0, BLOCK_SIZE, "AES"));
+			block = cipher.doFinal(encrypted);
+		} catch (IllegalArgumentException | GeneralSecurityException e) {
+			return -1;
+		}
+		final int id = getInt(block);
+		final byte[] tag = Arrays.copyOf(tag(sessionKey, entity, id), BLOCK_SIZE - ID_SIZE);
+		if (!MessageDigest.isEqual(tag, Arrays.copyOfRange(block, ID_SIZE, BLOCK_SIZE)))
+			return -1;
+		return id;
+	}
+
+	private static byte[] tag(byte[] sessionKey, String entity, int id) {
+		final Mac mac = MAC.get();
+		try {
+			mac.init(new SecretKeySpec(sessionKey, BLOCK_SIZE, sessionKey.length - BLOCK_SIZE, MAC_ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new SecurityException("Couldn't create ID tag!", e);
+		}
+		mac.update(entity.getBytes(StandardCharsets.UTF_8));
+		final byte[] idBytes = new byte[ID_SIZE];
+		putInt(idBytes, id);
+		return mac.doFinal(idBytes);
+	}
+
+	private static synchronized byte[] masterKey() {
+		if (masterKey == null) {
+			final String seed = SecureApplicationHolder.getInstance().getSecApp().getUniqueSecurityKey();
+			try {
+				final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				masterKey = digest.digest(("beetroot-id-tokens:" + seed).getBytes(StandardCharsets.UTF_8));
+			} catch (GeneralSecurityException e) {
+				throw new SecurityException("Couldn't derive ID token key!", e);
+			}
+		}
+		return masterKey;
+	}
+
+	private static void putInt(byte[] b, int v) {
+		b[0] = (byte) (v >>> 24);
+		b[1] = (byte) (v >>> 16);
+		b[2] = (byte) (v >>> 8);
+		b[3] = (byte) v;
+	}
+
+	private static int getInt(byte[] b) {
+		return ((b[0] & 0xff) << 24) | ((b[1] & 0xff) << 16) | ((b[2] & 0xff) << 8) | (b[3] & 0xff);
+	}
+
+	private static Mac newMac() {
+		try {
+			return Mac.getInstance(MAC_ALGORITHM);
+		} catch (GeneralSecurityException e) {
+			throw new SecurityException("HMAC algorithm '" + MAC_ALGORITHM + "' not available!", e);
+		}
+	}
+
+	private static Cipher newCipher() {
+		try {
+			return Cipher.getInstance(CIPHER_ALGORITHM);
+		} catch (GeneralSecurityException e) {
+			throw new SecurityException("Cipher '" + CIPHER_ALGORITHM + "' not available!", e);
+		}
+	}
+
+}
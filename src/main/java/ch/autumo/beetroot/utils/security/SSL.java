@@ -40,6 +40,7 @@ import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import ch.autumo.beetroot.BeetRootConfigurationManager;
 import ch.autumo.beetroot.Constants;
@@ -236,6 +237,44 @@ public class SSL {
 	 */
     public static CloseableHttpClient makeSSLHttpClient(String keyAndTrustStore, char passphrase[], RequestConfig config) throws IOException {
     
+    	initHttpSocketFactories(keyAndTrustStore, passphrase);
+
+    	// Get a fresh client.
+		final BasicHttpClientConnectionManager httpConnectionManager = new BasicHttpClientConnectionManager(httpSocketFactoryRegistry);
+	    return HttpClients.custom()
+	    		.setSSLSocketFactory(httpSslSf)
+	    		.setConnectionManager(httpConnectionManager)
+	    		.setDefaultRequestConfig(config).build();
+    }
+    
+    /**
+     * Creates an SSL HTTP client with a connection pool, so it can be shared
+     * between threads and re-uses kept-alive connections. Pass a KeyStore
+     * resource with your certificate and pass-phrase. Close the client when
+     * it isn't used anymore.
+	 * 
+	 * @param keyAndTrustStore key-store file class-path reference or full path
+	 * @param passphrase pass phrase
+	 * @param config request configuration phrase
+	 * @param maxConnections max. pooled connections per route
+	 * @return pooled SSL HTTP Client
+	 * @throws IOException IO exception
+	 */
+    public static CloseableHttpClient makePooledSSLHttpClient(String keyAndTrustStore, char passphrase[], RequestConfig config, int maxConnections) throws IOException {
+    	
+    	initHttpSocketFactories(keyAndTrustStore, passphrase);
+    	
+		final PoolingHttpClientConnectionManager httpConnectionManager = new PoolingHttpClientConnectionManager(httpSocketFactoryRegistry);
+		httpConnectionManager.setDefaultMaxPerRoute(maxConnections);
+		httpConnectionManager.setMaxTotal(maxConnections * 2);
+	    return HttpClients.custom()
+	    		.setSSLSocketFactory(httpSslSf)
+	    		.setConnectionManager(httpConnectionManager)
+	    		.setDefaultRequestConfig(config).build();
+    }
+    
+    private static synchronized void initHttpSocketFactories(String keyAndTrustStore, char passphrase[]) throws IOException {
+    	
     	if (httpSslSf == null) {
     	
 	    	try {
@@ -288,13 +327,6 @@ public class SSL {
 	            throw new IOException(e.getMessage(), e);
 	        }    	    
     	}
-
-    	// Get a fresh client.
-		final BasicHttpClientConnectionManager httpConnectionManager = new BasicHttpClientConnectionManager(httpSocketFactoryRegistry);
-	    return HttpClients.custom()
-	    		.setSSLSocketFactory(httpSslSf)
-	    		.setConnectionManager(httpConnectionManager)
-	    		.setDefaultRequestConfig(config).build();
     }
     
 }
@@ -96,6 +96,55 @@ public class Web {
     	return StringEscapeUtils.escapeHtml4(value);
     }
 
+    /**
+     * JSON escape value for a JSON string without the quotes.
+     *
+     * @param value value to escape
+     * @return escaped value
+     */
+    public static String escapeJson(String value) {
+    	if (value == null)
+    		return "";
+    	return escapeJson(value, new StringBuilder(value.length() + 16)).toString();
+    }
+
+    /**
+     * JSON escape value for a JSON string without the quotes
+     * and append it to a buffer.
+     *
+     * @param value value to escape
+     * @param buffer buffer to append to
+     * @return buffer
+     */
+    public static StringBuilder escapeJson(CharSequence value, StringBuilder buffer) {
+    	if (value == null)
+    		return buffer;
+    	final int len = value.length();
+    	for (int i = 0; i < len; i++) {
+    		final char c = value.charAt(i);
+    		switch (c) {
+    			case '"'	: buffer.append("\\\""); break;
+    			case '\\'	: buffer.append("\\\\"); break;
+    			case '\n'	: buffer.append("\\n"); break;
+    			case '\r'	: buffer.append("\\r"); break;
+    			case '\t'	: buffer.append("\\t"); break;
+    			case '\b'	: buffer.append("\\b"); break;
+    			case '\f'	: buffer.append("\\f"); break;
+    			default		:
+    				if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+    					buffer.append("\\u");
+    					final String hex = Integer.toHexString(c);
+    					for (int p = hex.length(); p < 4; p++)
+    						buffer.append('0');
+    					buffer.append(hex);
+    				} else {
+    					buffer.append(c);
+    				}
+    		}
+    	}
+    	return buffer;
+    }
+
 	/**
 	 * Enrich URL with parameters.
 	 *
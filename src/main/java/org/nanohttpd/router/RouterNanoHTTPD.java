@@ -38,8 +38,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -62,6 +60,7 @@ import org.slf4j.LoggerFactory;
 import ch.autumo.beetroot.BeetRootConfigurationManager;
 import ch.autumo.beetroot.BeetRootHTTPSession;
 import ch.autumo.beetroot.LanguageManager;
+import ch.autumo.beetroot.handler.HandlerFactory;
 
 /**
  * @author vnnv
@@ -347,6 +346,9 @@ public class RouterNanoHTTPD extends NanoHTTPD {
 
         /** Patched: autumo-beetroot. */
         private boolean hasLang = false;
+
+        /** Patched: autumo-beetroot. Handler factory; resolved once. */
+        private volatile HandlerFactory factory = null;
         
         public UriResource(String uri, int priority, Class<?> handler, Object... initParameter) {
             this(uri, handler, initParameter);
@@ -356,6 +358,14 @@ public class RouterNanoHTTPD extends NanoHTTPD {
         public UriResource(String uri, Class<?> handler, Object... initParameter) {
             this.handler = handler;
             this.initParameter = initParameter;
+            /** Patched: autumo-beetroot; errors are reported when processing */
+            if (handler != null) {
+                try {
+                    this.factory = HandlerFactory.get(handler, initParameter.length);
+                } catch (Exception e) {
+                    LOG.debug("No handler factory for '{}' with {} parameters.", handler.getName(), initParameter.length);
+                }
+            }
             if (uri != null) {
             	
                 /**
@@ -400,21 +410,11 @@ public class RouterNanoHTTPD extends NanoHTTPD {
 
                 	
                     /* Patched: autumo-beetroot */
-            		Constructor<?> constructor = null;
-                    final Constructor<?> constructors[] = handler.getDeclaredConstructors();
-            		int ip = initParameter.length;
-                    for (int i = 0; i < constructors.length; i++) {
-            			int pc = constructors[i].getParameterCount();
-            			if (pc == ip) {
-            				constructor = constructors[i];
-            				break;
-            			}
-            		}                	
-                    constructor.setAccessible(true);
-                    final Object object = constructor.newInstance(initParameter);
-                    final Method initializeMethod = object.getClass().getMethod("initialize", BeetRootHTTPSession.class);
-                    initializeMethod.invoke(object, (BeetRootHTTPSession) session);
-                    //((BaseHandler) object).initialize(session);
+                    HandlerFactory f = factory;
+                    if (f == null)
+                        f = factory = HandlerFactory.get(handler, initParameter.length);
+                    final Object object = f.newInstance(initParameter);
+                    f.initialize(object, (BeetRootHTTPSession) session);
                     
                     
                     if (object instanceof UriResponder) {
@@ -614,12 +614,177 @@ public class RouterNanoHTTPD extends NanoHTTPD {
         }
     }
 
+    /**
+     * Route table compiled into a segment trie; static segments are
+     * looked up by hash, a parameter as last segment takes the rest of
+     * the URI. Routes the trie cannot represent (a parameter in between
+     * or regular expression characters in a segment) are matched by their
+     * pattern. The route matching first in the prioritized order wins, as
+     * with linear matching; a '.' in a segment is matched literally though.
+     * 
+     * Patched: autumo-beetroot.
+     */
+    static class RouteTrie {
+
+        private static final String REGEX_CHARS = "\\^$|?*+()[]{}";
+
+        // Characters of 'UriResource.PARAM_MATCHER'
+        private static final boolean PARAM_CHARS[] = new boolean[128];
+        static {
+            for (char c = 'a'; c <= 'z'; c++)
+                PARAM_CHARS[c] = true;
+            for (char c = 'A'; c <= 'Z'; c++)
+                PARAM_CHARS[c] = true;
+            for (char c = '0'; c <= '9'; c++)
+                PARAM_CHARS[c] = true;
+            for (char c : "-._~:/?#[]@!$&'()*+,;= \t\n\u000B\f\r".toCharArray())
+                PARAM_CHARS[c] = true;
+        }
+
+        private static class Node {
+            private final Map<String, Node> statics = new HashMap<String, Node>();
+            private UriResource exact = null;
+            private int exactOrder = Integer.MAX_VALUE;
+            private UriResource tail = null;
+            private int tailOrder = Integer.MAX_VALUE;
+        }
+
+        private final Node root = new Node();
+
+        private final List<UriResource> patternRoutes = new ArrayList<UriResource>();
+
+        private final List<Integer> patternOrders = new ArrayList<Integer>();
+
+        /**
+         * Compile routes.
+         * 
+         * @param routes routes in prioritized order
+         */
+        RouteTrie(Collection<UriResource> routes) {
+            int order = 0;
+            for (UriResource u : routes) {
+                if (!this.add(u, order)) {
+                    patternRoutes.add(u);
+                    patternOrders.add(order);
+                }
+                order++;
+            }
+        }
+
+        private boolean add(UriResource u, int order) {
+            if (u.uriParams.size() > 1)
+                return false;
+            final String segments[] = u.uri.length() == 0 ? new String[0] : u.uri.split("/", -1);
+            // Check first, then add
+            for (int i = 0; i < segments.length; i++) {
+                final String segment = segments[i];
+                if (segment.startsWith(":") && u.uriParams.size() == 1 && segment.substring(1).equals(u.uriParams.get(0))) {
+                    if (i < segments.length - 1)
+                        return false;
+                } else {
+                    for (int j = 0; j < segment.length(); j++) {
+                        if (REGEX_CHARS.indexOf(segment.charAt(j)) >= 0)
+                            return false;
+                    }
+                }
+            }
+            Node node = root;
+            for (int i = 0; i < segments.length; i++) {
+                if (!u.uriParams.isEmpty() && i == segments.length - 1) {
+                    if (order < node.tailOrder) {
+                        node.tail = u;
+                        node.tailOrder = order;
+                    }
+                    return true;
+                }
+                node = node.statics.computeIfAbsent(segments[i], k -> new Node());
+            }
+            if (order < node.exactOrder) {
+                node.exact = u;
+                node.exactOrder = order;
+            }
+            return true;
+        }
+
+        /**
+         * Find the route with the highest priority matching the URI.
+         * 
+         * @param work normalized URI
+         * @param params map to fill with URL parameters, if any 
+         * @return route or null
+         */
+        UriResource find(String work, Map<String, String> params) {
+            UriResource best = null;
+            int bestOrder = Integer.MAX_VALUE;
+            String tailName = null;
+            String tailValue = null;
+            Node node = root;
+            final int len = work.length();
+            if (len == 0) {
+                best = node.exact;
+                bestOrder = node.exactOrder;
+            } else {
+                int pos = 0;
+                while (node != null) {
+                    if (node.tail != null && node.tailOrder < bestOrder && isParamValue(work, pos)) {
+                        best = node.tail;
+                        bestOrder = node.tailOrder;
+                        tailName = best.uriParams.get(0);
+                        tailValue = work.substring(pos);
+                    }
+                    int end = work.indexOf('/', pos);
+                    if (end < 0)
+                        end = len;
+                    node = node.statics.get(work.substring(pos, end));
+                    if (node != null && end == len) {
+                        if (node.exactOrder < bestOrder) {
+                            best = node.exact;
+                            bestOrder = node.exactOrder;
+                            tailName = null;
+                        }
+                        break;
+                    }
+                    pos = end + 1;
+                }
+            }
+            // Remaining routes with a higher priority
+            for (int i = 0; i < patternRoutes.size() && patternOrders.get(i) < bestOrder; i++) {
+                final Map<String, String> p = patternRoutes.get(i).match(work);
+                if (p != null) {
+                    params.putAll(p);
+                    return patternRoutes.get(i);
+                }
+            }
+            if (tailName != null)
+                params.put(tailName, tailValue);
+            return best;
+        }
+
+        private static boolean isParamValue(String work, int pos) {
+            if (pos >= work.length())
+                return false;
+            for (int i = pos; i < work.length(); i++) {
+                final char c = work.charAt(i);
+                if (c >= 128 || !PARAM_CHARS[c])
+                    return false;
+            }
+            return true;
+        }
+    }
+
     public static class UriRouter {
 
         private UriResource error404Url;
 
         private IRoutePrioritizer routePrioritizer;
 
+        /**
+         * Compiled routes; re-compiled after route changes.
+         * 
+         * Patched: autumo-beetroot.
+         */
+        private volatile RouteTrie routeTrie = null;
+
         /**
          * Is servlet names present?
          * 
@@ -671,16 +836,54 @@ public class RouterNanoHTTPD extends NanoHTTPD {
         	uri = LanguageManager.getInstance().removeLang(uri);
             String work = normalizeUri(uri);
             
-            Map<String, String> params = null;
-            UriResource uriResource = error404Url;
+            RouteTrie trie = routeTrie;
+            if (trie == null)
+                trie = this.compiled();
+            final Map<String, String> params = new HashMap<String, String>();
+            final UriResource uriResource = trie.find(work, params);
+            if (uriResource == null)
+                return error404Url.process(null, session);
+            return uriResource.process(params, session);
+        }
+        
+        /**
+         * Compile the current routes for matching; done automatically
+         * after route changes, at the latest with the next request.
+         * 
+         * Patched: autumo-beetroot.
+         */
+        public void compile() {
+            this.compiled();
+        }
+
+        synchronized RouteTrie compiled() {
+            RouteTrie trie = routeTrie;
+            if (trie == null) {
+                trie = new RouteTrie(routePrioritizer.getPrioritizedRoutes());
+                routeTrie = trie;
+            }
+            return trie;
+        }
+        
+        /**
+         * Find route linearly by matching the URI against the patterns
+         * of all routes in prioritized order.
+         * 
+         * Patched: autumo-beetroot.
+         * 
+         * @param work normalized URI
+         * @param params map to fill with URL parameters, if any 
+         * @return route or null
+         */
+        UriResource findLinear(String work, Map<String, String> params) {
             for (UriResource u : routePrioritizer.getPrioritizedRoutes()) {
-                params = u.match(work);
-                if (params != null) {
-                    uriResource = u;
-                    break;
+                final Map<String, String> p = u.match(work);
+                if (p != null) {
+                    params.putAll(p);
+                    return u;
                 }
             }
-            return uriResource.process(params, session);
+            return null;
         }
         
         /**
@@ -693,12 +896,14 @@ public class RouterNanoHTTPD extends NanoHTTPD {
          * @param handler handler
          * @param initParameter initial parameters
          */
-        public void addRoute(String url, int priority, Class<?> handler, Object... initParameter) {
+        public synchronized void addRoute(String url, int priority, Class<?> handler, Object... initParameter) {
             routePrioritizer.addRoute(url, priority, handler, initParameter);
+            routeTrie = null;
         }
 
-        private void removeRoute(String url) {
+        private synchronized void removeRoute(String url) {
             routePrioritizer.removeRoute(url);
+            routeTrie = null;
         }
 
         public void setNotFoundHandler(Class<?> handler) {
@@ -709,8 +914,9 @@ public class RouterNanoHTTPD extends NanoHTTPD {
             routePrioritizer.setNotImplemented(handler);
         }
 
-        public void setRoutePrioritizer(IRoutePrioritizer routePrioritizer) {
+        public synchronized void setRoutePrioritizer(IRoutePrioritizer routePrioritizer) {
             this.routePrioritizer = routePrioritizer;
+            routeTrie = null;
         }
 
     }
@@ -741,6 +947,7 @@ public class RouterNanoHTTPD extends NanoHTTPD {
         router.setNotFoundHandler(Error404UriHandler.class);
         router.addRoute("/", Integer.MAX_VALUE / 2, IndexHandler.class);
         router.addRoute("/index.html", Integer.MAX_VALUE / 2, IndexHandler.class);
+        router.compile();
     }
     
     public void addRoute(String url, Class<?> handler, Object... initParameter) {
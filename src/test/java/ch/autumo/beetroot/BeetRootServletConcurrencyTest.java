@@ -0,0 +1,160 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+/**
+ * Servlet concurrency test: requests of different sessions must run
+ * in parallel, requests of the same session must be serialized.
+ */
+public class BeetRootServletConcurrencyTest {
+
+	private static final int THREADS = 4;
+	private static final int REQUESTS = 5;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+	}
+
+	@Test
+	public void testConcurrentSessions() throws Exception {
+		final TestServlet servlet = new TestServlet(true, false);
+		run(servlet);
+		assertTrue("Requests of different sessions haven't been executed concurrently!", servlet.maxActive.get() > 1);
+		assertEquals(THREADS * REQUESTS, servlet.executed.get());
+	}
+
+	@Test
+	public void testSameSession() throws Exception {
+		final TestServlet servlet = new TestServlet(true, true);
+		run(servlet);
+		assertEquals("Requests of the same session must be serialized!", 1, servlet.maxActive.get());
+		assertEquals(THREADS * REQUESTS, servlet.executed.get());
+	}
+
+	@Test
+	public void testSerialized() throws Exception {
+		final TestServlet servlet = new TestServlet(false, false);
+		run(servlet);
+		assertEquals("Requests must be serialized in legacy mode!", 1, servlet.maxActive.get());
+		assertEquals(THREADS * REQUESTS, servlet.executed.get());
+	}
+
+	private void run(TestServlet servlet) throws Exception {
+		final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { HttpServletRequest.class }, (p, m, a) -> null);
+		final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class }, (p, m, a) -> null);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> errors = new ArrayList<>();
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			final Thread t = new Thread(() -> {
+				try {
+					start.await();
+					for (int j = 0; j < REQUESTS; j++)
+						servlet.service(request, response);
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		start.countDown();
+		for (Thread t : threads)
+			t.join();
+		assertTrue("Errors: " + errors, errors.isEmpty());
+	}
+
+
+	/**
+	 * Servlet that hands out one session per thread or one shared session.
+	 */
+	private static final class TestServlet extends BeetRootServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final boolean concurrent;
+		private final boolean sharedSession;
+		private final ThreadLocal<TestSession> perThread = ThreadLocal.withInitial(TestSession::new);
+		private final TestSession shared;
+
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxActive = new AtomicInteger();
+		private final AtomicInteger executed = new AtomicInteger();
+
+		private TestServlet(boolean concurrent, boolean sharedSession) {
+			this.concurrent = concurrent;
+			this.sharedSession = sharedSession;
+			this.shared = sharedSession ? new TestSession() : null;
+		}
+
+		@Override
+		protected boolean isConcurrentExecution() {
+			return concurrent;
+		}
+
+		@Override
+		protected BeetRootHTTPSession findOrCreateHttpSession(HttpServletRequest request) throws IOException {
+			return sharedSession ? shared : perThread.get();
+		}
+
+		private final class TestSession extends BeetRootHTTPSession {
+
+			private TestSession() {
+				super("test-" + System.nanoTime(), null, new ByteArrayInputStream(new byte[0]));
+			}
+
+			@Override
+			public void executeForServlet(BeetRootService beetRootService, HttpServletRequest request, HttpServletResponse response) throws IOException {
+				final int now = active.incrementAndGet();
+				maxActive.accumulateAndGet(now, Math::max);
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					active.decrementAndGet();
+					executed.incrementAndGet();
+				}
+			}
+		}
+	}
+
+}
@@ -17,15 +17,24 @@
  */
 package ch.autumo.beetroot;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import ch.autumo.beetroot.cache.RowCountCacheManager;
 import ch.autumo.beetroot.models.ModelTest;
+import ch.autumo.beetroot.models.Product;
+import ch.autumo.beetroot.utils.database.DB;
 import ch.autumo.beetroot.utils.database.DBField;
 
 
@@ -61,6 +70,51 @@ public class DBManagerTest {
 		assertTrue("Bean fields (from DB colums) missing!", fields.size() == 7);
 	}
 	
+	@Test
+	public void pagination() throws Exception {
+		
+		final String table = "products";
+		final int total = DB.countRows(table);
+		assertEquals(total, RowCountCacheManager.getInstance().count(table, null));
+		
+		// All pages together must deliver all records in the same order
+		final List<Integer> all = ids("SELECT id FROM " + table + " ORDER BY id");
+		final List<Integer> paged = new ArrayList<>();
+		final int pageSize = 2;
+		for (int offset = 0; offset < total; offset += pageSize) {
+			final List<Integer> page = ids(DB.paginate("SELECT id FROM " + table + " ORDER BY id", offset, pageSize));
+			assertTrue("Page too large!", page.size() <= pageSize);
+			paged.addAll(page);
+		}
+		assertEquals(all, paged);
+	}
+	
+	@Test
+	public void displayValues() throws Exception {
+		
+		final List<Integer> ids = ids("SELECT id FROM products ORDER BY id");
+		assertTrue("No products!", ids.size() > 0);
+		ids.add(Integer.valueOf(Integer.MAX_VALUE));
+		
+		// Same as one by one; unknown IDs are missing
+		final Map<Integer, String> values = DB.getDisplayValues(Product.class, ids);
+		assertEquals(ids.size() - 1, values.size());
+		for (int i = 0; i < ids.size() - 1; i++)
+			assertEquals(DB.getDisplayValue(Product.class, ids.get(i).intValue()).getValue(), values.get(ids.get(i)));
+		assertTrue(DB.getDisplayValues(Product.class, new ArrayList<Integer>()).isEmpty());
+	}
+	
+	private List<Integer> ids(String stmtStr) throws Exception {
+		final List<Integer> ids = new ArrayList<>();
+		try (Connection conn = BeetRootDatabaseManager.getInstance().getConnection();
+				Statement stmt = conn.createStatement();
+				ResultSet set = stmt.executeQuery(stmtStr)) {
+			while (set.next())
+				ids.add(Integer.valueOf(set.getInt(1)));
+		}
+		return ids;
+	}
+	
     @AfterClass
     public static void tearDown() throws Exception {
         BeetRootDatabaseManager.getInstance().release();
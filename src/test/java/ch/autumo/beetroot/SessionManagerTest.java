@@ -0,0 +1,100 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+/**
+ * Session manager test.
+ */
+public class SessionManagerTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+	}
+
+	@Test
+	public void testFindOrCreateConcurrently() throws Exception {
+
+		final SessionManager manager = SessionManager.getInstance();
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final Session found[] = new Session[threads];
+		final List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			final int n = i;
+			final Thread t = new Thread(() -> {
+				try {
+					start.await();
+					found[n] = manager.findOrCreate(httpSession("concurrent-token"));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			workers.add(t);
+			t.start();
+		}
+		start.countDown();
+		for (Thread t : workers)
+			t.join();
+
+		// All requests with the same token must get the same session
+		for (int i = 1; i < threads; i++)
+			assertSame(found[0], found[i]);
+	}
+
+	@Test
+	public void testSweep() throws Exception {
+
+		final SessionManager manager = SessionManager.getInstance();
+		final Session idle = manager.findOrCreate(httpSession("idle-token"));
+		final long timeout = manager.getSessionTimeoutInMillis();
+
+		// Nothing to evict yet
+		manager.sweep(idle.getLastAccessTime());
+		assertSame(idle, manager.findOrCreate(httpSession("idle-token")));
+
+		// Session is idle longer than the timeout
+		final int live = manager.getLiveSessionCount();
+		final int evicted = manager.sweep(System.currentTimeMillis() + timeout + 1);
+		assertEquals(live, evicted);
+		assertEquals(0, manager.getLiveSessionCount());
+		assertEquals(0, manager.getAnonymousSessionCount());
+
+		// A new session is created for the same token
+		assertNotSame(idle, manager.findOrCreate(httpSession("idle-token")));
+		assertEquals(1, manager.getAnonymousSessionCount());
+	}
+
+	private static BeetRootHTTPSession httpSession(String token) {
+		return new BeetRootHTTPSession(token, null, new ByteArrayInputStream(new byte[0]));
+	}
+
+}
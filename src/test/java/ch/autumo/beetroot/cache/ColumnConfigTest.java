@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * Column configuration test.
+ */
+public class ColumnConfigTest {
+
+	private static final String COLUMNS = ""
+			+ "list.name=Name\n"
+			+ "list.secret=Secret\n"
+			+ "list_json.name=name\n"
+			+ "view.name=Name\n"
+			+ "add.name=Name\n"
+			+ "add.role=Role\n"
+			+ "init.role=operator\n"
+			+ "\n"
+			+ "unique=name, role\n"
+			+ "transient=secret\n";
+
+	@Test
+	public void testActions() throws Exception {
+
+		final ColumnConfig index = new ColumnConfig(COLUMNS, "index.html", label -> "[" + label + "]", 42);
+		assertEquals(2, index.getColumns().size());
+		assertEquals("name", index.getColumn(1).getName());
+		assertEquals("[Name]", index.getColumn(1).getLabel());
+		assertTrue(index.getColumn(2).isTransient());
+		assertEquals("name=[Name]", index.getLines().get(Integer.valueOf(1)));
+		assertArrayEquals(new String[] {"name", "role"}, index.getUniqueFields());
+		assertEquals("name, 'TRANSIENT'", index.getColumnsForSql(false));
+		assertEquals("name", index.getColumnsForSql(true));
+		assertEquals(42, index.getLastModified());
+
+		// JSON labels aren't translated
+		final ColumnConfig json = new ColumnConfig(COLUMNS, "index.json", label -> "[" + label + "]", 42);
+		assertEquals(1, json.getColumns().size());
+		assertEquals("name", json.getColumn(1).getLabel());
+
+		final ColumnConfig add = new ColumnConfig(COLUMNS, "add.html", label -> label, 42);
+		assertEquals(2, add.getColumns().size());
+		assertEquals("operator", add.getInitialValues().get("role"));
+		assertFalse(add.getColumn(2).isTransient());
+		assertEquals("name, role", add.getColumnsForSql(true));
+	}
+
+	@Test
+	public void testFallBack() throws Exception {
+
+		// No prefixes used by the action -> all lines
+		final ColumnConfig config = new ColumnConfig("id=ID\nname=Name\n", "edit.html", label -> label, 0);
+		assertEquals(2, config.getColumns().size());
+		assertEquals("id", config.getColumn(1).getName());
+		assertEquals(0, config.getUniqueFields().length);
+		assertTrue(config.getTransientFields().isEmpty());
+		assertEquals("id, name", config.getColumnsForSql(false));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSharedLines() throws Exception {
+
+		// Shared by all handlers, handlers must use their own copy
+		final ColumnConfig config = new ColumnConfig(COLUMNS, "index.html", label -> label, 0);
+		assertTrue(config.getLines() == config.getLines());
+		config.getLines().put(Integer.valueOf(3), "other=Other");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSharedInitialValues() throws Exception {
+
+		final ColumnConfig config = new ColumnConfig(COLUMNS, "add.html", label -> label, 0);
+		config.getInitialValues().put("name", "other");
+	}
+
+}
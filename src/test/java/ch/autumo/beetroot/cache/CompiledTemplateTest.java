@@ -0,0 +1,93 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+import ch.autumo.beetroot.cache.CompiledTemplate.Line;
+
+
+/**
+ * Compiled template test.
+ */
+public class CompiledTemplateTest {
+
+	private static final String TEMPLATE = ""
+			+ "<html>\r\n"
+			+ "{#head}\n"
+			+ "{#header}\n"
+			+ "<a href=\"/{$lang}/users/index\">{$l.base.name.user}</a>\n"
+			+ "{$if-role=administrator}\r"
+			+ "{#template}\n"
+			+ "{$endif-role}\n"
+			+ "{#scriptIndex}\n"
+			+ "\n"
+			+ "</html>";
+
+	@Test
+	public void testLines() {
+
+		final CompiledTemplate template = new CompiledTemplate(TEMPLATE, 42);
+
+		// Same lines as the scanner delivers
+		final List<String> expected = new ArrayList<>();
+		final Scanner sc = new Scanner(TEMPLATE);
+		while (sc.hasNextLine())
+			expected.add(sc.nextLine());
+		sc.close();
+
+		final List<Line> lines = template.getLines();
+		assertEquals("Line count differs!", expected.size(), lines.size());
+		for (int i = 0; i < lines.size(); i++)
+			assertEquals("Line " + i + " differs!", expected.get(i), lines.get(i).getText());
+
+		assertEquals(TEMPLATE.length(), template.length());
+		assertEquals(42, template.getLastModified());
+	}
+
+	@Test
+	public void testNodes() {
+
+		final List<Line> lines = new CompiledTemplate(TEMPLATE, 1).getLines();
+
+		assertEquals(CompiledTemplate.BLOCK_NONE, lines.get(0).getBlock());
+		assertEquals(CompiledTemplate.BLOCK_HEAD, lines.get(1).getBlock());
+		assertEquals(CompiledTemplate.BLOCK_HEADER, lines.get(2).getBlock());
+		assertEquals(CompiledTemplate.BLOCK_TEMPLATE, lines.get(5).getBlock());
+		assertEquals(CompiledTemplate.BLOCK_SCRIPT, lines.get(7).getBlock());
+
+		assertTrue(lines.get(3).hasVariables());
+		assertTrue(lines.get(3).hasLanguageVariables());
+		assertTrue(lines.get(3).hasReferences());
+		assertFalse(lines.get(0).hasVariables());
+		assertFalse(lines.get(0).hasReferences());
+
+		assertTrue(lines.get(4).hasIfTags());
+		assertTrue(lines.get(6).hasIfTags());
+		assertFalse(lines.get(5).hasIfTags());
+	}
+
+}
@@ -0,0 +1,111 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.BeetRootDatabaseManager;
+import ch.autumo.beetroot.Model;
+import ch.autumo.beetroot.models.Product;
+import ch.autumo.beetroot.models.Variant;
+import ch.autumo.beetroot.utils.database.DB;
+
+
+/**
+ * Entity cache test; variants are annotated as cached.
+ */
+public class EntityCacheTest {
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+		BeetRootDatabaseManager.getInstance().initialize();
+	}
+
+	@Test
+	public void readThrough() throws Exception {
+
+		final EntityCacheManager cache = EntityCacheManager.getInstance();
+		assertTrue(cache.isCached(Variant.class));
+		assertFalse(cache.isCached(Product.class));
+
+		final Variant v = new Variant();
+		v.setDescription("cached");
+		v.setIdentifier("CACHE");
+		v.setProductId(2);
+		final int id = v.save();
+
+		final long hits = cache.getHits();
+		final Variant v1 = (Variant) Model.read(Variant.class, id);
+		final Variant v2 = (Variant) Model.read(Variant.class, id);
+		assertNotNull(v2);
+		assertEquals(hits + 1, cache.getHits());
+		assertTrue(cache.getHitRatio("variants") > 0.0);
+
+		// Copies only
+		assertNotSame(v1, v2);
+		assertTrue(v2.isStored());
+		v2.setDescription("changed, not updated");
+		assertEquals("cached", ((Variant) Model.read(Variant.class, id)).getDescription());
+
+		// Invalidated by updates and deletions
+		v1.setDescription("updated");
+		v1.update();
+		assertEquals("updated", ((Variant) Model.read(Variant.class, id)).getDescription());
+		v1.delete();
+		assertNull(Model.read(Variant.class, id));
+	}
+
+	@Test
+	public void globalTransaction() throws Exception {
+
+		final Variant v = new Variant();
+		v.setDescription("committed");
+		v.setIdentifier("CACHE-TX");
+		v.setProductId(2);
+		final int id = v.save();
+
+		final Connection conn = DB.newGlobalConnection();
+		v.setDescription("in transaction");
+		v.update(conn);
+		// Read concurrently before the commit: the old entity is cached
+		assertEquals("committed", ((Variant) Model.read(Variant.class, id)).getDescription());
+		conn.commit();
+		DB.retireGlobalConnection(conn);
+		assertEquals("in transaction", ((Variant) Model.read(Variant.class, id)).getDescription());
+		v.delete();
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		BeetRootDatabaseManager.getInstance().release();
+	}
+
+}
@@ -17,24 +17,47 @@
  */
 package ch.autumo.beetroot.cache;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.nanohttpd.protocols.http.content.ContentType;
+import org.nanohttpd.protocols.http.response.Response;
 
 import ch.autumo.beetroot.BeetRootConfigurationManager;
 import ch.autumo.beetroot.BeetRootDatabaseManager;
@@ -123,6 +146,244 @@ public class FileCacheTest {
 	}
 	
 	
+	@Test
+	public void testText() throws IOException {
+		
+		final String css = "body { content: 'Grüezi'; }\n";
+		final Path p = Files.createTempFile("beetroot-cache", ".css");
+		try {
+			Files.write(p, css.getBytes(StandardCharsets.UTF_8));
+			final FileCache fc = FileCacheManager.getInstance().findOrCreate(p);
+			assertTrue(fc.isCached());
+			
+			// Encoded bytes are kept and shared
+			final ByteBuffer data = fc.getDataBuffer();
+			assertTrue(data.isReadOnly());
+			final byte bytes[] = new byte[data.remaining()];
+			data.get(bytes);
+			assertTrue(Arrays.equals(css.getBytes(StandardCharsets.UTF_8), bytes));
+			
+			// Text is decoded once
+			final String text = fc.getTextData();
+			assertEquals(css, text);
+			assertSame(text, fc.getTextData());
+		} finally {
+			Files.delete(p);
+		}
+	}
+	
+	@Test
+	public void testCompression() throws IOException {
+		
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			sb.append(".c" + i + " { color: #000; margin: 0; }\n");
+		final String css = sb.toString();
+		final Path p = Files.createTempFile("beetroot-cache", ".css");
+		try {
+			Files.write(p, css.getBytes(StandardCharsets.UTF_8));
+			final FileCache fc = new FileCache(p, "text/css");
+			assertTrue(fc.isCached());
+			final long size = fc.getCacheSize();
+			
+			// Compressed variant
+			Response r = fc.createResponse("text/css", "deflate, gzip;q=0.8");
+			assertEquals("gzip", r.getHeader("Content-Encoding"));
+			assertEquals("Accept-Encoding", r.getHeader("Vary"));
+			try (GZIPInputStream gis = new GZIPInputStream(r.getData())) {
+				assertEquals(css, IOUtils.toString(gis, StandardCharsets.UTF_8));
+			}
+			assertTrue("Compressed variant not accounted!", fc.getCacheSize() > size);
+			
+			// Not accepted
+			r = fc.createResponse("text/css", "gzip;q=0");
+			assertNull(r.getHeader("Content-Encoding"));
+			assertEquals("Accept-Encoding", r.getHeader("Vary"));
+			assertEquals(css, IOUtils.toString(r.getData(), StandardCharsets.UTF_8));
+			r = fc.createResponse("text/css", null);
+			assertNull(r.getHeader("Content-Encoding"));
+		} finally {
+			Files.delete(p);
+		}
+	}
+	
+	@Test
+	public void testConditional() throws IOException {
+		
+		final Path p = Files.createTempFile("beetroot-cache", ".css");
+		try {
+			Files.write(p, "body { margin: 0; }".getBytes(StandardCharsets.UTF_8));
+			final FileCache fc = new FileCache(p, "text/css");
+			final String etag = fc.getETag();
+			assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+			assertSame(etag, fc.getETag());
+			
+			assertTrue(fc.isNotModified(etag, etag, null));
+			assertTrue(fc.isNotModified(etag, "\"other\", W/" + etag, null));
+			assertTrue(fc.isNotModified(etag, etag.substring(0, etag.length() - 1) + "-gz\"", null));
+			assertFalse(fc.isNotModified(etag, "\"other\"", null));
+			
+			// 'If-None-Match' takes precedence
+			final String now = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+			final String past = "Tue, 15 Nov 1994 08:12:31 GMT";
+			assertTrue(fc.isNotModified(etag, null, now));
+			assertFalse(fc.isNotModified(etag, null, past));
+			assertFalse(fc.isNotModified(etag, "\"other\"", now));
+			assertFalse(fc.isNotModified(etag, null, "invalid"));
+			
+			// Changed content, new validator
+			Files.write(p, "body { margin: 1px; }".getBytes(StandardCharsets.UTF_8));
+			p.toFile().setLastModified(System.currentTimeMillis() + 5000);
+			assertFalse(etag.equals(fc.getETag()));
+		} finally {
+			Files.delete(p);
+		}
+	}
+	
+	@Test
+	public void testArchiveResource() throws IOException {
+		
+		final String etags[] = new String[2];
+		for (int i = 0; i < etags.length; i++) {
+			// An upgraded JAR with another version of the archive
+			final Path jar = Files.createTempFile("beetroot-cache", ".jar");
+			try {
+				try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+					out.putNextEntry(new JarEntry("beetroot-cache/archive.zip"));
+					out.write(("archive version " + i).getBytes(StandardCharsets.UTF_8));
+					out.closeEntry();
+				}
+				final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				try (URLClassLoader jarLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+					Thread.currentThread().setContextClassLoader(jarLoader);
+					final FileCache fc = new FileCache("beetroot-cache/archive.zip", new ContentType("application/zip"));
+					assertFalse(fc.isCached());
+					etags[i] = fc.getETag();
+				} finally {
+					Thread.currentThread().setContextClassLoader(loader);
+				}
+			} finally {
+				Files.delete(jar);
+			}
+		}
+		assertTrue(etags[0].startsWith("\"") && etags[0].endsWith("\""));
+		assertFalse(etags[0].equals(etags[1]));
+	}
+	
+	@Test
+	public void testEviction() throws IOException {
+		
+		final FileCacheManager manager = FileCacheManager.getInstance();
+		final Map<String, Integer> evicted = new ConcurrentHashMap<>();
+		final EvictionListener listener = (fc, cause) -> evicted.put(fc.getFullPath(), Integer.valueOf(cause));
+		manager.addEvictionListener(listener);
+		
+		final Path dir = Files.createTempDirectory("beetroot-cache");
+		try {
+			// More files than fit into the cache, each fits into a file buffer
+			final char data[] = new char[(int) Math.min(FileCache.BUFFER_LIMIT - 1, manager.getMaxSize() / 4)];
+			Arrays.fill(data, 'x');
+			final int amount = (int) (manager.getMaxSize() / data.length) + 4;
+			final List<Path> files = new ArrayList<>();
+			for (int i = 0; i < amount; i++) {
+				final Path p = dir.resolve("file" + i + ".txt");
+				Files.write(p, new String(data).getBytes());
+				files.add(p);
+			}
+			
+			for (Path p : files) {
+				final FileCache fc = manager.findOrCreate(p);
+				assertTrue("Late file "+fc.getFullPath()+" should be cached!", fc.isCached());
+				assertTrue("Cache size exceeded!", manager.getSize() <= manager.getMaxSize());
+			}
+			
+			// The least recently used files have been evicted
+			final String first = files.get(0).toAbsolutePath().toString();
+			assertEquals(Integer.valueOf(EvictionListener.CAUSE_SIZE), evicted.get(first));
+			assertFalse(manager.contains(first));
+			assertTrue(manager.contains(files.get(amount - 1).toAbsolutePath().toString()));
+			
+			// Hits
+			final FileCache last = manager.findOrCreate(files.get(amount - 1));
+			final long hits = last.getHits();
+			last.getTextData();
+			assertEquals(hits + 1, last.getHits());
+			
+			// Deleted files are evicted
+			Files.delete(files.get(amount - 1));
+			try {
+				manager.findOrCreate(files.get(amount - 1));
+				fail("File has been deleted!");
+			} catch (FileNotFoundException e) {
+				assertEquals(Integer.valueOf(EvictionListener.CAUSE_DELETED), evicted.get(last.getFullPath()));
+				assertTrue(last.isEvicted());
+			}
+		} finally {
+			manager.removeEvictionListener(listener);
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path p : stream)
+					Files.delete(p);
+			}
+			Files.delete(dir);
+		}
+	}
+	
+	@Test
+	public void testConcurrentEviction() throws Exception {
+		
+		final FileCacheManager manager = FileCacheManager.getInstance();
+		final Path dir = Files.createTempDirectory("beetroot-cache");
+		try {
+			// Files are cached for the first time by several threads at once
+			final char data[] = new char[(int) Math.min(FileCache.BUFFER_LIMIT - 1, manager.getMaxSize() / 4)];
+			Arrays.fill(data, 'x');
+			final int amount = (int) (manager.getMaxSize() / data.length) * 2 + 4;
+			final List<Path> files = new ArrayList<>();
+			for (int i = 0; i < amount; i++) {
+				final Path p = dir.resolve("file" + i + ".txt");
+				Files.write(p, new String(data).getBytes());
+				files.add(p);
+			}
+			
+			final List<FileCache> caches = Collections.synchronizedList(new ArrayList<>());
+			final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+			final List<Thread> threads = new ArrayList<>();
+			for (Path p : files) {
+				final Thread t = new Thread(() -> {
+					try {
+						caches.add(manager.findOrCreate(p));
+						if (manager.getSize() > manager.getMaxSize())
+							throw new AssertionError("Cache size exceeded: " + manager.getSize());
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				});
+				threads.add(t);
+				t.start();
+			}
+			for (Thread t : threads)
+				t.join();
+			
+			assertTrue("Errors: " + errors, errors.isEmpty());
+			assertTrue("Cache size exceeded!", manager.getSize() <= manager.getMaxSize());
+			
+			// The cache size is exactly what the remaining file caches use
+			long sum = 0;
+			for (FileCache fc : caches) {
+				if (!fc.isEvicted())
+					sum += fc.getCacheSize();
+			}
+			assertEquals(sum, manager.getSize());
+		} finally {
+			manager.clear();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path p : stream)
+					Files.delete(p);
+			}
+			Files.delete(dir);
+		}
+	}
+	
 	@After
 	public void tearDown() throws Exception {
 		FileCacheManager.getInstance().clear();
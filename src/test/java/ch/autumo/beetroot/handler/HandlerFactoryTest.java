@@ -0,0 +1,77 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootHTTPSession;
+
+
+/**
+ * Handler factory test.
+ */
+public class HandlerFactoryTest {
+
+	public static class TestHandler {
+		
+		private final String entity;
+		private final String msg;
+		private boolean initialized = false;
+		
+		public TestHandler() {
+			this(null, null);
+		}
+		
+		private TestHandler(String entity, String msg) {
+			this.entity = entity;
+			this.msg = msg;
+		}
+		
+		public void initialize(BeetRootHTTPSession session) {
+			initialized = true;
+		}
+	}
+	
+	@Test
+	public void testFactory() throws Exception {
+		
+		final HandlerFactory factory = HandlerFactory.get(TestHandler.class, 2);
+		assertSame(factory, HandlerFactory.get(TestHandler.class, 2));
+		
+		final TestHandler handler = (TestHandler) factory.newInstance("tasks", "saved");
+		assertEquals("tasks", handler.entity);
+		assertEquals("saved", handler.msg);
+		
+		factory.initialize(handler, null);
+		assertTrue(handler.initialized);
+		
+		assertEquals(null, ((TestHandler) HandlerFactory.get(TestHandler.class, 0).newInstance()).entity);
+		
+		try {
+			HandlerFactory.get(TestHandler.class, 3);
+			fail("There's no constructor with 3 parameters!");
+		} catch (NoSuchMethodException e) {
+		}
+	}
+	
+}
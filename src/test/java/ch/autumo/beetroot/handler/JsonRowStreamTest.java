@@ -0,0 +1,108 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.BeetRootDatabaseManager;
+import ch.autumo.beetroot.utils.web.Web;
+
+
+/**
+ * JSON row stream test; also measures the throughput of large lists.
+ */
+public class JsonRowStreamTest {
+
+	private static final JsonRowStream.RowWriter WRITER = (set, out) -> {
+		out.append("        {\n            \"id\": \"").append(set.getInt(1)).append("\",\n            \"name\": \"");
+		Web.escapeJson(set.getString(2), out).append("\"\n        }");
+	};
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+		BeetRootDatabaseManager.getInstance().initialize();
+	}
+
+	@Test
+	public void escaping() throws Exception {
+		final String value = "a \"quoted\" \\ value\nwith\ttabs, \u0001 and  ";
+		final JSONObject json = new JSONObject("{\"v\": \"" + Web.escapeJson(value) + "\"}");
+		assertEquals(value, json.getString("v"));
+	}
+
+	@Test
+	public void stream() throws Exception {
+		final JSONObject json = new JSONObject(this.read("SELECT X, 'name \"' || X || '\"' FROM SYSTEM_RANGE(1, 5)", 3));
+		final JSONArray rows = json.getJSONArray("rows");
+		assertEquals(3, rows.length());
+		assertEquals("name \"3\"", rows.getJSONObject(2).getString("name"));
+		assertEquals(42, json.getInt("total"));
+
+		// Empty result
+		assertEquals(0, new JSONObject(this.read("SELECT X, 'n' FROM SYSTEM_RANGE(1, 0)", 10)).getJSONArray("rows").length());
+	}
+
+	@Test
+	public void throughput() throws Exception {
+		final int amount = 100000;
+		final long start = System.nanoTime();
+		final String text = this.read("SELECT X, 'name ' || X FROM SYSTEM_RANGE(1, " + amount + ")", amount);
+		final long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+		System.out.println("JSON row stream: " + amount + " rows, " + text.length() / 1024 + " kB in " + millis
+				+ " ms (" + (amount * 1000L / millis) + " rows/s).");
+		assertEquals(amount, new JSONObject(text).getJSONArray("rows").length());
+	}
+
+	private String read(String query, int maxRows) throws Exception {
+		final Connection conn = BeetRootDatabaseManager.getInstance().getConnection();
+		final Statement stmt = conn.createStatement();
+		final ResultSet set = stmt.executeQuery(query);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new JsonRowStream("{\n    \"rows\": [\n", "\n    ],\n    \"total\": 42\n}", set, maxRows, ",\n", WRITER, stmt, conn)) {
+			final byte buffer[] = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) != -1)
+				out.write(buffer, 0, n);
+		}
+		assertTrue(set.isClosed());
+		assertTrue(conn.isClosed());
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		BeetRootDatabaseManager.getInstance().release();
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.BeetRootDatabaseManager;
+import ch.autumo.beetroot.Entity;
+import ch.autumo.beetroot.utils.bean.BeanProcessor;
+import ch.autumo.beetroot.utils.bean.Beans;
+import ch.autumo.beetroot.utils.bean.EntityMetadata;
+import ch.autumo.beetroot.utils.bean.RowMapper;
+
+
+/**
+ * Entity meta data and row mapper test.
+ */
+public class EntityMetadataTest {
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+		BeetRootDatabaseManager.getInstance().initialize();
+	}
+
+	@Test
+	public void metadata() throws Exception {
+
+		final EntityMetadata metadata = EntityMetadata.of(Product.class);
+		assertSame(metadata, EntityMetadata.of(Product.class));
+		assertEquals("products", metadata.getTableName());
+		assertEquals(Beans.getBeanFields(Product.class).keySet(), metadata.getBeanFields().keySet());
+		assertEquals("name", metadata.getDisplayField());
+		assertTrue(metadata.getForeignReferences().isEmpty());
+
+		final Product p = new Product();
+		p.setName("meta");
+		p.setIntSecKey("key");
+		assertEquals("meta", metadata.getValue(p, "name"));
+		assertEquals("key", p.get("int_sec_key"));
+		assertEquals("key", p.get("intSecKey"));
+
+		final Product clone = (Product) p.clone();
+		assertEquals("meta", clone.getName());
+		assertEquals("key", clone.getIntSecKey());
+	}
+
+	@Test
+	public void rowMapper() throws Exception {
+
+		// Generated for products, none for variants
+		assertNotNull(EntityMetadata.of(Product.class).getRowMapper());
+		assertNull(EntityMetadata.of(Variant.class).getRowMapper());
+
+		final Product p = new Product();
+		p.setEmailNotes("notes");
+		assertEquals("notes", p.rowMapper().get(p, "email_notes"));
+		assertEquals("notes", p.rowMapper().get(p, "emailNotes"));
+		assertSame(RowMapper.NO_FIELD, p.rowMapper().get(p, "unknown"));
+		assertEquals("notes", p.get("email_notes"));
+
+		final Variant v = new Variant();
+		v.setIdentifier("ident");
+		assertEquals("ident", v.get("identifier"));
+
+		// Sub-classes don't use the inherited row mapper
+		assertNull(EntityMetadata.of(SpecialProduct.class).getRowMapper());
+		assertSame(SpecialProduct.class, EntityMetadata.of(SpecialProduct.class).newInstance().getClass());
+	}
+
+	/**
+	 * Sub-class of a generated bean.
+	 */
+	public static class SpecialProduct extends Product {
+		private static final long serialVersionUID = 1L;
+	}
+
+	@Test
+	public void rowMapping() throws Exception {
+
+		// Same beans row by row and as list
+		final BeanProcessor processor = new BeanProcessor();
+		try (Connection conn = BeetRootDatabaseManager.getInstance().getConnection();
+				Statement stmt = conn.createStatement()) {
+			List<Entity> list = null;
+			try (ResultSet set = stmt.executeQuery("SELECT * FROM products ORDER BY id")) {
+				list = processor.toBeanList(set, Product.class);
+			}
+			assertTrue("Empty result!", list.size() > 0);
+			try (ResultSet set = stmt.executeQuery("SELECT * FROM products ORDER BY id")) {
+				int i = 0;
+				while (set.next()) {
+					final Product p0 = (Product) Beans.createBean(Product.class, set, processor);
+					final Product p1 = (Product) list.get(i++);
+					assertEquals(p1.getId(), p0.getId());
+					assertEquals(p1.getName(), p0.getName());
+					assertEquals(p1.getIntSecKey(), p0.getIntSecKey());
+					assertEquals(p1.getCreateUser(), p0.getCreateUser());
+					assertEquals(set.getString("name"), p0.getName());
+					assertEquals(set.getTimestamp("created"), p0.getCreated());
+					assertEquals(set.getBoolean("create_user"), p0.getCreateUser());
+				}
+				assertEquals(list.size(), i);
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		BeetRootDatabaseManager.getInstance().release();
+	}
+
+}
@@ -3,10 +3,14 @@
  */
 package ch.autumo.beetroot.models;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import ch.autumo.beetroot.Model;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 import ch.autumo.beetroot.annotations.Unique;
+import ch.autumo.beetroot.utils.bean.RowMapper;
 
 /**
  * Product. 
@@ -93,6 +97,44 @@ public class Product extends Model {
     @Override
     public Class<?> modelClass() {
         return Product.class;
-    }	
-	
+    }
+
+    @Override
+    public RowMapper<Product> rowMapper() {
+        return ROW_MAPPER;
+    }
+
+    private static final RowMapper<Product> ROW_MAPPER = new RowMapper<Product>() {
+        @Override
+        public Product newBean() {
+            return new Product();
+        }
+        @Override
+        public boolean set(Product bean, String column, ResultSet rs, int index) throws SQLException {
+            switch (column) {
+                case "id": bean.setId(rs.getInt(index)); return true;
+                case "int_sec_key": bean.setIntSecKey(rs.getString(index)); return true;
+                case "email_notes": bean.setEmailNotes(rs.getString(index)); return true;
+                case "created": bean.setCreated(rs.getTimestamp(index)); return true;
+                case "name": bean.setName(rs.getString(index)); return true;
+                case "modified": bean.setModified(rs.getTimestamp(index)); return true;
+                case "create_user": bean.setCreateUser(rs.getBoolean(index)); return true;
+                default: return false;
+            }
+        }
+        @Override
+        public Object get(Product bean, String field) {
+            switch (field) {
+                case "id": return bean.getId();
+                case "int_sec_key": case "intSecKey": return bean.getIntSecKey();
+                case "email_notes": case "emailNotes": return bean.getEmailNotes();
+                case "created": return bean.getCreated();
+                case "name": return bean.getName();
+                case "modified": return bean.getModified();
+                case "create_user": case "createUser": return bean.getCreateUser();
+                default: return NO_FIELD;
+            }
+        }
+    };
+
 }
@@ -4,12 +4,14 @@
 package ch.autumo.beetroot.models;
 
 import ch.autumo.beetroot.Model;
+import ch.autumo.beetroot.annotations.Cached;
 import ch.autumo.beetroot.annotations.Column;
 import ch.autumo.beetroot.annotations.Nullable;
 
 /**
  * Variant. 
  */
+@Cached
 public class Variant extends Model {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,75 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.utils.security.IdTokens;
+
+
+/**
+ * Stateless ID tokens test.
+ */
+public class IdTokensTest {
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+
+		final byte[] key = IdTokens.sessionKey("session-1");
+		for (int id : new int[] {0, 1, 42, 65536, Integer.MAX_VALUE}) {
+			final String token = IdTokens.encode(key, "tasks", id);
+			assertEquals(22, token.length());
+			assertEquals(token, IdTokens.encode(key, "tasks", id));
+			assertEquals(id, IdTokens.decode(key, "tasks", token));
+		}
+		assertFalse(IdTokens.encode(key, "tasks", 1).equals(IdTokens.encode(key, "users", 1)));
+	}
+
+	@Test
+	public void rejected() throws Exception {
+
+		final byte[] key = IdTokens.sessionKey("session-1");
+		final String token = IdTokens.encode(key, "tasks", 7);
+
+		// Other entity, other session
+		assertEquals(-1, IdTokens.decode(key, "users", token));
+		assertEquals(-1, IdTokens.decode(IdTokens.sessionKey("session-2"), "tasks", token));
+
+		// Former epoch of the session
+		assertEquals(7, IdTokens.decode(IdTokens.sessionKey("session-1", 0), "tasks", token));
+		assertEquals(-1, IdTokens.decode(IdTokens.sessionKey("session-1", 1), "tasks", token));
+
+		// Tampered or malformed
+		final char c = token.charAt(3) == 'A' ? 'B' : 'A';
+		assertEquals(-1, IdTokens.decode(key, "tasks", token.substring(0, 3) + c + token.substring(4)));
+		assertEquals(-1, IdTokens.decode(key, "tasks", "7"));
+		assertEquals(-1, IdTokens.decode(key, "tasks", "!!!!!!!!!!!!!!!!!!!!!!"));
+		assertEquals(-1, IdTokens.decode(key, "tasks", null));
+	}
+
+}
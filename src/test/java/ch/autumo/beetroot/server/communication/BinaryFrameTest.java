@@ -0,0 +1,155 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.Constants;
+import ch.autumo.beetroot.server.message.ClientAnswer;
+import ch.autumo.beetroot.server.message.ServerCommand;
+
+
+/**
+ * Binary frame test; string and binary format are read by the same
+ * reader, large messages pass and the encode/decode time of both
+ * formats is printed.
+ */
+public class BinaryFrameTest {
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+	}
+
+	@Test
+	public void formats() throws Exception {
+
+		final ServerCommand command = new ServerCommand("test", "CMD", "tasks", 42L, "domain");
+		command.setObject("{\"a\": \"ü\"}");
+
+		for (boolean binary : new boolean[] {false, true}) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+			if (binary)
+				BinaryFrame.write(command, out);
+			else
+				Communicator.write(command.getData(), out);
+			// second message follows on the same stream
+			Communicator.writeAnswer(new ClientAnswer("OK"), out, binary);
+
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			final ServerCommand read = Communicator.readCommand(in);
+			assertEquals(binary, read.isBinary());
+			assertEquals("CMD", read.getCommand());
+			assertEquals("tasks", read.getEntity());
+			assertEquals(42L, read.getId());
+			assertEquals("domain", read.getDomain());
+			assertEquals("ü", read.getJSONObject().getString("a"));
+			assertEquals("OK", ClientCommunicator.readAnswer(in).getAnswer());
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void large() throws Exception {
+
+		final StringBuilder log = new StringBuilder();
+		while (log.length() < 4 * Communicator.MAX_MSG_SIZE)
+			log.append("2025-01-01 12:00:00 INFO  [main] ch.autumo.beetroot.server.BaseServer - Line ").append(log.length()).append('\n');
+		final ClientAnswer answer = new ClientAnswer("log");
+		answer.setObject(log.toString());
+
+		for (String compress : new String[] {Constants.NO, Constants.YES}) {
+			BeetRootConfigurationManager.getInstance().updateProperty(Constants.KEY_ADMIN_COM_COMPRESS, compress);
+			BinaryFrame.reInit();
+
+			ByteArrayOutputStream bytes = null;
+			ClientAnswer read = null;
+			long binaryMicros = 0;
+			for (int i = 0; i < 5; i++) { // last round after warm-up
+				final long start = System.nanoTime();
+				bytes = new ByteArrayOutputStream();
+				BinaryFrame.write(answer, new DataOutputStream(bytes));
+				read = ClientCommunicator.readAnswer(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+				binaryMicros = (System.nanoTime() - start) / 1000;
+			}
+			assertEquals(log.toString(), read.getObject());
+			if (compress.equals(Constants.YES))
+				assertTrue(bytes.size() < log.length() / 4);
+			System.out.println("Binary message (compress=" + compress + "): " + log.length() / 1024 + " kB -> "
+					+ bytes.size() / 1024 + " kB in " + binaryMicros + " us.");
+		}
+
+		// String format for comparison, without its size limit
+		String transfer = null;
+		ClientAnswer read = null;
+		long start = 0;
+		for (int i = 0; i < 5; i++) {
+			start = System.nanoTime();
+			transfer = answer.getTransferString();
+			read = ClientAnswer.parse(transfer);
+		}
+		System.out.println("String message: " + log.length() / 1024 + " kB -> "
+				+ transfer.length() / 1024 + " kB in " + (System.nanoTime() - start) / 1000 + " us.");
+		assertEquals(log.toString(), read.getObject());
+		assertFalse(transfer.length() <= Communicator.MAX_MSG_SIZE);
+	}
+
+	@Test(expected = EOFException.class)
+	public void forgedLength() throws Exception {
+
+		// A small frame claiming a huge string must not allocate it
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(BinaryFrame.MAGIC | (BinaryFrame.VERSION << 8));
+		out.writeInt(8);
+		out.writeInt(Integer.MAX_VALUE);
+		out.writeInt(0x41414141);
+		out.writeInt(0);
+
+		final String mode = BeetRootConfigurationManager.getInstance().getString(Constants.KEY_ADMIN_COM_ENC);
+		BeetRootConfigurationManager.getInstance().updateProperty(Constants.KEY_ADMIN_COM_ENC, "none");
+		BinaryFrame.reInit();
+		try {
+			Communicator.readCommand(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		} finally {
+			BeetRootConfigurationManager.getInstance().updateProperty(Constants.KEY_ADMIN_COM_ENC, mode);
+			BinaryFrame.reInit();
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		BeetRootConfigurationManager.getInstance().updateProperty(Constants.KEY_ADMIN_COM_COMPRESS, Constants.NO);
+		BinaryFrame.reInit();
+	}
+
+}
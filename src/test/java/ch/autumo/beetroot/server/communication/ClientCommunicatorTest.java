@@ -0,0 +1,160 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+import ch.autumo.beetroot.server.message.ClientAnswer;
+import ch.autumo.beetroot.server.message.ServerCommand;
+
+
+/**
+ * Client communicator test with an echo admin server; connections
+ * must be kept alive and re-used, multiplexed answers may arrive
+ * in any order.
+ */
+public class ClientCommunicatorTest {
+
+	private static ServerSocket serverSocket = null;
+	private static final AtomicInteger connections = new AtomicInteger();
+	private static final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+		serverSocket = new ServerSocket(BeetRootConfigurationManager.getInstance().getInt("admin_port"));
+		final Thread acceptor = new Thread(() -> {
+			while (!serverSocket.isClosed()) {
+				try {
+					final Socket socket = serverSocket.accept();
+					connections.incrementAndGet();
+					sockets.add(socket);
+					new Thread(() -> echo(socket)).start();
+				} catch (IOException e) {
+					// closed
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private static void echo(Socket socket) {
+		try {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			while (true) {
+				final ServerCommand command = Communicator.readCommand(in);
+				if (command.getRequestId() == 0) {
+					answer(command, out);
+				} else {
+					// multiplexed: answered when 'processed'
+					new Thread(() -> {
+						try {
+							if (command.getCommand().startsWith("SLOW"))
+								Thread.sleep(300);
+							answer(command, out);
+						} catch (Exception e) {
+							// connection closed
+						}
+					}).start();
+				}
+			}
+		} catch (IOException e) {
+			// client or test closed the connection
+		} finally {
+			Communicator.safeClose(socket);
+		}
+	}
+
+	private static void answer(ServerCommand command, DataOutputStream out) throws IOException {
+		final ClientAnswer answer = new ClientAnswer("echo:" + command.getCommand());
+		answer.setRequestId(command.getRequestId());
+		synchronized (out) {
+			Communicator.writeAnswer(answer, out, command.isBinary());
+		}
+	}
+
+	@Test
+	public void keepAlive() throws Exception {
+
+		final int before = connections.get();
+		for (int i = 0; i < 5; i++)
+			assertEquals("echo:CMD" + i, ClientCommunicator.sendServerCommand(new ServerCommand("test", "CMD" + i)).getAnswer());
+		assertEquals(before + 1, connections.get());
+
+		// Server closes a connection while borrowed; the command written
+		// isn't sent again, the server might have executed it already
+		for (Socket socket : sockets)
+			socket.close();
+		try {
+			ClientCommunicator.sendServerCommand(new ServerCommand("test", "ONCE"));
+			fail("Command sent over a closed connection must fail!");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(before + 1, connections.get());
+		assertEquals("echo:AGAIN", ClientCommunicator.sendServerCommand(new ServerCommand("test", "AGAIN")).getAnswer());
+		assertEquals(before + 2, connections.get());
+	}
+
+	@Test
+	public void multiplexed() throws Exception {
+
+		final int before = connections.get();
+		final CompletableFuture<ClientAnswer> slow = ClientCommunicator.sendServerCommandAsync(new ServerCommand("test", "SLOW"));
+		final List<CompletableFuture<ClientAnswer>> fast = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+			fast.add(ClientCommunicator.sendServerCommandAsync(new ServerCommand("test", "FAST" + i)));
+
+		// Answers arrive out of order
+		for (int i = 0; i < 20; i++)
+			assertEquals("echo:FAST" + i, fast.get(i).get(2, TimeUnit.SECONDS).getAnswer());
+		assertFalse(slow.isDone());
+		assertEquals("echo:SLOW", slow.get(2, TimeUnit.SECONDS).getAnswer());
+		assertEquals(before + 1, connections.get());
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		serverSocket.close();
+		ClientCommunicator.reInit();
+	}
+
+}
@@ -0,0 +1,201 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package ch.autumo.beetroot.server.communication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+
+
+/**
+ * File transfer test over channel-backed loopback sockets; also compares
+ * the throughput of the former chunked stream copy with the current
+ * transfer. Chunks of chunked transfers must be verified and reassembled
+ * in any order.
+ */
+public class FileTransferTest {
+
+	private static final int SIZE = 32 * 1024 * 1024;
+	private static final int ROUNDS = 5;
+
+	private static File source = null;
+	private static ServerSocket serverSocket = null;
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+		source = File.createTempFile("beetroot-transfer", ".bin");
+		final byte data[] = new byte[SIZE];
+		new Random(42).nextBytes(data);
+		Files.write(source.toPath(), data);
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		channel.bind(new InetSocketAddress("localhost", 0));
+		serverSocket = channel.socket();
+	}
+
+	@Test
+	public void transfer() throws Exception {
+
+		double legacy = 0;
+		double current = 0;
+		// last round counts; the first ones warm up
+		for (int i = 0; i < ROUNDS; i++) {
+			legacy = this.send(false);
+			current = this.send(true);
+		}
+		System.out.println("File transfer " + SIZE / (1024 * 1024) + " MB: chunked stream copy " + Math.round(legacy)
+				+ " MB/s, file transfer " + Math.round(current) + " MB/s.");
+	}
+
+	@Test
+	public void chunks() throws Exception {
+
+		final int chunkSize = 5 * 1024 * 1024 + 17;
+		final int chunks = FileTransfer.chunks(SIZE, chunkSize);
+		assertEquals(7, chunks);
+
+		// Chunks in reverse order, as parallel streams would deliver them
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		try (FileChannel fileChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			for (int i = chunks - 1; i >= 0; i--) {
+				final long position = (long) i * chunkSize;
+				FileTransfer.writeChunk(fileChannel, position, (int) Math.min(chunkSize, SIZE - position), out);
+			}
+		}
+		final byte stream[] = bytes.toByteArray();
+		// Corrupt the first chunk sent (the last one)
+		stream[3] ^= 0x01;
+
+		final File target = File.createTempFile("beetroot-chunks", ".bin");
+		try {
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream));
+			final BitSet received = new BitSet();
+			try (FileChannel fileChannel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+				for (int i = chunks - 1; i >= 0; i--) {
+					final long position = (long) i * chunkSize;
+					if (FileTransfer.readChunk(in, fileChannel, position, (int) Math.min(chunkSize, SIZE - position)))
+						received.set(i);
+				}
+			}
+			assertFalse(received.get(chunks - 1));
+			assertEquals(chunks - 1, received.cardinality());
+			assertFalse(FileTransfer.checkSum(source).equals(FileTransfer.checkSum(target)));
+
+			// Resume with the missing chunk
+			bytes.reset();
+			try (FileChannel fileChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+				final long position = (long) (chunks - 1) * chunkSize;
+				FileTransfer.writeChunk(fileChannel, position, (int) (SIZE - position), out);
+			}
+			try (FileChannel fileChannel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+				final long position = (long) (chunks - 1) * chunkSize;
+				assertTrue(FileTransfer.readChunk(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), fileChannel, position, (int) (SIZE - position)));
+			}
+			assertEquals(SIZE, target.length());
+			assertEquals(FileTransfer.checkSum(source), FileTransfer.checkSum(target));
+			final String md5 = new BigInteger(1, MessageDigest.getInstance("MD5").digest(Files.readAllBytes(source.toPath()))).toString(16);
+			assertEquals(md5, FileTransfer.checkSum(target));
+		} finally {
+			target.delete();
+		}
+	}
+
+	private double send(boolean transfer) throws Exception {
+
+		final Future<File> received = executor.submit(new Callable<File>() {
+			@Override
+			public File call() throws Exception {
+				try (Socket socket = serverSocket.accept()) {
+					final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+					final long size = in.readLong();
+					return FileTransfer.readFile(in, "beetroot-transfer-received.bin", size);
+				}
+			}
+		});
+
+		final long start = System.nanoTime();
+		try (Socket socket = SocketChannel.open(serverSocket.getLocalSocketAddress()).socket()) {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			if (transfer) {
+				FileTransfer.sendFile(source, socket, out);
+			} else {
+				// former implementation: heap buffer, flushed per chunk
+				out.writeLong(source.length());
+				try (FileInputStream fileInputStream = new FileInputStream(source)) {
+			        final byte buffer[] = new byte[FileTransfer.bufferLen];
+			        int bytes = 0;
+			        while ((bytes = fileInputStream.read(buffer)) != -1) {
+			        	out.write(buffer, 0, bytes);
+			        	out.flush();
+			        }
+				}
+			}
+			final File file = received.get();
+			final double seconds = Math.max(1, System.nanoTime() - start) / 1000000000.0;
+			try {
+				assertEquals(SIZE, file.length());
+				assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(file.toPath()));
+			} finally {
+				file.delete();
+			}
+			return SIZE / (1024.0 * 1024.0) / seconds;
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		executor.shutdownNow();
+		serverSocket.close();
+		source.delete();
+	}
+
+}
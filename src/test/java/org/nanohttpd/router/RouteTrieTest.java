@@ -0,0 +1,105 @@
+/**
+ *
+ * Copyright (c) 2025 autumo Ltd. Switzerland, Michael Gasche
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.nanohttpd.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nanohttpd.router.RouterNanoHTTPD.IndexHandler;
+import org.nanohttpd.router.RouterNanoHTTPD.RouteTrie;
+import org.nanohttpd.router.RouterNanoHTTPD.UriResource;
+import org.nanohttpd.router.RouterNanoHTTPD.UriRouter;
+
+import ch.autumo.beetroot.BeetRootConfigurationManager;
+
+
+/**
+ * Route trie test; the trie must find the same routes 
+ * as linear matching.
+ */
+public class RouteTrieTest {
+
+	private static final String ROUTES[] = new String[] {
+			"/", "/index.html", "/:lang/", "/:lang/index.html",
+			"/:lang/home", "/:lang/home/index",
+			"/:lang/users", "/:lang/users/index", "/:lang/users/view", "/:lang/users/edit",
+			"/:lang/users/add", "/:lang/users/delete", "/:lang/users/login",
+			"/:lang/tasks/index.json",
+			"/:lang/users/:id",
+			"/files/:path",
+			"/a/:x/b",
+			"/docs/(.*)"
+		};
+
+	private static final String URIS[] = new String[] {
+			"", "index.html", "home", "home/index", "users", "users/index", "users/view",
+			"users/login", "users/42", "users/42/edit", "users/", "tasks/index.json",
+			"files/x/y/z.txt", "files/", "files/%20", "a/1/b", "a/1/2/b", "docs/readme",
+			"unknown", "users/index/more", "home//index"
+		};
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		BeetRootConfigurationManager.getInstance().initialize("cfg/beetroot_test.cfg");
+	}
+
+	@Test
+	public void testSameRoutes() {
+		int priority = 0;
+		final UriRouter router = new UriRouter();
+		for (String route : ROUTES)
+			router.addRoute(route, 100 + priority++, IndexHandler.class);
+		verify(router);
+		
+		// Changes are re-compiled
+		router.addRoute("/:lang/users/:name", 1, IndexHandler.class);
+		verify(router);
+	}
+
+	@Test
+	public void testInsertionOrder() {
+		final UriRouter router = new UriRouter();
+		router.setRoutePrioritizer(new RouterNanoHTTPD.InsertionOrderRoutePrioritizer());
+		for (int i = ROUTES.length - 1; i >= 0; i--)
+			router.addRoute(ROUTES[i], 100, IndexHandler.class);
+		verify(router);
+	}
+
+	private static void verify(UriRouter router) {
+		final RouteTrie trie = router.compiled();
+		for (String uri : URIS) {
+			final Map<String, String> expectedParams = new HashMap<>();
+			final UriResource expected = router.findLinear(uri, expectedParams);
+			final Map<String, String> params = new HashMap<>();
+			final UriResource found = trie.find(uri, params);
+			if (expected == null) {
+				assertNull("URI '" + uri + "'", found);
+			} else {
+				assertSame("URI '" + uri + "'", expected, found);
+				assertEquals("URI '" + uri + "'", expectedParams, params);
+			}
+		}
+	}
+
+}